@@ -0,0 +1,32 @@
+package com.mealplanner.config;
+
+import com.mealplanner.dto.PantryLotListResponse;
+import com.mealplanner.dto.RecipeListResponse;
+import com.mealplanner.service.PantryLotService;
+import com.mealplanner.service.RecipeService;
+import com.mealplanner.service.RequestCoalescer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class CoalescingConfig {
+
+    @Value("${mealplanner.coalescing.ttl:0ms}")
+    private Duration ttl;
+
+    @Bean
+    public RequestCoalescer<RecipeService.ListKey, RecipeListResponse> recipeListCoalescer(
+            MeterRegistry meterRegistry) {
+        return new RequestCoalescer<>("recipes.list", ttl, meterRegistry);
+    }
+
+    @Bean
+    public RequestCoalescer<PantryLotService.ListKey, PantryLotListResponse> pantryLotListCoalescer(
+            MeterRegistry meterRegistry) {
+        return new RequestCoalescer<>("pantry.list", ttl, meterRegistry);
+    }
+}
@@ -0,0 +1,44 @@
+package com.mealplanner.config;
+
+import com.mealplanner.exception.ServiceOverloadedException;
+import com.mealplanner.service.HouseholdService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Admits API requests against {@link ConcurrencyLimits} and sheds the excess with
+ * {@link ServiceOverloadedException} before any Mongo work starts; the slots are held
+ * until the request completes.
+ */
+@Component
+@RequiredArgsConstructor
+public class ConcurrencyLimitInterceptor implements HandlerInterceptor {
+
+    private static final String ADMISSION_ATTRIBUTE = ConcurrencyLimitInterceptor.class.getName() + ".admission";
+
+    private final ConcurrencyLimits concurrencyLimits;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getAttribute(ADMISSION_ATTRIBUTE) != null) {
+            return true;
+        }
+
+        String householdId = HouseholdService.resolve(request.getHeader(HouseholdService.HOUSEHOLD_HEADER));
+        request.setAttribute(ADMISSION_ATTRIBUTE,
+                concurrencyLimits.admit(householdId, request.getMethod(), request.getRequestURI()));
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+                                Object handler, Exception ex) {
+        if (request.getAttribute(ADMISSION_ATTRIBUTE) instanceof ConcurrencyLimits.Admission admission) {
+            request.removeAttribute(ADMISSION_ATTRIBUTE);
+            admission.release();
+        }
+    }
+}
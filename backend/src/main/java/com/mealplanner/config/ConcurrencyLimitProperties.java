@@ -0,0 +1,42 @@
+package com.mealplanner.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "mealplanner.limiter")
+public class ConcurrencyLimitProperties {
+
+    private boolean enabled = true;
+
+    private long retryAfterSeconds = 1;
+
+    /** Ant-style paths that count against the bulk budget regardless of method. */
+    private List<String> bulkPaths = new ArrayList<>(List.of("/api/*/export", "/api/*/import", "/api/pantry/adjustments"));
+
+    private Budget read = new Budget(50, 10, 400);
+
+    private Budget write = new Budget(20, 4, 100);
+
+    private Budget bulk = new Budget(2, 1, 8);
+
+    @Data
+    public static class Budget {
+
+        private int initialLimit;
+        private int minLimit;
+        private int maxLimit;
+
+        public Budget() {
+        }
+
+        public Budget(int initialLimit, int minLimit, int maxLimit) {
+            this.initialLimit = initialLimit;
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+        }
+    }
+}
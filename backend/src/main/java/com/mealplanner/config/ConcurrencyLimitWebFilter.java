@@ -0,0 +1,75 @@
+package com.mealplanner.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mealplanner.dto.ErrorResponse;
+import com.mealplanner.exception.GlobalExceptionHandler;
+import com.mealplanner.exception.InvalidParameterException;
+import com.mealplanner.exception.ServiceOverloadedException;
+import com.mealplanner.service.HouseholdService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * WebFlux counterpart of {@link ConcurrencyLimitInterceptor}: admits API requests against
+ * {@link ConcurrencyLimits} and holds the slots until the response completes or is
+ * cancelled. Shed requests get the same 503 {@code SERVICE_OVERLOADED} body and
+ * {@code Retry-After} header as on the servlet stack, and a missing or malformed household
+ * header the same 400.
+ */
+@Component
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ConcurrencyLimitWebFilter implements WebFilter {
+
+    private final ConcurrencyLimits concurrencyLimits;
+    private final ObjectMapper objectMapper;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        String path = request.getPath().pathWithinApplication().value();
+        if (!pathMatcher.match("/api/**", path) || ConcurrencyLimits.EXCLUDED_PATHS.contains(path)) {
+            return chain.filter(exchange);
+        }
+
+        String householdId;
+        try {
+            householdId = HouseholdService.resolve(request.getHeaders().getFirst(HouseholdService.HOUSEHOLD_HEADER));
+        } catch (InvalidParameterException ex) {
+            return reject(exchange.getResponse(), GlobalExceptionHandler.invalidParameter(ex));
+        }
+
+        ConcurrencyLimits.Admission admission;
+        try {
+            admission = concurrencyLimits.admit(householdId, request.getMethod().name(), path);
+        } catch (ServiceOverloadedException ex) {
+            return reject(exchange.getResponse(), GlobalExceptionHandler.serviceOverloaded(ex));
+        }
+        return chain.filter(exchange).doFinally(signal -> admission.release());
+    }
+
+    private Mono<Void> reject(ServerHttpResponse response, ResponseEntity<ErrorResponse> rejection) {
+        byte[] bytes;
+        try {
+            bytes = objectMapper.writeValueAsBytes(rejection.getBody());
+        } catch (JsonProcessingException e) {
+            return Mono.error(e);
+        }
+        response.setStatusCode(rejection.getStatusCode());
+        response.getHeaders().addAll(rejection.getHeaders());
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(bytes)));
+    }
+}
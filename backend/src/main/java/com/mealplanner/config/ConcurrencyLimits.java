@@ -0,0 +1,127 @@
+package com.mealplanner.config;
+
+import com.mealplanner.exception.ServiceOverloadedException;
+import com.mealplanner.service.AdaptiveConcurrencyLimiter;
+import com.mealplanner.service.HouseholdService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Separate read, write and bulk concurrency budgets plus each household's share of
+ * in-flight requests, so one busy household cannot take the whole budget. The household
+ * cap has its own switch and applies even with the budgets disabled. Both web stacks admit
+ * requests here: {@link ConcurrencyLimitInterceptor} on the servlet stack and
+ * {@link ConcurrencyLimitWebFilter} under WebFlux.
+ */
+@Component
+public class ConcurrencyLimits {
+
+    /** The change feed holds its connection open by design and would pin an in-flight slot. */
+    public static final List<String> EXCLUDED_PATHS = List.of("/api/health", "/api/events");
+
+    private final ConcurrencyLimitProperties properties;
+    private final HouseholdService householdService;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final AdaptiveConcurrencyLimiter readLimiter;
+    private final AdaptiveConcurrencyLimiter writeLimiter;
+    private final AdaptiveConcurrencyLimiter bulkLimiter;
+
+    public ConcurrencyLimits(ConcurrencyLimitProperties properties, HouseholdService householdService,
+                             MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.householdService = householdService;
+        this.readLimiter = createLimiter("read", properties.getRead(), meterRegistry);
+        this.writeLimiter = createLimiter("write", properties.getWrite(), meterRegistry);
+        this.bulkLimiter = createLimiter("bulk", properties.getBulk(), meterRegistry);
+    }
+
+    /**
+     * Highest utilization across the request budgets, or 0 when limiting is disabled.
+     */
+    public double utilization() {
+        if (!properties.isEnabled()) {
+            return 0;
+        }
+        return Math.max(readLimiter.utilization(), Math.max(writeLimiter.utilization(), bulkLimiter.utilization()));
+    }
+
+    /**
+     * Claims a household slot and a slot in the request's budget before any Mongo work starts.
+     *
+     * @throws ServiceOverloadedException when either is full; nothing is held in that case
+     */
+    public Admission admit(String householdId, String method, String path) {
+        if (!householdService.tryAcquireRequest(householdId)) {
+            throw new ServiceOverloadedException("household", properties.getRetryAfterSeconds());
+        }
+        if (!properties.isEnabled()) {
+            return new Admission(householdId, null);
+        }
+
+        String budget = budgetFor(method, path);
+        AdaptiveConcurrencyLimiter limiter = limiterFor(budget);
+        if (!limiter.tryAcquire()) {
+            householdService.releaseRequest(householdId);
+            throw new ServiceOverloadedException(budget, properties.getRetryAfterSeconds());
+        }
+        return new Admission(householdId, limiter);
+    }
+
+    private String budgetFor(String method, String path) {
+        for (String bulkPath : properties.getBulkPaths()) {
+            if (pathMatcher.match(bulkPath, path)) {
+                return "bulk";
+            }
+        }
+        if (HttpMethod.GET.matches(method) || HttpMethod.HEAD.matches(method)) {
+            return "read";
+        }
+        return "write";
+    }
+
+    private AdaptiveConcurrencyLimiter limiterFor(String budget) {
+        return switch (budget) {
+            case "bulk" -> bulkLimiter;
+            case "read" -> readLimiter;
+            default -> writeLimiter;
+        };
+    }
+
+    private static AdaptiveConcurrencyLimiter createLimiter(String budget, ConcurrencyLimitProperties.Budget limits,
+                                                            MeterRegistry meterRegistry) {
+        return new AdaptiveConcurrencyLimiter(budget, limits.getInitialLimit(), limits.getMinLimit(),
+                limits.getMaxLimit(), meterRegistry);
+    }
+
+    /**
+     * The slots one admitted request holds. Released once, when the response completes, and
+     * the elapsed time is fed back to the budget's limiter as a latency sample.
+     */
+    public final class Admission {
+
+        private final String householdId;
+        private final AdaptiveConcurrencyLimiter limiter;
+        private final long startNanos = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Admission(String householdId, AdaptiveConcurrencyLimiter limiter) {
+            this.householdId = householdId;
+            this.limiter = limiter;
+        }
+
+        public void release() {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+            if (limiter != null) {
+                limiter.release(System.nanoTime() - startNanos);
+            }
+            householdService.releaseRequest(householdId);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.mealplanner.config;
+
+import com.mealplanner.service.HouseholdService;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Binds a controller parameter to the household the request acts for: the validated
+ * {@value HouseholdService#HOUSEHOLD_HEADER} header, or the default household when absent.
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface HouseholdId {
+}
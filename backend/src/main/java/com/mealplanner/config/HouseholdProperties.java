@@ -0,0 +1,43 @@
+package com.mealplanner.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "mealplanner.households")
+public class HouseholdProperties {
+
+    /** Enforces {@link Quota#getMaxInFlight()}, independently of the request limiter. */
+    private boolean inFlightLimitEnabled = true;
+
+    /** Limits applied to every household without an override. */
+    private Quota quota = new Quota(5_000, 2_000, 20);
+
+    /** Per-household limits, keyed by household id. */
+    private Map<String, Quota> overrides = new HashMap<>();
+
+    public Quota quotaFor(String householdId) {
+        return overrides.getOrDefault(householdId, quota);
+    }
+
+    @Data
+    public static class Quota {
+
+        private long maxRecipes;
+        private long maxPantryLots;
+        /** Concurrent API requests one household may have in flight; 0 disables the cap. */
+        private int maxInFlight;
+
+        public Quota() {
+        }
+
+        public Quota(long maxRecipes, long maxPantryLots, int maxInFlight) {
+            this.maxRecipes = maxRecipes;
+            this.maxPantryLots = maxPantryLots;
+            this.maxInFlight = maxInFlight;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.mealplanner.config;
+
+import com.mealplanner.service.MigrationRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterLoadEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Upgrades documents to the current schema as they are read, before they are mapped, so
+ * entities never see an old shape. The upgraded form is persisted by the next save or by
+ * the background migration runner.
+ */
+@Component
+@RequiredArgsConstructor
+public class MigrationEventListener extends AbstractMongoEventListener<Object> {
+
+    private final MigrationRegistry migrationRegistry;
+
+    @Override
+    public void onAfterLoad(AfterLoadEvent<Object> event) {
+        migrationRegistry.upgradeOnRead(event.getCollectionName(), event.getDocument());
+    }
+}
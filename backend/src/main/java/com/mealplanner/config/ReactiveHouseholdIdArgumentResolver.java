@@ -0,0 +1,24 @@
+package com.mealplanner.config;
+
+import com.mealplanner.service.HouseholdService;
+import org.springframework.core.MethodParameter;
+import org.springframework.web.reactive.BindingContext;
+import org.springframework.web.reactive.result.method.SyncHandlerMethodArgumentResolver;
+import org.springframework.web.server.ServerWebExchange;
+
+/**
+ * Resolves {@link HouseholdId} parameters on the WebFlux stack.
+ */
+public class ReactiveHouseholdIdArgumentResolver implements SyncHandlerMethodArgumentResolver {
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return parameter.hasParameterAnnotation(HouseholdId.class) && parameter.getParameterType() == String.class;
+    }
+
+    @Override
+    public Object resolveArgumentValue(MethodParameter parameter, BindingContext bindingContext,
+                                       ServerWebExchange exchange) {
+        return HouseholdService.resolve(exchange.getRequest().getHeaders().getFirst(HouseholdService.HOUSEHOLD_HEADER));
+    }
+}
@@ -0,0 +1,98 @@
+package com.mealplanner.config;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.reactivestreams.Publisher;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serves {@code application/cbor} alongside JSON for clients that send it in {@code Accept} or
+ * {@code Content-Type}. Both formats are written by mappers built from Boot's
+ * {@link Jackson2ObjectMapperBuilder}, so they share the same modules and features, including
+ * Blackbird's generated property accessors in place of reflection.
+ */
+@Configuration
+public class SerializationConfig {
+
+    /** Picked up by Boot's Jackson auto-configuration and registered on every mapper it builds. */
+    @Bean
+    public Module blackbirdModule() {
+        return new BlackbirdModule();
+    }
+
+    @Configuration
+    @Profile("!reactive")
+    static class ServletSerializationConfig {
+
+        @Bean
+        public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+            return new MappingJackson2CborHttpMessageConverter(cborMapper(builder));
+        }
+    }
+
+    /**
+     * WebFlux registers no Jackson CBOR codec by default, so it is added as a custom codec. The
+     * media type is passed explicitly: the mapper-taking constructors support none without it.
+     */
+    @Configuration
+    @Profile("reactive")
+    static class ReactiveSerializationConfig {
+
+        @Bean
+        public CodecCustomizer cborCodecCustomizer(Jackson2ObjectMapperBuilder builder) {
+            ObjectMapper mapper = cborMapper(builder);
+            return configurer -> {
+                configurer.customCodecs().register(new SingleValueCborEncoder(mapper));
+                configurer.customCodecs().register(new Jackson2CborDecoder(mapper, MediaType.APPLICATION_CBOR));
+            };
+        }
+    }
+
+    /**
+     * {@link Jackson2CborEncoder} only implements {@code encodeValue} and throws from {@code encode},
+     * which is what the server's message writer calls. A {@code Mono} is written as its value and
+     * anything else as one CBOR array; streaming endpoints produce NDJSON, never CBOR.
+     */
+    static class SingleValueCborEncoder extends Jackson2CborEncoder {
+
+        SingleValueCborEncoder(ObjectMapper mapper) {
+            super(mapper, MediaType.APPLICATION_CBOR);
+        }
+
+        @Override
+        public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory,
+                                       ResolvableType elementType, MimeType mimeType,
+                                       Map<String, Object> hints) {
+            if (inputStream instanceof Mono<?> mono) {
+                return mono.map(value -> encodeValue(value, bufferFactory, elementType, mimeType, hints)).flux();
+            }
+            ResolvableType listType = ResolvableType.forClassWithGenerics(List.class, elementType);
+            return Flux.from(inputStream).collectList()
+                    .map(values -> encodeValue(values, bufferFactory, listType, mimeType, hints))
+                    .flux();
+        }
+    }
+
+    private static ObjectMapper cborMapper(Jackson2ObjectMapperBuilder builder) {
+        return builder.factory(new CBORFactory()).build();
+    }
+}
@@ -0,0 +1,35 @@
+package com.mealplanner.controller;
+
+import com.mealplanner.service.ChangeEventService;
+import com.mealplanner.service.HouseholdService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/events")
+@RequiredArgsConstructor
+@Profile("!reactive")
+public class EventController {
+
+    private final ChangeEventService changeEventService;
+
+    /**
+     * Browsers' {@code EventSource} cannot set headers, so the household may also be given
+     * as the {@code household} query parameter.
+     */
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEvents(
+            @RequestHeader(value = HouseholdService.HOUSEHOLD_HEADER, required = false) String householdHeader,
+            @RequestParam(value = "household", required = false) String householdParam,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        String householdId = HouseholdService.resolve(householdHeader != null ? householdHeader : householdParam);
+        return changeEventService.subscribe(householdId, lastEventId);
+    }
+}
@@ -1,52 +1,100 @@
 package com.mealplanner.controller;
 
+import com.mealplanner.config.HouseholdId;
 import com.mealplanner.dto.*;
 import com.mealplanner.model.PantryLotType;
+import com.mealplanner.service.IdempotencyService;
+import com.mealplanner.service.PantryExpiryService;
 import com.mealplanner.service.PantryLotService;
+import com.mealplanner.service.PantryTotalsService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/pantry")
 @RequiredArgsConstructor
 public class PantryController {
 
     private final PantryLotService pantryLotService;
+    private final IdempotencyService idempotencyService;
+    private final PantryTotalsService pantryTotalsService;
 
     @GetMapping
     public ResponseEntity<PantryLotListResponse> listPantryLots(
+            @HouseholdId String householdId,
             @RequestParam(required = false) PantryLotType type,
             @RequestParam(required = false) String name,
             @RequestParam(defaultValue = "50") int limit,
             @RequestParam(defaultValue = "0") int offset) {
-        return ResponseEntity.ok(pantryLotService.listPantryLots(type, name, limit, offset));
+        return ResponseEntity.ok(pantryLotService.listPantryLots(householdId, type, name, limit, offset));
+    }
+
+    @GetMapping("/totals")
+    public ResponseEntity<PantryTotalListResponse> listPantryTotals(
+            @HouseholdId String householdId,
+            @RequestParam(required = false) String ingredient) {
+        return ResponseEntity.ok(pantryTotalsService.listTotals(householdId, ingredient));
+    }
+
+    @GetMapping("/expiring")
+    public ResponseEntity<PantryLotListResponse> listExpiringPantryLots(
+            @HouseholdId String householdId,
+            @RequestParam(defaultValue = "3d") String within,
+            @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(pantryLotService.listExpiringPantryLots(householdId, PantryExpiryService.parseWindow(within), limit));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<PantryLotResponse> getPantryLot(@PathVariable String id) {
-        return ResponseEntity.ok(pantryLotService.getPantryLot(id));
+    public ResponseEntity<PantryLotResponse> getPantryLot(
+            @HouseholdId String householdId,
+            @PathVariable String id) {
+        return ResponseEntity.ok(pantryLotService.getPantryLot(householdId, id));
     }
 
     @PostMapping
     public ResponseEntity<PantryLotResponse> createPantryLot(
+            @HouseholdId String householdId,
+            @RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
             @Valid @RequestBody PantryLotCreateRequest request) {
         return ResponseEntity.status(HttpStatus.CREATED)
-                .body(pantryLotService.createPantryLot(request));
+                .body(idempotencyService.execute(householdId, "pantry.create", idempotencyKey, request,
+                        PantryLotResponse.class, () -> pantryLotService.createPantryLot(householdId, request)));
     }
 
     @PutMapping("/{id}")
     public ResponseEntity<PantryLotResponse> updatePantryLot(
+            @HouseholdId String householdId,
             @PathVariable String id,
             @Valid @RequestBody PantryLotUpdateRequest request) {
-        return ResponseEntity.ok(pantryLotService.updatePantryLot(id, request));
+        return ResponseEntity.ok(pantryLotService.updatePantryLot(householdId, id, request));
+    }
+
+    @PostMapping("/{id}/adjust")
+    public ResponseEntity<PantryLotResponse> adjustPantryLot(
+            @HouseholdId String householdId,
+            @PathVariable String id,
+            @Valid @RequestBody PantryLotAdjustRequest request) {
+        return ResponseEntity.ok(pantryLotService.adjustPantryLot(householdId, id, request.getDelta()));
+    }
+
+    @PostMapping("/adjustments")
+    public ResponseEntity<PantryBulkAdjustResponse> adjustPantryLots(
+            @HouseholdId String householdId,
+            @Valid @RequestBody PantryBulkAdjustRequest request) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(pantryLotService.adjustPantryLots(householdId, request));
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deletePantryLot(@PathVariable String id) {
-        pantryLotService.deletePantryLot(id);
+    public ResponseEntity<Void> deletePantryLot(
+            @HouseholdId String householdId,
+            @PathVariable String id) {
+        pantryLotService.deletePantryLot(householdId, id);
         return ResponseEntity.noContent().build();
     }
 }
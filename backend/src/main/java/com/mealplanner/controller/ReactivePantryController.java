@@ -0,0 +1,126 @@
+package com.mealplanner.controller;
+
+import com.mealplanner.config.HouseholdId;
+import com.mealplanner.dto.*;
+import com.mealplanner.model.PantryLotType;
+import com.mealplanner.service.IdempotencyService;
+import com.mealplanner.service.PantryExpiryService;
+import com.mealplanner.service.PantryLotService;
+import com.mealplanner.service.PantryTotalsService;
+import com.mealplanner.service.ReactivePantryLotService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * WebFlux variant of {@link PantryController}. Reads run on the reactive driver; writes
+ * reuse the blocking {@link PantryLotService} on the bounded elastic scheduler so the event
+ * loop never blocks.
+ */
+@RestController
+@Profile("reactive")
+@RequestMapping("/api/pantry")
+@RequiredArgsConstructor
+public class ReactivePantryController {
+
+    private final ReactivePantryLotService reactivePantryLotService;
+    private final PantryLotService pantryLotService;
+    private final IdempotencyService idempotencyService;
+    private final PantryTotalsService pantryTotalsService;
+
+    @GetMapping
+    public Mono<PantryLotListResponse> listPantryLots(
+            @HouseholdId String householdId,
+            @RequestParam(required = false) PantryLotType type,
+            @RequestParam(required = false) String name,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(defaultValue = "0") int offset) {
+        return reactivePantryLotService.listPantryLots(householdId, type, name, limit, offset);
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<PantryLotResponse> exportPantryLots(
+            @HouseholdId String householdId,
+            @RequestParam(required = false) PantryLotType type,
+            @RequestParam(required = false) String name) {
+        return reactivePantryLotService.exportPantryLots(householdId, type, name);
+    }
+
+    @GetMapping("/totals")
+    public Mono<PantryTotalListResponse> listPantryTotals(
+            @HouseholdId String householdId,
+            @RequestParam(required = false) String ingredient) {
+        return Mono.fromCallable(() -> pantryTotalsService.listTotals(householdId, ingredient))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @GetMapping("/expiring")
+    public Mono<PantryLotListResponse> listExpiringPantryLots(
+            @HouseholdId String householdId,
+            @RequestParam(defaultValue = "3d") String within,
+            @RequestParam(defaultValue = "50") int limit) {
+        return Mono.fromCallable(() -> pantryLotService.listExpiringPantryLots(householdId, PantryExpiryService.parseWindow(within), limit))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @GetMapping("/{id}")
+    public Mono<PantryLotResponse> getPantryLot(
+            @HouseholdId String householdId,
+            @PathVariable String id) {
+        return reactivePantryLotService.getPantryLot(householdId, id);
+    }
+
+    @PostMapping
+    public Mono<ResponseEntity<PantryLotResponse>> createPantryLot(
+            @HouseholdId String householdId,
+            @RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @Valid @RequestBody PantryLotCreateRequest request) {
+        return Mono.fromCallable(() -> idempotencyService.execute(householdId, "pantry.create", idempotencyKey, request,
+                        PantryLotResponse.class, () -> pantryLotService.createPantryLot(householdId, request)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(created -> ResponseEntity.status(HttpStatus.CREATED).body(created));
+    }
+
+    @PutMapping("/{id}")
+    public Mono<PantryLotResponse> updatePantryLot(
+            @HouseholdId String householdId,
+            @PathVariable String id,
+            @Valid @RequestBody PantryLotUpdateRequest request) {
+        return Mono.fromCallable(() -> pantryLotService.updatePantryLot(householdId, id, request))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @PostMapping("/{id}/adjust")
+    public Mono<PantryLotResponse> adjustPantryLot(
+            @HouseholdId String householdId,
+            @PathVariable String id,
+            @Valid @RequestBody PantryLotAdjustRequest request) {
+        return Mono.fromCallable(() -> pantryLotService.adjustPantryLot(householdId, id, request.getDelta()))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @PostMapping("/adjustments")
+    public Mono<ResponseEntity<PantryBulkAdjustResponse>> adjustPantryLots(
+            @HouseholdId String householdId,
+            @Valid @RequestBody PantryBulkAdjustRequest request) {
+        return Mono.fromCallable(() -> pantryLotService.adjustPantryLots(householdId, request))
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(result -> ResponseEntity.status(HttpStatus.ACCEPTED).body(result));
+    }
+
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<Void>> deletePantryLot(
+            @HouseholdId String householdId,
+            @PathVariable String id) {
+        return Mono.fromRunnable(() -> pantryLotService.deletePantryLot(householdId, id))
+                .subscribeOn(Schedulers.boundedElastic())
+                .then(Mono.just(ResponseEntity.noContent().build()));
+    }
+}
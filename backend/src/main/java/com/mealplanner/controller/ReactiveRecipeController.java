@@ -0,0 +1,121 @@
+package com.mealplanner.controller;
+
+import com.mealplanner.config.HouseholdId;
+import com.mealplanner.dto.*;
+import com.mealplanner.service.CookabilityService;
+import com.mealplanner.service.IdempotencyService;
+import com.mealplanner.service.PantryExpiryService;
+import com.mealplanner.service.ReactiveRecipeService;
+import com.mealplanner.service.RecipeDuplicateService;
+import com.mealplanner.service.RecipeService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * WebFlux variant of {@link RecipeController}. Reads run on the reactive driver; writes
+ * reuse the blocking {@link RecipeService} on the bounded elastic scheduler so the event
+ * loop never blocks.
+ */
+@RestController
+@Profile("reactive")
+@RequestMapping("/api/recipes")
+@RequiredArgsConstructor
+public class ReactiveRecipeController {
+
+    private final ReactiveRecipeService reactiveRecipeService;
+    private final RecipeService recipeService;
+    private final IdempotencyService idempotencyService;
+    private final CookabilityService cookabilityService;
+    private final RecipeDuplicateService recipeDuplicateService;
+
+    @GetMapping
+    public Mono<RecipeListResponse> listRecipes(
+            @HouseholdId String householdId,
+            @RequestParam(required = false) String tag,
+            @RequestParam(required = false) String name,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(defaultValue = "0") int offset) {
+        return reactiveRecipeService.listRecipes(householdId, tag, name, limit, offset);
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<RecipeResponse> exportRecipes(
+            @HouseholdId String householdId,
+            @RequestParam(required = false) String tag,
+            @RequestParam(required = false) String name) {
+        return reactiveRecipeService.exportRecipes(householdId, tag, name);
+    }
+
+    @GetMapping("/use-soon")
+    public Mono<RecipeSuggestionListResponse> listUseSoonRecipes(
+            @HouseholdId String householdId,
+            @RequestParam(defaultValue = "3d") String within,
+            @RequestParam(defaultValue = "10") int limit) {
+        return Mono.fromCallable(() -> cookabilityService.rankUseSoon(householdId, PantryExpiryService.parseWindow(within), limit))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @GetMapping("/{id}")
+    public Mono<RecipeResponse> getRecipe(
+            @HouseholdId String householdId,
+            @PathVariable String id) {
+        return reactiveRecipeService.getRecipe(householdId, id);
+    }
+
+    @GetMapping("/{id}/duplicates")
+    public Mono<RecipeDuplicateListResponse> listDuplicates(
+            @HouseholdId String householdId,
+            @PathVariable String id,
+            @RequestParam(required = false) Double threshold,
+            @RequestParam(defaultValue = "10") int limit) {
+        return Mono.fromCallable(() -> recipeDuplicateService.findDuplicates(householdId, id, threshold, limit))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @PostMapping
+    public Mono<ResponseEntity<RecipeResponse>> createRecipe(
+            @HouseholdId String householdId,
+            @RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @Valid @RequestBody RecipeCreateRequest request) {
+        return Mono.fromCallable(() -> idempotencyService.execute(householdId, "recipes.create", idempotencyKey, request,
+                        RecipeResponse.class, () -> recipeService.createRecipe(householdId, request)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(created -> ResponseEntity.status(HttpStatus.CREATED).body(created));
+    }
+
+    @PostMapping("/import")
+    public Mono<RecipeImportResponse> importRecipes(
+            @HouseholdId String householdId,
+            @RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @Valid @RequestBody RecipeImportRequest request) {
+        return Mono.fromCallable(() -> idempotencyService.execute(householdId, "recipes.import", idempotencyKey, request,
+                        RecipeImportResponse.class, () -> recipeService.importRecipes(householdId, request)))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @PutMapping("/{id}")
+    public Mono<RecipeResponse> updateRecipe(
+            @HouseholdId String householdId,
+            @PathVariable String id,
+            @Valid @RequestBody RecipeUpdateRequest request) {
+        return Mono.fromCallable(() -> recipeService.updateRecipe(householdId, id, request))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<Void>> deleteRecipe(
+            @HouseholdId String householdId,
+            @PathVariable String id) {
+        return Mono.fromRunnable(() -> recipeService.deleteRecipe(householdId, id))
+                .subscribeOn(Schedulers.boundedElastic())
+                .then(Mono.just(ResponseEntity.noContent().build()));
+    }
+}
@@ -0,0 +1,79 @@
+package com.mealplanner.controller;
+
+import com.mealplanner.config.HouseholdId;
+import com.mealplanner.dto.SubstitutionCreateRequest;
+import com.mealplanner.dto.SubstitutionListResponse;
+import com.mealplanner.dto.SubstitutionResponse;
+import com.mealplanner.dto.SubstitutionUpdateRequest;
+import com.mealplanner.service.IdempotencyService;
+import com.mealplanner.service.SubstitutionService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * WebFlux variant of {@link SubstitutionController}. Substitutions are small per household, so
+ * every call reuses the blocking {@link SubstitutionService} on the bounded elastic scheduler.
+ */
+@RestController
+@Profile("reactive")
+@RequestMapping("/api/substitutions")
+@RequiredArgsConstructor
+public class ReactiveSubstitutionController {
+
+    private final SubstitutionService substitutionService;
+    private final IdempotencyService idempotencyService;
+
+    @GetMapping
+    public Mono<SubstitutionListResponse> listSubstitutions(
+            @HouseholdId String householdId,
+            @RequestParam(required = false) String ingredient,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(defaultValue = "0") int offset) {
+        return Mono.fromCallable(() -> substitutionService.listSubstitutions(householdId, ingredient, limit, offset))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @GetMapping("/{id}")
+    public Mono<SubstitutionResponse> getSubstitution(
+            @HouseholdId String householdId,
+            @PathVariable String id) {
+        return Mono.fromCallable(() -> substitutionService.getSubstitution(householdId, id))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @PostMapping
+    public Mono<ResponseEntity<SubstitutionResponse>> createSubstitution(
+            @HouseholdId String householdId,
+            @RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @Valid @RequestBody SubstitutionCreateRequest request) {
+        return Mono.fromCallable(() -> idempotencyService.execute(householdId, "substitutions.create", idempotencyKey,
+                        request, SubstitutionResponse.class,
+                        () -> substitutionService.createSubstitution(householdId, request)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(created -> ResponseEntity.status(HttpStatus.CREATED).body(created));
+    }
+
+    @PutMapping("/{id}")
+    public Mono<SubstitutionResponse> updateSubstitution(
+            @HouseholdId String householdId,
+            @PathVariable String id,
+            @Valid @RequestBody SubstitutionUpdateRequest request) {
+        return Mono.fromCallable(() -> substitutionService.updateSubstitution(householdId, id, request))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<Void>> deleteSubstitution(
+            @HouseholdId String householdId,
+            @PathVariable String id) {
+        return Mono.fromRunnable(() -> substitutionService.deleteSubstitution(householdId, id))
+                .subscribeOn(Schedulers.boundedElastic())
+                .then(Mono.just(ResponseEntity.noContent().build()));
+    }
+}
@@ -1,51 +1,96 @@
 package com.mealplanner.controller;
 
+import com.mealplanner.config.HouseholdId;
 import com.mealplanner.dto.*;
+import com.mealplanner.service.CookabilityService;
+import com.mealplanner.service.IdempotencyService;
+import com.mealplanner.service.PantryExpiryService;
+import com.mealplanner.service.RecipeDuplicateService;
 import com.mealplanner.service.RecipeService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/recipes")
 @RequiredArgsConstructor
 public class RecipeController {
 
     private final RecipeService recipeService;
+    private final IdempotencyService idempotencyService;
+    private final CookabilityService cookabilityService;
+    private final RecipeDuplicateService recipeDuplicateService;
 
     @GetMapping
     public ResponseEntity<RecipeListResponse> listRecipes(
+            @HouseholdId String householdId,
             @RequestParam(required = false) String tag,
             @RequestParam(required = false) String name,
             @RequestParam(defaultValue = "50") int limit,
             @RequestParam(defaultValue = "0") int offset) {
-        return ResponseEntity.ok(recipeService.listRecipes(tag, name, limit, offset));
+        return ResponseEntity.ok(recipeService.listRecipes(householdId, tag, name, limit, offset));
+    }
+
+    @GetMapping("/use-soon")
+    public ResponseEntity<RecipeSuggestionListResponse> listUseSoonRecipes(
+            @HouseholdId String householdId,
+            @RequestParam(defaultValue = "3d") String within,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(cookabilityService.rankUseSoon(householdId, PantryExpiryService.parseWindow(within), limit));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<RecipeResponse> getRecipe(@PathVariable String id) {
-        return ResponseEntity.ok(recipeService.getRecipe(id));
+    public ResponseEntity<RecipeResponse> getRecipe(
+            @HouseholdId String householdId,
+            @PathVariable String id) {
+        return ResponseEntity.ok(recipeService.getRecipe(householdId, id));
+    }
+
+    @GetMapping("/{id}/duplicates")
+    public ResponseEntity<RecipeDuplicateListResponse> listDuplicates(
+            @HouseholdId String householdId,
+            @PathVariable String id,
+            @RequestParam(required = false) Double threshold,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(recipeDuplicateService.findDuplicates(householdId, id, threshold, limit));
     }
 
     @PostMapping
     public ResponseEntity<RecipeResponse> createRecipe(
+            @HouseholdId String householdId,
+            @RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
             @Valid @RequestBody RecipeCreateRequest request) {
         return ResponseEntity.status(HttpStatus.CREATED)
-                .body(recipeService.createRecipe(request));
+                .body(idempotencyService.execute(householdId, "recipes.create", idempotencyKey, request,
+                        RecipeResponse.class, () -> recipeService.createRecipe(householdId, request)));
+    }
+
+    @PostMapping("/import")
+    public ResponseEntity<RecipeImportResponse> importRecipes(
+            @HouseholdId String householdId,
+            @RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @Valid @RequestBody RecipeImportRequest request) {
+        return ResponseEntity.ok(idempotencyService.execute(householdId, "recipes.import", idempotencyKey, request,
+                RecipeImportResponse.class, () -> recipeService.importRecipes(householdId, request)));
     }
 
     @PutMapping("/{id}")
     public ResponseEntity<RecipeResponse> updateRecipe(
+            @HouseholdId String householdId,
             @PathVariable String id,
             @Valid @RequestBody RecipeUpdateRequest request) {
-        return ResponseEntity.ok(recipeService.updateRecipe(id, request));
+        return ResponseEntity.ok(recipeService.updateRecipe(householdId, id, request));
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteRecipe(@PathVariable String id) {
-        recipeService.deleteRecipe(id);
+    public ResponseEntity<Void> deleteRecipe(
+            @HouseholdId String householdId,
+            @PathVariable String id) {
+        recipeService.deleteRecipe(householdId, id);
         return ResponseEntity.noContent().build();
     }
 }
@@ -0,0 +1,67 @@
+package com.mealplanner.controller;
+
+import com.mealplanner.config.HouseholdId;
+import com.mealplanner.dto.SubstitutionCreateRequest;
+import com.mealplanner.dto.SubstitutionListResponse;
+import com.mealplanner.dto.SubstitutionResponse;
+import com.mealplanner.dto.SubstitutionUpdateRequest;
+import com.mealplanner.service.IdempotencyService;
+import com.mealplanner.service.SubstitutionService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@Profile("!reactive")
+@RequestMapping("/api/substitutions")
+@RequiredArgsConstructor
+public class SubstitutionController {
+
+    private final SubstitutionService substitutionService;
+    private final IdempotencyService idempotencyService;
+
+    @GetMapping
+    public ResponseEntity<SubstitutionListResponse> listSubstitutions(
+            @HouseholdId String householdId,
+            @RequestParam(required = false) String ingredient,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(defaultValue = "0") int offset) {
+        return ResponseEntity.ok(substitutionService.listSubstitutions(householdId, ingredient, limit, offset));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<SubstitutionResponse> getSubstitution(
+            @HouseholdId String householdId,
+            @PathVariable String id) {
+        return ResponseEntity.ok(substitutionService.getSubstitution(householdId, id));
+    }
+
+    @PostMapping
+    public ResponseEntity<SubstitutionResponse> createSubstitution(
+            @HouseholdId String householdId,
+            @RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @Valid @RequestBody SubstitutionCreateRequest request) {
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(idempotencyService.execute(householdId, "substitutions.create", idempotencyKey, request,
+                        SubstitutionResponse.class, () -> substitutionService.createSubstitution(householdId, request)));
+    }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<SubstitutionResponse> updateSubstitution(
+            @HouseholdId String householdId,
+            @PathVariable String id,
+            @Valid @RequestBody SubstitutionUpdateRequest request) {
+        return ResponseEntity.ok(substitutionService.updateSubstitution(householdId, id, request));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteSubstitution(
+            @HouseholdId String householdId,
+            @PathVariable String id) {
+        substitutionService.deleteSubstitution(householdId, id);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,38 @@
+package com.mealplanner.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeEvent {
+
+    public static final String RECIPE = "recipe";
+    public static final String PANTRY_LOT = "pantryLot";
+
+    /** Position in the feed; sent as the SSE event id rather than in the payload. */
+    @JsonIgnore
+    private long sequence;
+
+    /** Only subscribers of this household receive the event. */
+    @JsonIgnore
+    private String householdId;
+
+    private String entity;
+    private String id;
+    private Operation op;
+    private Instant updatedAt;
+
+    public enum Operation {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+}
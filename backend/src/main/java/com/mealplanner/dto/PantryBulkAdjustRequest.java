@@ -0,0 +1,36 @@
+package com.mealplanner.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PantryBulkAdjustRequest {
+
+    @NotEmpty(message = "At least one adjustment is required")
+    @Valid
+    private List<Adjustment> adjustments;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Adjustment {
+
+        @NotBlank(message = "Pantry lot id is required")
+        private String id;
+
+        @NotNull(message = "Delta is required")
+        private Double delta;
+    }
+}
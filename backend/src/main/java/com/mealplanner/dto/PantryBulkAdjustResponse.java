@@ -0,0 +1,19 @@
+package com.mealplanner.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PantryBulkAdjustResponse {
+
+    /** Adjustments accepted, after merging repeated ids. */
+    private int accepted;
+
+    /** True when the adjustments were buffered and will be written shortly. */
+    private boolean buffered;
+}
@@ -0,0 +1,18 @@
+package com.mealplanner.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PantryLotAdjustRequest {
+
+    /** Signed quantity change in the lot's own unit. */
+    @NotNull(message = "Delta is required")
+    private Double delta;
+}
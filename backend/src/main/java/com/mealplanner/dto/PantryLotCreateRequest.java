@@ -9,6 +9,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.Instant;
 import java.util.Map;
 
 @Data
@@ -30,4 +31,8 @@ public class PantryLotCreateRequest {
     private String unit;
 
     private Map<String, Object> metadata;
+
+    private Instant expiresAt;
+
+    private Instant openedAt;
 }
@@ -11,7 +11,7 @@ import java.time.Instant;
 import java.util.Map;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class PantryLotResponse {
@@ -22,6 +22,8 @@ public class PantryLotResponse {
     private double quantity;
     private String unit;
     private Map<String, Object> metadata;
+    private Instant expiresAt;
+    private Instant openedAt;
     private Instant createdAt;
     private Instant updatedAt;
 
@@ -33,6 +35,8 @@ public class PantryLotResponse {
                 .quantity(entity.getQuantity())
                 .unit(entity.getUnit())
                 .metadata(entity.getMetadata())
+                .expiresAt(entity.getExpiresAt())
+                .openedAt(entity.getOpenedAt())
                 .createdAt(entity.getCreatedAt())
                 .updatedAt(entity.getUpdatedAt())
                 .build();
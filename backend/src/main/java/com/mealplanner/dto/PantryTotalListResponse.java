@@ -0,0 +1,18 @@
+package com.mealplanner.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PantryTotalListResponse {
+
+    private List<PantryTotalResponse> items;
+    private long total;
+}
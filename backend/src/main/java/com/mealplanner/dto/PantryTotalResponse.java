@@ -0,0 +1,32 @@
+package com.mealplanner.dto;
+
+import com.mealplanner.model.PantryTotal;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PantryTotalResponse {
+
+    private String ingredient;
+    private double quantity;
+    private String unit;
+    private int lotCount;
+    private Instant updatedAt;
+
+    public static PantryTotalResponse fromEntity(PantryTotal entity) {
+        return PantryTotalResponse.builder()
+                .ingredient(entity.getIngredient())
+                .quantity(entity.getQuantity())
+                .unit(entity.getUnit())
+                .lotCount(entity.getLotCount())
+                .updatedAt(entity.getUpdatedAt())
+                .build();
+    }
+}
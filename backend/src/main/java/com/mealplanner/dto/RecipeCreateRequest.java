@@ -31,4 +31,7 @@ public class RecipeCreateRequest {
     private int servings;
 
     private List<String> tags;
+
+    /** Identifier in the source the recipe was imported from, if any. */
+    private String externalKey;
 }
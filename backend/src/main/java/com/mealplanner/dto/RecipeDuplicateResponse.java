@@ -0,0 +1,17 @@
+package com.mealplanner.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecipeDuplicateResponse {
+
+    private RecipeResponse recipe;
+    /** Estimated Jaccard similarity of name shingles and ingredients, from 0 to 1. */
+    private double similarity;
+}
@@ -0,0 +1,38 @@
+package com.mealplanner.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecipeImportRequest {
+
+    @NotEmpty(message = "At least one recipe is required")
+    @Size(max = 500, message = "At most 500 recipes per import")
+    @Valid
+    private List<RecipeCreateRequest> recipes;
+
+    @NotNull(message = "Duplicate policy is required")
+    @Builder.Default
+    private DuplicatePolicy onDuplicate = DuplicatePolicy.FLAG;
+
+    /** What to do with an imported recipe that matches an existing one. */
+    public enum DuplicatePolicy {
+        /** Keep the existing recipe and drop the imported one. */
+        SKIP,
+        /** Add the imported recipe's missing ingredients and tags to the existing one. */
+        MERGE,
+        /** Store the imported recipe and mark it as a duplicate of the existing one. */
+        FLAG
+    }
+}
@@ -0,0 +1,43 @@
+package com.mealplanner.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecipeImportResponse {
+
+    /** One entry per imported recipe, in request order. */
+    private List<Result> results;
+    private int created;
+    private int skipped;
+    private int merged;
+    private int flagged;
+    private int quotaExceeded;
+
+    public enum Status {
+        CREATED, SKIPPED, MERGED, FLAGGED, QUOTA_EXCEEDED
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Result {
+        private int index;
+        private Status status;
+        /**
+         * The stored recipe: the new one when created or flagged, the existing one otherwise;
+         * absent when the quota was exceeded.
+         */
+        private String id;
+        private String duplicateOf;
+        private Double similarity;
+    }
+}
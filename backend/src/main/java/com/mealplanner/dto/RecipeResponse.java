@@ -22,6 +22,7 @@ public class RecipeResponse {
     private int servings;
     private List<String> tags;
     private EmbeddingInfo embedding;
+    private String duplicateOf;
     private Instant createdAt;
     private Instant updatedAt;
 
@@ -47,6 +48,7 @@ public class RecipeResponse {
                 .instructions(entity.getInstructions() != null ? entity.getInstructions() : List.of())
                 .servings(entity.getServings())
                 .tags(entity.getTags() != null ? entity.getTags() : List.of())
+                .duplicateOf(entity.getDuplicateOf())
                 .createdAt(entity.getCreatedAt())
                 .updatedAt(entity.getUpdatedAt());
 
@@ -0,0 +1,26 @@
+package com.mealplanner.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecipeSuggestionResponse {
+
+    private RecipeResponse recipe;
+    private double score;
+    private boolean cookable;
+    /** Share of the recipe's ingredients the pantry covers in full. */
+    private double coverage;
+    private List<String> expiringIngredients;
+    /** Ingredients the pantry lacks but covers through a substitution. */
+    private List<String> substitutedIngredients;
+    private Instant earliestExpiry;
+}
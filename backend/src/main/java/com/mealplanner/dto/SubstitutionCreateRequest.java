@@ -0,0 +1,36 @@
+package com.mealplanner.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubstitutionCreateRequest {
+
+    @NotBlank(message = "Ingredient is required")
+    private String ingredient;
+
+    @Positive(message = "Quantity must be positive")
+    private double quantity;
+
+    @NotBlank(message = "Unit is required")
+    private String unit;
+
+    @NotEmpty(message = "At least one substitute is required")
+    @Valid
+    private List<RecipeIngredientDto> substitutes;
+
+    @DecimalMin(value = "0", message = "Cost must be non-negative")
+    private double cost;
+}
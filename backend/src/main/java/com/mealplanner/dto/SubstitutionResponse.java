@@ -0,0 +1,41 @@
+package com.mealplanner.dto;
+
+import com.mealplanner.model.IngredientSubstitution;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubstitutionResponse {
+
+    private String id;
+    private String ingredient;
+    private double quantity;
+    private String unit;
+    private List<RecipeIngredientDto> substitutes;
+    private double cost;
+    private Instant createdAt;
+    private Instant updatedAt;
+
+    public static SubstitutionResponse fromEntity(IngredientSubstitution entity) {
+        return SubstitutionResponse.builder()
+                .id(entity.getId())
+                .ingredient(entity.getIngredient())
+                .quantity(entity.getQuantity())
+                .unit(entity.getUnit())
+                .substitutes(entity.getSubstitutes() != null
+                        ? entity.getSubstitutes().stream().map(RecipeIngredientDto::fromEntity).toList()
+                        : List.of())
+                .cost(entity.getCost())
+                .createdAt(entity.getCreatedAt())
+                .updatedAt(entity.getUpdatedAt())
+                .build();
+    }
+}
@@ -2,14 +2,17 @@ package com.mealplanner.exception;
 
 import com.mealplanner.dto.ErrorResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -31,13 +34,114 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
     }
 
+    @ExceptionHandler(IdempotencyKeyReuseException.class)
+    public ResponseEntity<ErrorResponse> handleIdempotencyKeyReuseException(IdempotencyKeyReuseException ex) {
+        String traceId = generateTraceId();
+        log.warn("Idempotency key reused [traceId={}]: {}", traceId, ex.getMessage());
+
+        ErrorResponse response = ErrorResponse.builder()
+                .code("IDEMPOTENCY_KEY_REUSED")
+                .message(ex.getMessage())
+                .traceId(traceId)
+                .build();
+
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(response);
+    }
+
+    @ExceptionHandler(IdempotencyInProgressException.class)
+    public ResponseEntity<ErrorResponse> handleIdempotencyInProgressException(IdempotencyInProgressException ex) {
+        String traceId = generateTraceId();
+        log.warn("Idempotent request still in progress [traceId={}]: {}", traceId, ex.getMessage());
+
+        ErrorResponse response = ErrorResponse.builder()
+                .code("IDEMPOTENCY_IN_PROGRESS")
+                .message(ex.getMessage())
+                .traceId(traceId)
+                .build();
+
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(response);
+    }
+
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<ErrorResponse> handleServiceOverloadedException(ServiceOverloadedException ex) {
+        return serviceOverloaded(ex);
+    }
+
+    /**
+     * The 503 and {@code Retry-After} for a shed request. Shared with filters that shed
+     * requests before they reach a handler, where this advice does not apply.
+     */
+    public static ResponseEntity<ErrorResponse> serviceOverloaded(ServiceOverloadedException ex) {
+        String traceId = generateTraceId();
+        log.debug("Request shed [traceId={}, budget={}]", traceId, ex.getBudget());
+
+        ErrorResponse response = ErrorResponse.builder()
+                .code("SERVICE_OVERLOADED")
+                .message(ex.getMessage())
+                .traceId(traceId)
+                .build();
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(response);
+    }
+
+    @ExceptionHandler(QuotaExceededException.class)
+    public ResponseEntity<ErrorResponse> handleQuotaExceededException(QuotaExceededException ex) {
+        String traceId = generateTraceId();
+        log.warn("Quota exceeded [traceId={}, household={}]: {}", traceId, ex.getHouseholdId(), ex.getMessage());
+
+        ErrorResponse response = ErrorResponse.builder()
+                .code("QUOTA_EXCEEDED")
+                .message(ex.getMessage())
+                .details(Map.of("quota", ex.getQuota(), "limit", ex.getLimit()))
+                .traceId(traceId)
+                .build();
+
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).body(response);
+    }
+
+    @ExceptionHandler(InvalidParameterException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidParameterException(InvalidParameterException ex) {
+        return invalidParameter(ex);
+    }
+
+    /**
+     * The 400 for an invalid parameter, shared with filters that validate the household
+     * header before a handler is chosen.
+     */
+    public static ResponseEntity<ErrorResponse> invalidParameter(InvalidParameterException ex) {
+        String traceId = generateTraceId();
+        log.warn("Invalid parameter [traceId={}]: {}", traceId, ex.getMessage());
+
+        ErrorResponse response = ErrorResponse.builder()
+                .code("VALIDATION_ERROR")
+                .message("Request validation failed")
+                .details(Map.of(ex.getParameter(), ex.getMessage()))
+                .traceId(traceId)
+                .build();
+
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ErrorResponse> handleValidationException(MethodArgumentNotValidException ex) {
+        return validationError(ex.getBindingResult().getFieldErrors());
+    }
+
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<ErrorResponse> handleReactiveValidationException(WebExchangeBindException ex) {
+        return validationError(ex.getFieldErrors());
+    }
+
+    private ResponseEntity<ErrorResponse> validationError(List<FieldError> fieldErrors) {
         String traceId = generateTraceId();
         log.warn("Validation failed [traceId={}]", traceId);
 
         Map<String, Object> details = new HashMap<>();
-        for (FieldError error : ex.getBindingResult().getFieldErrors()) {
+        for (FieldError error : fieldErrors) {
             details.put(error.getField(), error.getDefaultMessage());
         }
 
@@ -65,7 +169,7 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
     }
 
-    private String generateTraceId() {
+    private static String generateTraceId() {
         return UUID.randomUUID().toString().substring(0, 8);
     }
 }
@@ -0,0 +1,15 @@
+package com.mealplanner.exception;
+
+public class IdempotencyInProgressException extends RuntimeException {
+
+    private final String idempotencyKey;
+
+    public IdempotencyInProgressException(String idempotencyKey) {
+        super(String.format("A request with idempotency key %s is still being processed", idempotencyKey));
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+}
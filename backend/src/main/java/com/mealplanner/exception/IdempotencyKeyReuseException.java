@@ -0,0 +1,15 @@
+package com.mealplanner.exception;
+
+public class IdempotencyKeyReuseException extends RuntimeException {
+
+    private final String idempotencyKey;
+
+    public IdempotencyKeyReuseException(String idempotencyKey) {
+        super(String.format("Idempotency key %s was already used with a different request body", idempotencyKey));
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+}
@@ -0,0 +1,27 @@
+package com.mealplanner.exception;
+
+public class QuotaExceededException extends RuntimeException {
+
+    private final String householdId;
+    private final String quota;
+    private final long limit;
+
+    public QuotaExceededException(String householdId, String quota, long limit) {
+        super(String.format("Household %s has reached its %s quota of %d", householdId, quota, limit));
+        this.householdId = householdId;
+        this.quota = quota;
+        this.limit = limit;
+    }
+
+    public String getHouseholdId() {
+        return householdId;
+    }
+
+    public String getQuota() {
+        return quota;
+    }
+
+    public long getLimit() {
+        return limit;
+    }
+}
@@ -0,0 +1,21 @@
+package com.mealplanner.exception;
+
+public class ServiceOverloadedException extends RuntimeException {
+
+    private final String budget;
+    private final long retryAfterSeconds;
+
+    public ServiceOverloadedException(String budget, long retryAfterSeconds) {
+        super(String.format("Service is at capacity for %s requests, retry later", budget));
+        this.budget = budget;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public String getBudget() {
+        return budget;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,31 @@
+package com.mealplanner.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * How many recipes and pantry lots a household stores, kept in step by the quota
+ * reservations so a create can claim its slot with one conditional increment.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "householdUsage")
+public class HouseholdUsage {
+
+    public static final String RECIPES = "recipes";
+    public static final String PANTRY_LOTS = "pantryLots";
+
+    /** The household id. */
+    @Id
+    private String id;
+
+    private long recipes;
+
+    private long pantryLots;
+}
@@ -0,0 +1,39 @@
+package com.mealplanner.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "idempotencyKeys")
+public class IdempotencyRecord {
+
+    /** Household, operation scope and client key, e.g. {@code default:recipes.create:3f2a...}. */
+    @Id
+    private String id;
+
+    private String requestHash;
+
+    private IdempotencyStatus status;
+
+    private String responseBody;
+
+    /** Random token of the request holding an in-progress claim. */
+    private String owner;
+
+    /** Renewed by the owner while its action runs; a lapsed claim may be taken over. */
+    private Instant leaseExpiresAt;
+
+    /** Expiry is driven by a TTL index on this field. */
+    private Instant createdAt;
+
+    private Instant completedAt;
+}
@@ -0,0 +1,34 @@
+package com.mealplanner.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Which version of the index catalog was last applied to this database.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "indexCatalog")
+public class IndexCatalogState {
+
+    public static final String ID = "catalog";
+
+    @Id
+    private String id;
+
+    private int version;
+
+    /** {@code collection.indexName} of every index the catalog created. */
+    private List<String> indexes;
+
+    private Instant appliedAt;
+}
@@ -0,0 +1,50 @@
+package com.mealplanner.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * One edge of a household's substitution graph: {@link #quantity} {@link #unit} of
+ * {@link #ingredient} can be replaced by the listed {@link #substitutes} together, e.g. one
+ * cup of buttermilk by one cup of milk and one tablespoon of lemon juice.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "ingredientSubstitutions")
+public class IngredientSubstitution {
+
+    @Id
+    private String id;
+
+    private String householdId;
+
+    private String ingredient;
+
+    private String ingredientNormalized;
+
+    private double quantity;
+
+    private String unit;
+
+    private List<RecipeIngredient> substitutes;
+
+    /** Penalty for using this substitution; 0 is a perfect swap. Chained substitutions add up. */
+    private double cost;
+
+    @CreatedDate
+    private Instant createdAt;
+
+    @LastModifiedDate
+    private Instant updatedAt;
+}
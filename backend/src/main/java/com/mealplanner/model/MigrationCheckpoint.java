@@ -0,0 +1,54 @@
+package com.mealplanner.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Progress of the background migration of one collection to one target version, saved
+ * after every batch so a restarted runner continues where the last one stopped.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "migrationCheckpoints")
+public class MigrationCheckpoint {
+
+    /** {@code collection:vN}, e.g. {@code recipes:v2}. */
+    @Id
+    private String id;
+
+    private String collectionName;
+
+    private int targetVersion;
+
+    /** Highest {@code _id} handled in the current pass; the next batch starts after it. */
+    private Object lastId;
+
+    private long migrated;
+
+    /**
+     * Documents the server rejected in their upgraded form, e.g. on a unique index. They are
+     * skipped for the rest of the migration and keep being upgraded as they are read.
+     */
+    private List<Object> parkedIds;
+
+    private long remaining;
+
+    private double docsPerSecond;
+
+    private boolean completed;
+
+    private Instant startedAt;
+
+    private Instant updatedAt;
+
+    private Instant completedAt;
+}
@@ -7,30 +7,32 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
-import org.springframework.data.mongodb.core.index.CompoundIndex;
-import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.Instant;
 import java.util.Map;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "pantryLots")
-@CompoundIndex(name = "type_name_idx", def = "{'type': 1, 'nameNormalized': 1}")
 public class PantryLot {
 
+    /** Current document shape; older documents are upgraded by the registered migrations. */
+    public static final int SCHEMA_VERSION = 3;
+
     @Id
     private String id;
 
+    /** Owning household; leads every index so the collection can be sharded on it. */
+    private String householdId;
+
     @Builder.Default
-    private int schemaVersion = 1;
+    private int schemaVersion = SCHEMA_VERSION;
 
     private String name;
 
-    @Indexed
     private String nameNormalized;
 
     private PantryLotType type;
@@ -41,6 +43,10 @@ public class PantryLot {
 
     private Map<String, Object> metadata;
 
+    private Instant expiresAt;
+
+    private Instant openedAt;
+
     @CreatedDate
     private Instant createdAt;
 
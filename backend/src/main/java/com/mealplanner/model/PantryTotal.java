@@ -0,0 +1,38 @@
+package com.mealplanner.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Running total of one ingredient in one canonical unit across a household's pantry lots,
+ * maintained incrementally by the pantry write path.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "pantryTotals")
+public class PantryTotal {
+
+    /** {@code householdId|ingredient|unit}, e.g. {@code default|flour|g}. */
+    @Id
+    private String id;
+
+    private String householdId;
+
+    private String ingredient;
+
+    private String unit;
+
+    private double quantity;
+
+    private int lotCount;
+
+    private Instant updatedAt;
+}
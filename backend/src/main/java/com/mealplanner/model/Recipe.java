@@ -7,7 +7,6 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
-import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.Instant;
@@ -20,31 +19,46 @@ import java.util.List;
 @Document(collection = "recipes")
 public class Recipe {
 
+    /** Current document shape; older documents are upgraded by the registered migrations. */
+    public static final int SCHEMA_VERSION = 4;
+
     @Id
     private String id;
 
+    /** Owning household; leads every index so the collection can be sharded on it. */
+    private String householdId;
+
     @Builder.Default
-    private int schemaVersion = 1;
+    private int schemaVersion = SCHEMA_VERSION;
 
     private String name;
 
-    @Indexed
     private String nameNormalized;
 
     private List<RecipeIngredient> ingredients;
 
+    /** Normalized ingredient names, kept in step with {@link #ingredients} for lookups by ingredient. */
+    private List<String> ingredientNamesNormalized;
+
     private List<String> instructions;
 
     private int servings;
 
-    @Indexed
     private List<String> tags;
 
     private RecipeEmbedding embedding;
 
-    @Indexed(sparse = true)
     private String externalKey;
 
+    /** MinHash of the name shingles and canonical ingredient set, recomputed on every write. */
+    private List<Integer> minHash;
+
+    /** LSH band keys of {@link #minHash}; recipes sharing a key are near-duplicate candidates. */
+    private List<Long> lshBuckets;
+
+    /** Set when an import kept this recipe although it matched an existing one. */
+    private String duplicateOf;
+
     @CreatedDate
     private Instant createdAt;
 
@@ -0,0 +1,20 @@
+package com.mealplanner.repository;
+
+import com.mealplanner.model.IngredientSubstitution;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Every finder is scoped to one household; look substitutions up with
+ * {@link #findByIdAndHouseholdId} rather than the inherited {@code findById}.
+ */
+@Repository
+public interface IngredientSubstitutionRepository extends MongoRepository<IngredientSubstitution, String> {
+
+    Optional<IngredientSubstitution> findByIdAndHouseholdId(String id, String householdId);
+
+    List<IngredientSubstitution> findByHouseholdId(String householdId);
+}
@@ -9,17 +9,25 @@ import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
+/**
+ * Every finder is scoped to one household; look lots up with
+ * {@link #findByIdAndHouseholdId} rather than the inherited {@code findById}.
+ */
 @Repository
 public interface PantryLotRepository extends MongoRepository<PantryLot, String> {
 
-    Page<PantryLot> findByType(PantryLotType type, Pageable pageable);
+    Optional<PantryLot> findByIdAndHouseholdId(String id, String householdId);
 
-    @Query("{ 'nameNormalized': { $regex: ?0, $options: 'i' } }")
-    Page<PantryLot> findByNameContaining(String name, Pageable pageable);
+    Page<PantryLot> findByHouseholdIdAndType(String householdId, PantryLotType type, Pageable pageable);
 
-    @Query("{ 'type': ?0, 'nameNormalized': { $regex: ?1, $options: 'i' } }")
-    Page<PantryLot> findByTypeAndNameContaining(PantryLotType type, String name, Pageable pageable);
+    @Query("{ 'householdId': ?0, 'nameNormalized': { $regex: ?1, $options: 'i' } }")
+    Page<PantryLot> findByHouseholdIdAndNameContaining(String householdId, String name, Pageable pageable);
 
-    List<PantryLot> findByNameNormalizedIgnoreCase(String nameNormalized);
+    @Query("{ 'householdId': ?0, 'type': ?1, 'nameNormalized': { $regex: ?2, $options: 'i' } }")
+    Page<PantryLot> findByHouseholdIdAndTypeAndNameContaining(String householdId, PantryLotType type, String name,
+                                                              Pageable pageable);
+
+    List<PantryLot> findByHouseholdIdAndNameNormalizedIgnoreCase(String householdId, String nameNormalized);
 }
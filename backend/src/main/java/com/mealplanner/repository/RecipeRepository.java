@@ -9,18 +9,25 @@ import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
 
+/**
+ * Every finder is scoped to one household; look recipes up with
+ * {@link #findByIdAndHouseholdId} rather than the inherited {@code findById}.
+ */
 @Repository
 public interface RecipeRepository extends MongoRepository<Recipe, String> {
 
-    @Query("{ 'nameNormalized': { $regex: ?0, $options: 'i' } }")
-    Page<Recipe> findByNameContaining(String name, Pageable pageable);
+    Optional<Recipe> findByIdAndHouseholdId(String id, String householdId);
 
-    Page<Recipe> findByTagsContaining(String tag, Pageable pageable);
+    @Query("{ 'householdId': ?0, 'nameNormalized': { $regex: ?1, $options: 'i' } }")
+    Page<Recipe> findByHouseholdIdAndNameContaining(String householdId, String name, Pageable pageable);
 
-    @Query("{ 'tags': ?0, 'nameNormalized': { $regex: ?1, $options: 'i' } }")
-    Page<Recipe> findByTagAndNameContaining(String tag, String name, Pageable pageable);
+    Page<Recipe> findByHouseholdIdAndTagsContaining(String householdId, String tag, Pageable pageable);
 
-    Optional<Recipe> findByExternalKey(String externalKey);
+    @Query("{ 'householdId': ?0, 'tags': ?1, 'nameNormalized': { $regex: ?2, $options: 'i' } }")
+    Page<Recipe> findByHouseholdIdAndTagAndNameContaining(String householdId, String tag, String name,
+                                                          Pageable pageable);
 
-    Optional<Recipe> findByNameNormalizedIgnoreCase(String nameNormalized);
+    Optional<Recipe> findByHouseholdIdAndExternalKey(String householdId, String externalKey);
+
+    Optional<Recipe> findByHouseholdIdAndNameNormalizedIgnoreCase(String householdId, String nameNormalized);
 }
@@ -0,0 +1,108 @@
+package com.mealplanner.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Gradient-based concurrency limit. A slow-moving average of request latency stands in for
+ * the uncongested baseline; when recent latency rises above it the limit shrinks
+ * proportionally, and while latency stays near the baseline the limit grows by roughly
+ * {@code sqrt(limit)} per sample. Requests beyond the limit are rejected rather than queued.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+    private static final double LONG_WINDOW_ALPHA = 2.0 / (600 + 1);
+    private static final double SHORT_WINDOW_ALPHA = 2.0 / (10 + 1);
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter rejections;
+
+    private volatile double limit;
+    private double longRttNanos;
+    private double shortRttNanos;
+
+    public AdaptiveConcurrencyLimiter(String budget, int initialLimit, int minLimit, int maxLimit,
+                                      MeterRegistry meterRegistry) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.rejections = Counter.builder("mealplanner.limiter.rejections")
+                .tag("budget", budget)
+                .register(meterRegistry);
+        Gauge.builder("mealplanner.limiter.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+                .tag("budget", budget)
+                .register(meterRegistry);
+        Gauge.builder("mealplanner.limiter.inflight", inFlight, AtomicInteger::get)
+                .tag("budget", budget)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Claims a slot if one is free. Every successful acquire must be paired with
+     * {@link #release(long)}.
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                rejections.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release(long rttNanos) {
+        int concurrency = inFlight.getAndDecrement();
+        onSample(rttNanos, concurrency);
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Share of the current limit in use, so background work can yield before requests are shed.
+     */
+    public double utilization() {
+        return inFlight.get() / limit;
+    }
+
+    private synchronized void onSample(long rttNanos, int concurrency) {
+        if (longRttNanos == 0) {
+            longRttNanos = rttNanos;
+            shortRttNanos = rttNanos;
+            return;
+        }
+        shortRttNanos += (rttNanos - shortRttNanos) * SHORT_WINDOW_ALPHA;
+        longRttNanos += (rttNanos - longRttNanos) * LONG_WINDOW_ALPHA;
+
+        // Let the baseline recover quickly once a latency spike has passed
+        if (longRttNanos / shortRttNanos > 2) {
+            longRttNanos *= 0.95;
+        }
+
+        // Latency says little about the limit when it is not being exercised
+        if (concurrency < limit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRttNanos / shortRttNanos));
+        double newLimit = limit * gradient + Math.sqrt(limit);
+        newLimit = limit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+        limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+    }
+}
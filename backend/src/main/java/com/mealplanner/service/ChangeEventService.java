@@ -0,0 +1,253 @@
+package com.mealplanner.service;
+
+import com.mealplanner.dto.ChangeEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fans out change events from the service write paths to Server-Sent Event subscribers of
+ * the household the change belongs to. Each subscriber gets a bounded queue drained by its
+ * own virtual thread, so idle connections cost a parked thread and a slow client only ever
+ * blocks itself. Events are queued in sequence order. Recent events are kept in a ring
+ * buffer so reconnecting clients resume from {@code Last-Event-ID}.
+ */
+@Slf4j
+@Service
+public class ChangeEventService {
+
+    /** Prefixes event ids so ids from an earlier process are recognised and not misread. */
+    private final String streamId = UUID.randomUUID().toString().substring(0, 8);
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicReferenceArray<ChangeEvent> history;
+    private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final Counter published;
+
+    @Value("${mealplanner.events.timeout:30m}")
+    private Duration timeout;
+
+    @Value("${mealplanner.events.heartbeat:15s}")
+    private Duration heartbeat;
+
+    @Value("${mealplanner.events.subscriber-queue-size:1024}")
+    private int queueSize;
+
+    public ChangeEventService(@Value("${mealplanner.events.history-size:4096}") int historySize,
+                              MeterRegistry meterRegistry) {
+        this.history = new AtomicReferenceArray<>(historySize);
+        this.published = Counter.builder("mealplanner.events.published").register(meterRegistry);
+        Gauge.builder("mealplanner.events.subscribers", subscribers,
+                        byHousehold -> byHousehold.values().stream().mapToInt(Set::size).sum())
+                .register(meterRegistry);
+    }
+
+    public void publish(String householdId, String entity, String id, ChangeEvent.Operation op, Instant updatedAt) {
+        List<Subscriber> overflowed = new ArrayList<>();
+        // Sequence, ring slot and queueing happen together, so history and every queue stay
+        // in sequence order and a subscriber never skips an event that was queued late
+        synchronized (history) {
+            long seq = sequence.incrementAndGet();
+            ChangeEvent event = ChangeEvent.builder()
+                    .sequence(seq)
+                    .householdId(householdId)
+                    .entity(entity)
+                    .id(id)
+                    .op(op)
+                    .updatedAt(updatedAt != null ? updatedAt : Instant.now())
+                    .build();
+            history.set((int) (seq % history.length()), event);
+            for (Subscriber subscriber : subscribers.getOrDefault(householdId, Set.of())) {
+                if (!subscriber.queue.offer(event)) {
+                    overflowed.add(subscriber);
+                }
+            }
+        }
+        published.increment();
+
+        // Too far behind; the client reconnects and catches up from history
+        overflowed.forEach(Subscriber::close);
+    }
+
+    public SseEmitter subscribe(String householdId, String lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Runnable unsubscribe = subscribe(householdId, lastEventId, new EmitterSink(emitter));
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+        emitter.onError(error -> unsubscribe.run());
+        return emitter;
+    }
+
+    /**
+     * Starts delivering the household's events to {@code sink}, after replaying what followed
+     * {@code lastEventId}.
+     *
+     * @return closes the subscription
+     */
+    Runnable subscribe(String householdId, String lastEventId, Sink sink) {
+        Subscriber subscriber = new Subscriber(householdId, sink, new LinkedBlockingQueue<>(queueSize));
+        // Register before reading history so nothing published in between is lost
+        subscribers.compute(householdId, (household, members) -> {
+            Set<Subscriber> updated = members != null ? members : ConcurrentHashMap.newKeySet();
+            updated.add(subscriber);
+            return updated;
+        });
+        long resumeFrom = parseSequence(lastEventId);
+        Thread.ofVirtual()
+                .name("sse-subscriber")
+                .start(() -> subscriber.run(resumeFrom));
+        return subscriber::close;
+    }
+
+    /**
+     * Where a subscriber's events are written: the SSE connection, or a recorder in tests.
+     */
+    interface Sink {
+
+        void change(String eventId, ChangeEvent event) throws IOException;
+
+        /** The requested position is no longer in history; the client should refetch. */
+        void reset(String eventId) throws IOException;
+
+        void keepalive() throws IOException;
+
+        void complete();
+    }
+
+    private record EmitterSink(SseEmitter emitter) implements Sink {
+
+        @Override
+        public void change(String eventId, ChangeEvent event) throws IOException {
+            emitter.send(SseEmitter.event()
+                    .id(eventId)
+                    .name("change")
+                    .data(event, MediaType.APPLICATION_JSON));
+        }
+
+        @Override
+        public void reset(String eventId) throws IOException {
+            emitter.send(SseEmitter.event().name("reset").id(eventId).data("{}"));
+        }
+
+        @Override
+        public void keepalive() throws IOException {
+            emitter.send(SseEmitter.event().comment("keepalive"));
+        }
+
+        @Override
+        public void complete() {
+            emitter.complete();
+        }
+    }
+
+    private long parseSequence(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return sequence.get();
+        }
+        int separator = lastEventId.lastIndexOf('-');
+        if (separator < 0 || !lastEventId.substring(0, separator).equals(streamId)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(lastEventId.substring(separator + 1));
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    private final class Subscriber {
+
+        private final String householdId;
+        private final Sink sink;
+        private final BlockingQueue<ChangeEvent> queue;
+        private volatile boolean open = true;
+        private long lastSent;
+
+        Subscriber(String householdId, Sink sink, BlockingQueue<ChangeEvent> queue) {
+            this.householdId = householdId;
+            this.sink = sink;
+            this.queue = queue;
+        }
+
+        void run(long resumeFrom) {
+            try {
+                replay(resumeFrom);
+                while (open) {
+                    ChangeEvent event = queue.poll(heartbeat.toMillis(), TimeUnit.MILLISECONDS);
+                    if (event == null) {
+                        sink.keepalive();
+                    } else if (event.getSequence() > lastSent) {
+                        send(event);
+                    }
+                }
+            } catch (IOException | IllegalStateException ex) {
+                log.debug("Change feed subscriber disconnected: {}", ex.getMessage());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } finally {
+                close();
+            }
+        }
+
+        private void replay(long resumeFrom) throws IOException {
+            long latest;
+            // Every event up to latest is in history; anything later reaches the queue
+            synchronized (history) {
+                latest = sequence.get();
+            }
+            long oldestKept = Math.max(1, latest - history.length() + 1);
+            if (resumeFrom < 0 || resumeFrom + 1 < oldestKept) {
+                // Cannot fill the gap; tell the client to refetch, then continue live
+                sink.reset(eventId(latest));
+                lastSent = latest;
+                return;
+            }
+            lastSent = resumeFrom;
+            for (long seq = resumeFrom + 1; seq <= latest; seq++) {
+                ChangeEvent event = history.get((int) (seq % history.length()));
+                if (event != null && event.getSequence() == seq && householdId.equals(event.getHouseholdId())) {
+                    send(event);
+                }
+            }
+        }
+
+        private void send(ChangeEvent event) throws IOException {
+            sink.change(eventId(event.getSequence()), event);
+            lastSent = event.getSequence();
+        }
+
+        void close() {
+            if (open) {
+                open = false;
+                subscribers.computeIfPresent(householdId, (household, members) -> {
+                    members.remove(this);
+                    return members.isEmpty() ? null : members;
+                });
+                sink.complete();
+            }
+        }
+    }
+
+    private String eventId(long seq) {
+        return streamId + "-" + seq;
+    }
+}
@@ -0,0 +1,211 @@
+package com.mealplanner.service;
+
+import com.mealplanner.dto.RecipeResponse;
+import com.mealplanner.dto.RecipeSuggestionListResponse;
+import com.mealplanner.dto.RecipeSuggestionResponse;
+import com.mealplanner.model.PantryLot;
+import com.mealplanner.model.PantryTotal;
+import com.mealplanner.model.Recipe;
+import com.mealplanner.model.RecipeIngredient;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationExpression;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Ranks recipes by how well they use up pantry lots that are about to expire. Candidates
+ * come from an index lookup on {@code ingredientNamesNormalized} for the expiring names,
+ * keeping those that use the most of them, and availability is checked against the
+ * maintained {@code pantryTotals}, so ranking never scans the recipe or pantry collections.
+ * An ingredient the pantry lacks still counts as available when the household's
+ * precomputed {@link SubstitutionGraph} has an option the pantry covers.
+ */
+@Service
+@RequiredArgsConstructor
+public class CookabilityService {
+
+    private static final double EPSILON = 1e-6;
+    private static final String EXPIRING_OVERLAP = "expiringOverlap";
+
+    private final MongoTemplate mongoTemplate;
+    private final PantryExpiryService pantryExpiryService;
+    private final UnitConversionService unitConversionService;
+    private final SubstitutionService substitutionService;
+
+    @Value("${mealplanner.cookability.max-expiring-lots:500}")
+    private int maxExpiringLots;
+
+    @Value("${mealplanner.cookability.max-candidates:200}")
+    private int maxCandidates;
+
+    /**
+     * Recipes that consume lots expiring within {@code within}. Each recipe scores its
+     * ingredient coverage, boosted by how many expiring ingredients it uses and how soon they
+     * expire; fully cookable recipes get a further boost so they rank first.
+     */
+    public RecipeSuggestionListResponse rankUseSoon(String householdId, Duration within, int limit) {
+        Instant now = Instant.now();
+
+        Map<String, Instant> expiring = new HashMap<>();
+        for (PantryLot lot : pantryExpiryService.findExpiring(householdId, within, maxExpiringLots)) {
+            expiring.merge(lot.getNameNormalized(), lot.getExpiresAt(),
+                    (a, b) -> a.isBefore(b) ? a : b);
+        }
+        if (expiring.isEmpty()) {
+            return RecipeSuggestionListResponse.builder().items(List.of()).total(0).build();
+        }
+
+        List<Recipe> candidates = findCandidates(householdId, expiring.keySet());
+
+        SubstitutionGraph substitutions = substitutionService.graphFor(householdId);
+        Map<String, Double> available = loadTotals(householdId, candidates, substitutions);
+        List<RecipeSuggestionResponse> ranked = new ArrayList<>();
+        for (Recipe recipe : candidates) {
+            ranked.add(score(recipe, expiring, available, substitutions, within, now));
+        }
+        ranked.sort(Comparator.comparingDouble(RecipeSuggestionResponse::getScore).reversed());
+
+        return RecipeSuggestionListResponse.builder()
+                .items(ranked.subList(0, Math.min(limit, ranked.size())))
+                .total(ranked.size())
+                .build();
+    }
+
+    /**
+     * Recipes using the most expiring ingredients, up to {@code maxCandidates}. A recipe using
+     * more of them scores higher, so the cap keeps the likeliest suggestions rather than the
+     * most recently edited recipes.
+     */
+    private List<Recipe> findCandidates(String householdId, Set<String> expiringNames) {
+        AggregationExpression overlap = context -> new Document("$size", new Document("$setIntersection",
+                List.of("$ingredientNamesNormalized", new Document("$literal", List.copyOf(expiringNames)))));
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("householdId").is(householdId)
+                        .and("ingredientNamesNormalized").in(expiringNames)),
+                Aggregation.addFields().addField(EXPIRING_OVERLAP).withValue(overlap).build(),
+                Aggregation.sort(Sort.by(Sort.Direction.DESC, EXPIRING_OVERLAP, "updatedAt")),
+                Aggregation.limit(maxCandidates));
+        return mongoTemplate.aggregate(aggregation, Recipe.class, Recipe.class).getMappedResults();
+    }
+
+    private RecipeSuggestionResponse score(Recipe recipe, Map<String, Instant> expiring,
+                                           Map<String, Double> available, SubstitutionGraph substitutions,
+                                           Duration within, Instant now) {
+        List<RecipeIngredient> ingredients = recipe.getIngredients() != null ? recipe.getIngredients() : List.of();
+        int covered = 0;
+        List<String> substituted = new ArrayList<>();
+        for (RecipeIngredient ingredient : ingredients) {
+            if (isAvailable(ingredient, available)) {
+                covered++;
+            } else if (isSubstitutable(ingredient, available, substitutions)) {
+                covered++;
+                substituted.add(normalize(ingredient.getName()));
+            }
+        }
+        double coverage = ingredients.isEmpty() ? 0 : (double) covered / ingredients.size();
+        boolean cookable = !ingredients.isEmpty() && covered == ingredients.size();
+
+        double urgency = 0;
+        Instant earliest = null;
+        List<String> used = new ArrayList<>();
+        for (String name : recipe.getIngredientNamesNormalized()) {
+            Instant expiresAt = expiring.get(name);
+            if (expiresAt == null) {
+                continue;
+            }
+            used.add(name);
+            urgency += urgency(expiresAt, within, now);
+            if (earliest == null || expiresAt.isBefore(earliest)) {
+                earliest = expiresAt;
+            }
+        }
+
+        return RecipeSuggestionResponse.builder()
+                .recipe(RecipeResponse.fromEntity(recipe))
+                .score((cookable ? 1 : 0) + coverage * (1 + urgency))
+                .cookable(cookable)
+                .coverage(coverage)
+                .expiringIngredients(used)
+                .substitutedIngredients(substituted)
+                .earliestExpiry(earliest)
+                .build();
+    }
+
+    /**
+     * Weight in [0.5, 1] for one expiring ingredient: already expired or expiring now counts
+     * fully, the end of the window counts half.
+     */
+    private double urgency(Instant expiresAt, Duration within, Instant now) {
+        long windowMillis = Math.max(1, within.toMillis());
+        double remaining = Math.max(0, Duration.between(now, expiresAt).toMillis()) / (double) windowMillis;
+        return 1 - 0.5 * Math.min(1, remaining);
+    }
+
+    private boolean isAvailable(RecipeIngredient ingredient, Map<String, Double> available) {
+        if (ingredient.getName() == null) {
+            return false;
+        }
+        UnitConversionService.Quantity needed = unitConversionService.normalize(ingredient.getQuantity(), ingredient.getUnit());
+        Double have = available.get(totalKey(normalize(ingredient.getName()), needed.unit()));
+        return have != null && have > 0 && have + EPSILON >= needed.amount();
+    }
+
+    /**
+     * Whether a substitution option is covered for the whole amount; one hash lookup in the
+     * compiled graph, then a check of each option's few substitutes against the totals.
+     */
+    private boolean isSubstitutable(RecipeIngredient ingredient, Map<String, Double> available,
+                                    SubstitutionGraph substitutions) {
+        if (ingredient.getName() == null) {
+            return false;
+        }
+        UnitConversionService.Quantity needed = unitConversionService.normalize(ingredient.getQuantity(), ingredient.getUnit());
+        return substitutions.canSubstitute(normalize(ingredient.getName()), needed.amount(), needed.unit(),
+                (name, unit) -> available.getOrDefault(totalKey(name, unit), 0.0));
+    }
+
+    /**
+     * The household's totals for every ingredient of the candidates and their substitutes,
+     * keyed by {@code ingredient|unit}.
+     */
+    private Map<String, Double> loadTotals(String householdId, List<Recipe> recipes, SubstitutionGraph substitutions) {
+        Set<String> names = new HashSet<>();
+        for (Recipe recipe : recipes) {
+            for (String name : recipe.getIngredientNamesNormalized()) {
+                names.add(name);
+                names.addAll(substitutions.substitutesOf(name));
+            }
+        }
+        Query query = Query.query(Criteria.where("householdId").is(householdId).and("ingredient").in(names));
+        Map<String, Double> totals = new HashMap<>();
+        for (PantryTotal total : mongoTemplate.find(query, PantryTotal.class)) {
+            totals.put(totalKey(total.getIngredient(), total.getUnit()), total.getQuantity());
+        }
+        return totals;
+    }
+
+    private String totalKey(String ingredient, String unit) {
+        return ingredient + "|" + unit;
+    }
+
+    private String normalize(String name) {
+        return name.toLowerCase(Locale.ROOT).trim();
+    }
+}
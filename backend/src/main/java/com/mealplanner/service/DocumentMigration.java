@@ -0,0 +1,19 @@
+package com.mealplanner.service;
+
+import org.bson.Document;
+
+/**
+ * One step of a collection's schema history. A migration upgrades raw documents of
+ * {@link #entityType()} from {@link #fromVersion()} to the next version in place; the
+ * {@link MigrationRegistry} chains the steps and stamps {@code schemaVersion}. Migrations
+ * must be idempotent and must not depend on anything but the document itself, since they
+ * run both on read and in the background runner.
+ */
+public interface DocumentMigration {
+
+    Class<?> entityType();
+
+    int fromVersion();
+
+    void migrate(Document document);
+}
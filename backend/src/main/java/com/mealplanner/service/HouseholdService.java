@@ -0,0 +1,151 @@
+package com.mealplanner.service;
+
+import com.mealplanner.config.HouseholdProperties;
+import com.mealplanner.exception.InvalidParameterException;
+import com.mealplanner.exception.QuotaExceededException;
+import com.mealplanner.model.HouseholdUsage;
+import com.mealplanner.model.PantryLot;
+import com.mealplanner.model.Recipe;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Resolves the household a request acts for and enforces per-household quotas. Every
+ * stored recipe, pantry lot and total carries a {@code householdId}, and every query and
+ * index leads with it, so one household's requests only touch its own key range. Stored
+ * recipes and pantry lots are counted in {@link HouseholdUsage}, one document per household.
+ */
+@Service
+@RequiredArgsConstructor
+public class HouseholdService {
+
+    public static final String HOUSEHOLD_HEADER = "X-Household-Id";
+    /** Household that documents written before households existed were assigned to. */
+    public static final String DEFAULT_HOUSEHOLD = "default";
+
+    private static final Pattern VALID_ID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    private final MongoTemplate mongoTemplate;
+    private final HouseholdProperties properties;
+    private final Map<String, Integer> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Validates the household id of a request. A missing id is rejected rather than mapped to
+     * a shared household, so a client that forgets the header cannot read or write another
+     * household's data.
+     */
+    public static String resolve(String householdId) {
+        if (householdId == null || householdId.isBlank()) {
+            throw new InvalidParameterException(HOUSEHOLD_HEADER, "Household id is required");
+        }
+        if (!VALID_ID.matcher(householdId).matches()) {
+            throw new InvalidParameterException(HOUSEHOLD_HEADER,
+                    "Household id must be 1-64 letters, digits, '-' or '_'");
+        }
+        return householdId;
+    }
+
+    /**
+     * Claims a recipe slot before the recipe is stored; give it back with
+     * {@link #releaseRecipe} if the recipe is not stored or is deleted.
+     *
+     * @throws QuotaExceededException when the household already stores its maximum
+     */
+    public void reserveRecipe(String householdId) {
+        long max = properties.quotaFor(householdId).getMaxRecipes();
+        if (!reserve(householdId, HouseholdUsage.RECIPES, max)) {
+            throw new QuotaExceededException(householdId, "recipes", max);
+        }
+    }
+
+    public void releaseRecipe(String householdId) {
+        release(householdId, HouseholdUsage.RECIPES);
+    }
+
+    /**
+     * Claims a pantry lot slot before the lot is stored; give it back with
+     * {@link #releasePantryLot} if the lot is not stored, is deleted or is archived.
+     *
+     * @throws QuotaExceededException when the household already stores its maximum
+     */
+    public void reservePantryLot(String householdId) {
+        long max = properties.quotaFor(householdId).getMaxPantryLots();
+        if (!reserve(householdId, HouseholdUsage.PANTRY_LOTS, max)) {
+            throw new QuotaExceededException(householdId, "pantry lots", max);
+        }
+    }
+
+    public void releasePantryLot(String householdId) {
+        release(householdId, HouseholdUsage.PANTRY_LOTS);
+    }
+
+    /**
+     * Increments the household's counter only while it is below {@code max}, so concurrent
+     * creates cannot both take the last slot. A household without a counter yet, e.g. one
+     * created before counters existed, is seeded from what it actually stores.
+     */
+    private boolean reserve(String householdId, String field, long max) {
+        Query belowMax = Query.query(Criteria.where("_id").is(householdId).and(field).lt(max));
+        Update increment = new Update().inc(field, 1);
+        if (mongoTemplate.updateFirst(belowMax, increment, HouseholdUsage.class).getMatchedCount() > 0) {
+            return true;
+        }
+        if (mongoTemplate.exists(Query.query(Criteria.where("_id").is(householdId)), HouseholdUsage.class)) {
+            return false;
+        }
+        try {
+            mongoTemplate.insert(HouseholdUsage.builder()
+                    .id(householdId)
+                    .recipes(countStored(householdId, Recipe.class))
+                    .pantryLots(countStored(householdId, PantryLot.class))
+                    .build());
+        } catch (DuplicateKeyException ex) {
+            // Seeded concurrently by another request
+        }
+        return mongoTemplate.updateFirst(belowMax, increment, HouseholdUsage.class).getMatchedCount() > 0;
+    }
+
+    private void release(String householdId, String field) {
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(householdId).and(field).gt(0)),
+                new Update().inc(field, -1), HouseholdUsage.class);
+    }
+
+    private long countStored(String householdId, Class<?> entityType) {
+        return mongoTemplate.count(Query.query(Criteria.where("householdId").is(householdId)), entityType);
+    }
+
+    /**
+     * Claims one in-flight request slot for the household.
+     *
+     * @return false when the household already has its maximum in flight
+     */
+    public boolean tryAcquireRequest(String householdId) {
+        int max = properties.quotaFor(householdId).getMaxInFlight();
+        if (!properties.isInFlightLimitEnabled() || max <= 0) {
+            return true;
+        }
+        boolean[] acquired = new boolean[1];
+        inFlight.compute(householdId, (id, current) -> {
+            int count = current != null ? current : 0;
+            if (count >= max) {
+                return current;
+            }
+            acquired[0] = true;
+            return count + 1;
+        });
+        return acquired[0];
+    }
+
+    public void releaseRequest(String householdId) {
+        inFlight.computeIfPresent(householdId, (id, current) -> current > 1 ? current - 1 : null);
+    }
+}
@@ -0,0 +1,275 @@
+package com.mealplanner.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mealplanner.exception.IdempotencyInProgressException;
+import com.mealplanner.exception.IdempotencyKeyReuseException;
+import com.mealplanner.model.IdempotencyRecord;
+import com.mealplanner.model.IdempotencyStatus;
+import com.mongodb.client.result.UpdateResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Replays the first successful response for a client-supplied {@code Idempotency-Key}.
+ * Completed responses live in the TTL-indexed {@code idempotencyKeys} collection with a
+ * short-lived in-memory front cache. Concurrent duplicates in this instance share one
+ * execution; across instances an in-progress claim document keeps a second instance from
+ * executing the same key. The owner renews the claim's lease while the action runs and until
+ * the response is stored, so only a claim whose owner stopped renewing (crashed or hung) is
+ * taken over by another instance.
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    private static final long COMPLETION_BACKOFF_MILLIS = 50;
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+    private final RequestCoalescer<String, StoredResponse> inFlight;
+    private final Map<String, CachedResponse> frontCache = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService leaseRenewer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "idempotency-lease");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Value("${mealplanner.idempotency.front-cache-ttl:10m}")
+    private Duration frontCacheTtl;
+
+    @Value("${mealplanner.idempotency.front-cache-size:10000}")
+    private int frontCacheSize;
+
+    @Value("${mealplanner.idempotency.claim-lease:30s}")
+    private Duration claimLease;
+
+    public IdempotencyService(MongoTemplate mongoTemplate, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.objectMapper = objectMapper;
+        this.inFlight = new RequestCoalescer<>("idempotency", Duration.ZERO, meterRegistry);
+    }
+
+    /**
+     * Runs {@code action} once per household, {@code scope} and key. Without a key the action
+     * simply runs.
+     */
+    public <T> T execute(String householdId, String scope, String idempotencyKey, Object request,
+                         Class<T> responseType, Supplier<T> action) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return action.get();
+        }
+
+        String id = householdId + ":" + scope + ":" + idempotencyKey;
+        String requestHash = hash(request);
+
+        CachedResponse cached = frontCache.get(id);
+        if (cached != null && cached.expiresAt().isAfter(Instant.now())) {
+            return replay(idempotencyKey, requestHash, cached.response(), responseType);
+        }
+
+        StoredResponse stored = inFlight.execute(id, () -> executeOnce(id, idempotencyKey, requestHash, responseType, action));
+        return replay(idempotencyKey, requestHash, stored, responseType);
+    }
+
+    private <T> StoredResponse executeOnce(String id, String idempotencyKey, String requestHash,
+                                           Class<T> responseType, Supplier<T> action) {
+        IdempotencyRecord existing = mongoTemplate.findById(id, IdempotencyRecord.class);
+        if (existing != null && existing.getStatus() == IdempotencyStatus.COMPLETED) {
+            return fromRecord(existing, idempotencyKey, responseType);
+        }
+
+        String owner = UUID.randomUUID().toString();
+        if (!claim(id, requestHash, owner)) {
+            existing = mongoTemplate.findById(id, IdempotencyRecord.class);
+            if (existing == null) {
+                throw new IdempotencyInProgressException(idempotencyKey);
+            }
+            return fromRecord(existing, idempotencyKey, responseType);
+        }
+
+        long renewMillis = Math.max(1, claimLease.toMillis() / 3);
+        ScheduledFuture<?> renewal = leaseRenewer.scheduleWithFixedDelay(() -> renewLease(id, owner),
+                renewMillis, renewMillis, TimeUnit.MILLISECONDS);
+        T response;
+        String responseBody;
+        try {
+            response = action.get();
+            responseBody = toJson(response);
+        } catch (RuntimeException ex) {
+            renewal.cancel(false);
+            mongoTemplate.remove(ownedClaim(id, owner), IdempotencyRecord.class);
+            throw ex;
+        }
+
+        // The lease stays renewed until the response is stored; if the claim lapsed first, a
+        // retry would take it over and run the action a second time
+        complete(id, owner, responseBody, renewal, 0);
+
+        StoredResponse stored = new StoredResponse(requestHash, response);
+        remember(id, stored);
+        return stored;
+    }
+
+    /**
+     * Stores the response on the claim, retrying with backoff on the lease thread until the
+     * write lands or the claim turns out to be gone, and only then stops renewing the lease.
+     */
+    private void complete(String id, String owner, String responseBody, ScheduledFuture<?> renewal, int attempt) {
+        try {
+            UpdateResult result = mongoTemplate.updateFirst(ownedClaim(id, owner),
+                    new Update()
+                            .set("status", IdempotencyStatus.COMPLETED)
+                            .set("responseBody", responseBody)
+                            .set("completedAt", Instant.now()),
+                    IdempotencyRecord.class);
+            if (result.getMatchedCount() == 0) {
+                // Already completed by an earlier attempt whose acknowledgement was lost, or taken over
+                log.warn("Idempotency claim {} was no longer held when its response was stored", id);
+            }
+            renewal.cancel(false);
+            return;
+        } catch (RuntimeException ex) {
+            log.warn("Could not store idempotent response {} (attempt {}): {}", id, attempt + 1, ex.getMessage());
+        }
+
+        long delayMillis = Math.min(Math.max(1, claimLease.toMillis() / 3),
+                COMPLETION_BACKOFF_MILLIS << Math.min(attempt, 10));
+        try {
+            leaseRenewer.schedule(() -> complete(id, owner, responseBody, renewal, attempt + 1),
+                    delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ex) {
+            log.warn("Shutting down before idempotent response {} was stored; its claim will lapse", id);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        leaseRenewer.shutdownNow();
+    }
+
+    private boolean claim(String id, String requestHash, String owner) {
+        Instant now = Instant.now();
+        // A claim whose owner died mid-request is taken over once its lease lapses; claims
+        // written before leases were renewed only carry createdAt
+        mongoTemplate.remove(Query.query(Criteria.where("_id").is(id)
+                        .and("status").is(IdempotencyStatus.IN_PROGRESS)
+                        .orOperator(
+                                Criteria.where("leaseExpiresAt").lt(now),
+                                Criteria.where("leaseExpiresAt").exists(false).and("createdAt").lt(now.minus(claimLease)))),
+                IdempotencyRecord.class);
+        try {
+            mongoTemplate.insert(IdempotencyRecord.builder()
+                    .id(id)
+                    .requestHash(requestHash)
+                    .status(IdempotencyStatus.IN_PROGRESS)
+                    .owner(owner)
+                    .leaseExpiresAt(now.plus(claimLease))
+                    .createdAt(now)
+                    .build());
+            return true;
+        } catch (DuplicateKeyException ex) {
+            return false;
+        }
+    }
+
+    private void renewLease(String id, String owner) {
+        try {
+            mongoTemplate.updateFirst(ownedClaim(id, owner),
+                    Update.update("leaseExpiresAt", Instant.now().plus(claimLease)), IdempotencyRecord.class);
+        } catch (RuntimeException ex) {
+            // Keep renewing; a missed renewal only matters if every later one fails too
+            log.warn("Could not renew idempotency claim {}: {}", id, ex.getMessage());
+        }
+    }
+
+    private static Query ownedClaim(String id, String owner) {
+        return Query.query(Criteria.where("_id").is(id)
+                .and("status").is(IdempotencyStatus.IN_PROGRESS)
+                .and("owner").is(owner));
+    }
+
+    private <T> StoredResponse fromRecord(IdempotencyRecord record, String idempotencyKey, Class<T> responseType) {
+        if (record.getStatus() != IdempotencyStatus.COMPLETED) {
+            throw new IdempotencyInProgressException(idempotencyKey);
+        }
+        StoredResponse stored = new StoredResponse(record.getRequestHash(),
+                fromJson(record.getResponseBody(), responseType));
+        remember(record.getId(), stored);
+        return stored;
+    }
+
+    private <T> T replay(String idempotencyKey, String requestHash, StoredResponse stored, Class<T> responseType) {
+        if (!stored.requestHash().equals(requestHash)) {
+            throw new IdempotencyKeyReuseException(idempotencyKey);
+        }
+        return responseType.cast(stored.response());
+    }
+
+    private void remember(String id, StoredResponse stored) {
+        Instant now = Instant.now();
+        if (frontCache.size() >= frontCacheSize) {
+            frontCache.values().removeIf(entry -> entry.expiresAt().isBefore(now));
+            if (frontCache.size() >= frontCacheSize) {
+                return;
+            }
+        }
+        frontCache.put(id, new CachedResponse(stored, now.plus(frontCacheTtl)));
+    }
+
+    private String hash(Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(objectMapper.writeValueAsBytes(request)));
+        } catch (JsonProcessingException | NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("Could not fingerprint request", ex);
+        }
+    }
+
+    private String toJson(Object response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not store idempotent response", ex);
+        }
+    }
+
+    private <T> T fromJson(String json, Class<T> responseType) {
+        try {
+            return objectMapper.readValue(json, responseType);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not read stored idempotent response", ex);
+        }
+    }
+
+    private record StoredResponse(String requestHash, Object response) {
+    }
+
+    private record CachedResponse(StoredResponse response, Instant expiresAt) {
+    }
+}
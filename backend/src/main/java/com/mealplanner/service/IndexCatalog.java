@@ -0,0 +1,180 @@
+package com.mealplanner.service;
+
+import com.mealplanner.model.IdempotencyRecord;
+import com.mealplanner.model.IngredientSubstitution;
+import com.mealplanner.model.PantryLot;
+import com.mealplanner.model.PantryTotal;
+import com.mealplanner.model.Recipe;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Every index the application relies on, in one place. Request-path indexes lead with
+ * {@code householdId}, so each household's queries stay inside its own key range and
+ * {@code {householdId: 1, _id: 1}} can serve as the shard key. After that, compound indexes
+ * follow the equality, sort, range order of the queries they serve: list filters put the
+ * equality field next, then {@code updatedAt} so the page comes back in index order, then
+ * {@code nameNormalized} so the name regex is evaluated on index keys before any fetch.
+ * Only the archive sweep and the background schema migration, which run across all
+ * households, use unprefixed indexes.
+ *
+ * <p>Bump {@link #VERSION} whenever an index is added, changed or retired; it labels the
+ * catalog in the logs and the stored {@code indexCatalog} state. Startup compares each
+ * index with the database's regardless, so option changes from configuration apply too.
+ */
+@Component
+public class IndexCatalog {
+
+    public static final int VERSION = 5;
+
+    private final Duration idempotencyTtl;
+
+    public IndexCatalog(@Value("${mealplanner.idempotency.ttl:24h}") Duration idempotencyTtl) {
+        this.idempotencyTtl = idempotencyTtl;
+    }
+
+    public record Entry(Class<?> entityType, String name, IndexDefinition definition) {
+    }
+
+    /** An index an earlier version created, or the old model annotations could have. */
+    public record Retired(Class<?> entityType, String name) {
+    }
+
+    public List<Entry> indexes() {
+        return List.of(
+                // Shard key; also the household's own id range
+                new Entry(PantryLot.class, "household_id_idx", new Index()
+                        .on("householdId", Sort.Direction.ASC)
+                        .on("_id", Sort.Direction.ASC)
+                        .named("household_id_idx")),
+                // GET /api/pantry: type filter, newest first, optional name regex
+                new Entry(PantryLot.class, "household_type_updatedAt_name_idx", new Index()
+                        .on("householdId", Sort.Direction.ASC)
+                        .on("type", Sort.Direction.ASC)
+                        .on("updatedAt", Sort.Direction.DESC)
+                        .on("nameNormalized", Sort.Direction.ASC)
+                        .named("household_type_updatedAt_name_idx")),
+                // GET /api/pantry without a type
+                new Entry(PantryLot.class, "household_updatedAt_name_idx", new Index()
+                        .on("householdId", Sort.Direction.ASC)
+                        .on("updatedAt", Sort.Direction.DESC)
+                        .on("nameNormalized", Sort.Direction.ASC)
+                        .named("household_updatedAt_name_idx")),
+                new Entry(PantryLot.class, "household_nameNormalized_idx", new Index()
+                        .on("householdId", Sort.Direction.ASC)
+                        .on("nameNormalized", Sort.Direction.ASC)
+                        .named("household_nameNormalized_idx")),
+                // GET /api/pantry/expiring and use-soon ranking
+                new Entry(PantryLot.class, "household_expiresAt_idx", new Index()
+                        .on("householdId", Sort.Direction.ASC)
+                        .on("expiresAt", Sort.Direction.ASC)
+                        .named("household_expiresAt_idx")),
+                // Expired branch of the archive sweep, across households
+                new Entry(PantryLot.class, "expiresAt_idx", new Index()
+                        .on("expiresAt", Sort.Direction.ASC)
+                        .sparse()
+                        .named("expiresAt_idx")),
+                // Depleted branch of the archive sweep; only empty lots are indexed
+                new Entry(PantryLot.class, "depleted_idx", new Index()
+                        .on("quantity", Sort.Direction.ASC)
+                        .on("updatedAt", Sort.Direction.ASC)
+                        .partial(PartialIndexFilter.of(Criteria.where("quantity").lte(0)))
+                        .named("depleted_idx")),
+                // Background schema migration: documents below the target version, in _id order
+                new Entry(PantryLot.class, "schemaVersion_id_idx", new Index()
+                        .on("schemaVersion", Sort.Direction.ASC)
+                        .on("_id", Sort.Direction.ASC)
+                        .named("schemaVersion_id_idx")),
+
+                new Entry(Recipe.class, "household_id_idx", new Index()
+                        .on("householdId", Sort.Direction.ASC)
+                        .on("_id", Sort.Direction.ASC)
+                        .named("household_id_idx")),
+                // GET /api/recipes: tag filter, newest first, optional name regex
+                new Entry(Recipe.class, "household_tags_updatedAt_name_idx", new Index()
+                        .on("householdId", Sort.Direction.ASC)
+                        .on("tags", Sort.Direction.ASC)
+                        .on("updatedAt", Sort.Direction.DESC)
+                        .on("nameNormalized", Sort.Direction.ASC)
+                        .named("household_tags_updatedAt_name_idx")),
+                // GET /api/recipes without a tag
+                new Entry(Recipe.class, "household_updatedAt_name_idx", new Index()
+                        .on("householdId", Sort.Direction.ASC)
+                        .on("updatedAt", Sort.Direction.DESC)
+                        .on("nameNormalized", Sort.Direction.ASC)
+                        .named("household_updatedAt_name_idx")),
+                new Entry(Recipe.class, "household_nameNormalized_idx", new Index()
+                        .on("householdId", Sort.Direction.ASC)
+                        .on("nameNormalized", Sort.Direction.ASC)
+                        .named("household_nameNormalized_idx")),
+                new Entry(Recipe.class, "household_externalKey_idx", new Index()
+                        .on("householdId", Sort.Direction.ASC)
+                        .on("externalKey", Sort.Direction.ASC)
+                        .named("household_externalKey_idx")),
+                // Use-soon candidates: $in on ingredient names, newest first via SORT_MERGE
+                new Entry(Recipe.class, "household_ingredientNames_updatedAt_idx", new Index()
+                        .on("householdId", Sort.Direction.ASC)
+                        .on("ingredientNamesNormalized", Sort.Direction.ASC)
+                        .on("updatedAt", Sort.Direction.DESC)
+                        .named("household_ingredientNames_updatedAt_idx")),
+                // Near-duplicate candidates: $in on LSH band keys
+                new Entry(Recipe.class, "household_lshBuckets_idx", new Index()
+                        .on("householdId", Sort.Direction.ASC)
+                        .on("lshBuckets", Sort.Direction.ASC)
+                        .named("household_lshBuckets_idx")),
+                new Entry(Recipe.class, "schemaVersion_id_idx", new Index()
+                        .on("schemaVersion", Sort.Direction.ASC)
+                        .on("_id", Sort.Direction.ASC)
+                        .named("schemaVersion_id_idx")),
+
+                new Entry(PantryTotal.class, "household_ingredient_idx", new Index()
+                        .on("householdId", Sort.Direction.ASC)
+                        .on("ingredient", Sort.Direction.ASC)
+                        .named("household_ingredient_idx")),
+
+                // Substitution list and the per-household graph compile
+                new Entry(IngredientSubstitution.class, "household_ingredient_idx", new Index()
+                        .on("householdId", Sort.Direction.ASC)
+                        .on("ingredientNormalized", Sort.Direction.ASC)
+                        .named("household_ingredient_idx")),
+
+                new Entry(IdempotencyRecord.class, "createdAt_ttl_idx", new Index()
+                        .on("createdAt", Sort.Direction.ASC)
+                        .expire(idempotencyTtl)
+                        .named("createdAt_ttl_idx"))
+        );
+    }
+
+    public List<Retired> retired() {
+        return List.of(
+                // Catalog v1, before households
+                new Retired(PantryLot.class, "type_updatedAt_name_idx"),
+                new Retired(PantryLot.class, "updatedAt_name_idx"),
+                new Retired(PantryLot.class, "nameNormalized_idx"),
+                new Retired(Recipe.class, "tags_updatedAt_name_idx"),
+                new Retired(Recipe.class, "updatedAt_name_idx"),
+                new Retired(Recipe.class, "nameNormalized_idx"),
+                new Retired(Recipe.class, "externalKey_idx"),
+                new Retired(Recipe.class, "ingredientNames_updatedAt_idx"),
+                new Retired(PantryTotal.class, "ingredient_idx"),
+                // Created lazily by services before the catalog existed
+                new Retired(IdempotencyRecord.class, "createdAt_1"),
+                new Retired(Recipe.class, "ingredientNames_idx"),
+                // Default names of the former @Indexed / @CompoundIndex annotations
+                new Retired(PantryLot.class, "type_name_idx"),
+                new Retired(PantryLot.class, "nameNormalized"),
+                new Retired(Recipe.class, "nameNormalized"),
+                new Retired(Recipe.class, "tags"),
+                new Retired(Recipe.class, "externalKey"),
+                new Retired(PantryTotal.class, "ingredient")
+        );
+    }
+}
@@ -0,0 +1,189 @@
+package com.mealplanner.service;
+
+import com.mealplanner.model.IndexCatalogState;
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.MongoCollection;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Applies the {@link IndexCatalog} once all beans are created, before the web server
+ * starts taking traffic. Each catalog index is compared with the database's own, keys and
+ * options alike, so a changed setting such as the idempotency TTL is picked up without a
+ * catalog version bump: missing indexes are created, differing ones dropped and rebuilt,
+ * then retired ones dropped. Startup fails if the catalog cannot be applied.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IndexManager implements SmartInitializingSingleton {
+
+    private static final int INDEX_OPTIONS_CONFLICT = 85;
+    private static final int INDEX_KEY_SPECS_CONFLICT = 86;
+    /** Options that change what an index holds or how long; others, like the name, do not. */
+    private static final List<String> COMPARED_OPTIONS =
+            List.of("unique", "sparse", "expireAfterSeconds", "partialFilterExpression", "collation");
+
+    private final MongoTemplate mongoTemplate;
+    private final IndexCatalog indexCatalog;
+
+    @Value("${mealplanner.indexes.manage-on-startup:true}")
+    private boolean manageOnStartup;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!manageOnStartup) {
+            return;
+        }
+        try {
+            apply();
+        } catch (RuntimeException ex) {
+            throw new IllegalStateException("Could not apply index catalog v" + IndexCatalog.VERSION, ex);
+        }
+    }
+
+    /**
+     * Brings the database's indexes in line with the catalog.
+     *
+     * @return whether any index was created, rebuilt or dropped
+     */
+    public boolean apply() {
+        Map<String, Map<String, Document>> existing = new HashMap<>();
+
+        // Replacements are built before their predecessors are dropped, so queries always have one
+        List<String> applied = new ArrayList<>();
+        int changed = 0;
+        for (IndexCatalog.Entry entry : indexCatalog.indexes()) {
+            Document current = existingIndexes(entry.entityType(), existing).get(entry.name());
+            if (current == null || !matches(current, entry.definition())) {
+                ensure(entry);
+                changed++;
+            }
+            applied.add(mongoTemplate.getCollectionName(entry.entityType()) + "." + entry.name());
+        }
+
+        for (IndexCatalog.Retired retired : indexCatalog.retired()) {
+            if (existingIndexes(retired.entityType(), existing).containsKey(retired.name())) {
+                MongoCollection<Document> collection = collectionOf(retired.entityType());
+                collection.dropIndex(retired.name());
+                changed++;
+                log.info("Dropped retired index {}.{}", collection.getNamespace().getCollectionName(), retired.name());
+            }
+        }
+
+        if (changed == 0) {
+            log.debug("Index catalog v{} already applied", IndexCatalog.VERSION);
+            return false;
+        }
+        mongoTemplate.save(IndexCatalogState.builder()
+                .id(IndexCatalogState.ID)
+                .version(IndexCatalog.VERSION)
+                .indexes(applied)
+                .appliedAt(Instant.now())
+                .build());
+        log.info("Applied index catalog v{} ({} indexes, {} changes)", IndexCatalog.VERSION, applied.size(), changed);
+        return true;
+    }
+
+    /**
+     * Whether an index listed by the server has the definition's keys and options.
+     */
+    static boolean matches(Document current, IndexDefinition definition) {
+        if (!sameValue(current.get("key"), definition.getIndexKeys())) {
+            return false;
+        }
+        Document options = definition.getIndexOptions();
+        for (String option : COMPARED_OPTIONS) {
+            if (!sameValue(current.get(option), options.get(option))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compares option values the way the server does: numbers by value, since a TTL may come
+     * back as an int or a long, and documents key by key in order.
+     */
+    private static boolean sameValue(Object current, Object expected) {
+        // sparse: false and unique: false are the defaults, which the server may leave out
+        if (Boolean.FALSE.equals(current) && expected == null || current == null && Boolean.FALSE.equals(expected)) {
+            return true;
+        }
+        if (current instanceof Number a && expected instanceof Number b) {
+            return a.doubleValue() == b.doubleValue();
+        }
+        if (current instanceof Document a && expected instanceof Document b) {
+            if (!new ArrayList<>(a.keySet()).equals(new ArrayList<>(b.keySet()))) {
+                return false;
+            }
+            for (String key : a.keySet()) {
+                if (!sameValue(a.get(key), b.get(key))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return Objects.equals(current, expected);
+    }
+
+    private Map<String, Document> existingIndexes(Class<?> entityType, Map<String, Map<String, Document>> cache) {
+        return cache.computeIfAbsent(mongoTemplate.getCollectionName(entityType), name -> {
+            Map<String, Document> byName = new HashMap<>();
+            for (Document index : mongoTemplate.getCollection(name).listIndexes().into(new ArrayList<>())) {
+                byName.put(index.getString("name"), index);
+            }
+            return byName;
+        });
+    }
+
+    private void ensure(IndexCatalog.Entry entry) {
+        try {
+            mongoTemplate.indexOps(entry.entityType()).ensureIndex(entry.definition());
+        } catch (RuntimeException ex) {
+            if (!isConflict(ex)) {
+                throw ex;
+            }
+            // Same name with other keys, or same keys with other options: replace it
+            MongoCollection<Document> collection = collectionOf(entry.entityType());
+            String keys = entry.definition().getIndexKeys().toJson();
+            for (Document index : collection.listIndexes().into(new ArrayList<>())) {
+                String name = index.getString("name");
+                if (entry.name().equals(name) || keys.equals(index.get("key", Document.class).toJson())) {
+                    collection.dropIndex(name);
+                    log.info("Rebuilding index {}.{} with changed definition",
+                            collection.getNamespace().getCollectionName(), name);
+                }
+            }
+            mongoTemplate.indexOps(entry.entityType()).ensureIndex(entry.definition());
+        }
+    }
+
+    private boolean isConflict(Throwable ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoCommandException command
+                    && (command.getErrorCode() == INDEX_OPTIONS_CONFLICT
+                    || command.getErrorCode() == INDEX_KEY_SPECS_CONFLICT)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private MongoCollection<Document> collectionOf(Class<?> entityType) {
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(entityType));
+    }
+}
@@ -0,0 +1,92 @@
+package com.mealplanner.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Versioned document migrations grouped per collection. Documents without a
+ * {@code schemaVersion} are treated as version 1.
+ */
+@Service
+public class MigrationRegistry {
+
+    public static final String VERSION_FIELD = "schemaVersion";
+
+    private final Map<String, List<DocumentMigration>> migrations = new HashMap<>();
+    private final Map<String, Class<?>> entityTypes = new HashMap<>();
+    private final Map<String, Counter> lazyUpgrades = new HashMap<>();
+
+    public MigrationRegistry(List<DocumentMigration> migrations, MongoTemplate mongoTemplate,
+                             MeterRegistry meterRegistry) {
+        for (DocumentMigration migration : migrations) {
+            String collection = mongoTemplate.getCollectionName(migration.entityType());
+            this.migrations.computeIfAbsent(collection, name -> new ArrayList<>()).add(migration);
+            entityTypes.put(collection, migration.entityType());
+        }
+        this.migrations.forEach((collection, steps) -> {
+            steps.sort(Comparator.comparingInt(DocumentMigration::fromVersion));
+            for (int i = 0; i < steps.size(); i++) {
+                if (steps.get(i).fromVersion() != i + 1) {
+                    throw new IllegalStateException("Migrations for " + collection
+                            + " must cover consecutive versions starting at 1, found " + steps.get(i).fromVersion()
+                            + " at position " + (i + 1));
+                }
+            }
+            lazyUpgrades.put(collection, Counter.builder("mealplanner.migrations.lazy")
+                    .tag("collection", collection)
+                    .register(meterRegistry));
+        });
+    }
+
+    public Map<String, Class<?>> migratedCollections() {
+        return Map.copyOf(entityTypes);
+    }
+
+    public int targetVersion(String collection) {
+        List<DocumentMigration> steps = migrations.get(collection);
+        return steps == null ? 1 : steps.size() + 1;
+    }
+
+    public static int versionOf(Document document) {
+        return document.get(VERSION_FIELD) instanceof Number version ? version.intValue() : 1;
+    }
+
+    /**
+     * Brings a raw document of {@code collection} up to the latest version in place.
+     *
+     * @return whether the document was changed
+     */
+    public boolean upgrade(String collection, Document document) {
+        List<DocumentMigration> steps = migrations.get(collection);
+        if (steps == null || document == null) {
+            return false;
+        }
+        int version = versionOf(document);
+        if (version > steps.size()) {
+            return false;
+        }
+        for (int from = version; from <= steps.size(); from++) {
+            steps.get(from - 1).migrate(document);
+            document.put(VERSION_FIELD, from + 1);
+        }
+        return true;
+    }
+
+    /**
+     * Same as {@link #upgrade(String, Document)}, counted as a read-time upgrade.
+     */
+    public void upgradeOnRead(String collection, Document document) {
+        if (upgrade(collection, document)) {
+            lazyUpgrades.get(collection).increment();
+        }
+    }
+}
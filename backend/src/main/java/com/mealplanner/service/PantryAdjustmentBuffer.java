@@ -0,0 +1,437 @@
+package com.mealplanner.service;
+
+import com.mealplanner.dto.ChangeEvent;
+import com.mealplanner.dto.PantryLotListResponse;
+import com.mealplanner.model.PantryLot;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Applies pantry quantity adjustments as {@code $inc} bulk writes. In write-behind mode the
+ * deltas are first coalesced per lot in a lock-free buffer and flushed when enough have
+ * accumulated or the flush interval elapses, so a burst of scans against the same lot costs
+ * one update. Pending deltas stay visible to readers through {@link #pending(String)} until
+ * their flush has completed, and everything is flushed on shutdown. Every update is
+ * filtered on the lot's household as well as its id, since the household is the shard key.
+ * The archive sweep seals the lots it is about to move, so no delta is buffered behind it.
+ */
+@Slf4j
+@Service
+public class PantryAdjustmentBuffer implements SmartLifecycle {
+
+    private final MongoTemplate mongoTemplate;
+    private final PantryTotalsService pantryTotalsService;
+    private final PantryReplica pantryReplica;
+    private final RequestCoalescer<PantryLotService.ListKey, PantryLotListResponse> listCoalescer;
+    private final ChangeEventService changeEventService;
+
+    /** Deltas still accepting adds. A cell is retired when a flush takes it over. */
+    private final Map<String, Cell> cells = new ConcurrentHashMap<>();
+    /** Retired cells whose flush has not completed yet. */
+    private final Map<String, Cell> flushing = new ConcurrentHashMap<>();
+    private final AtomicInteger buffered = new AtomicInteger();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    /** Odd while a flush is writing, bumped again when it completes; see {@link #isStable(long)}. */
+    private final AtomicLong epoch = new AtomicLong();
+    private final Counter bufferedAdjustments;
+    private final Counter flushes;
+
+    @Value("${mealplanner.pantry.write-behind.enabled:false}")
+    private boolean writeBehind;
+
+    @Value("${mealplanner.pantry.write-behind.flush-size:500}")
+    private int flushSize;
+
+    @Value("${mealplanner.pantry.write-behind.flush-interval:200ms}")
+    private Duration flushInterval;
+
+    private ScheduledExecutorService flusher;
+    private volatile boolean running;
+
+    public PantryAdjustmentBuffer(MongoTemplate mongoTemplate,
+                                  PantryTotalsService pantryTotalsService,
+                                  PantryReplica pantryReplica,
+                                  RequestCoalescer<PantryLotService.ListKey, PantryLotListResponse> listCoalescer,
+                                  ChangeEventService changeEventService,
+                                  MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.pantryTotalsService = pantryTotalsService;
+        this.pantryReplica = pantryReplica;
+        this.listCoalescer = listCoalescer;
+        this.changeEventService = changeEventService;
+        this.bufferedAdjustments = Counter.builder("mealplanner.pantry.adjustments.buffered").register(meterRegistry);
+        this.flushes = Counter.builder("mealplanner.pantry.adjustments.flushes").register(meterRegistry);
+        Gauge.builder("mealplanner.pantry.adjustments.pending", cells, Map::size).register(meterRegistry);
+    }
+
+    private record State(double delta, boolean retired, boolean sealed) {
+    }
+
+    private static final class Cell {
+
+        private final String householdId;
+        private final AtomicReference<State> state;
+
+        private Cell(String householdId, boolean sealed) {
+            this.householdId = householdId;
+            this.state = new AtomicReference<>(new State(0, false, sealed));
+        }
+    }
+
+    public boolean isWriteBehind() {
+        return writeBehind && running;
+    }
+
+    /**
+     * Buffers a delta for one lot. Returns false when write-behind is off or the lot is
+     * sealed for archiving, and the caller should write through instead.
+     */
+    public boolean add(String householdId, String lotId, double delta) {
+        if (!isWriteBehind() || !accumulate(householdId, lotId, delta)) {
+            return false;
+        }
+        bufferedAdjustments.increment();
+        if (buffered.incrementAndGet() >= flushSize && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(this::flush);
+        }
+        return true;
+    }
+
+    /**
+     * Sum of deltas accepted for a lot but not yet written to Mongo.
+     */
+    public double pending(String lotId) {
+        Cell open = cells.get(lotId);
+        Cell draining = flushing.get(lotId);
+        double total = open != null ? open.state.get().delta() : 0;
+        if (draining != null && draining != open) {
+            total += draining.state.get().delta();
+        }
+        return total;
+    }
+
+    /**
+     * Non-zero {@link #pending} deltas of one household's lots, by lot id.
+     */
+    public Map<String, Double> pendingFor(String householdId) {
+        Set<String> lotIds = new HashSet<>();
+        cells.forEach((id, cell) -> {
+            if (householdId.equals(cell.householdId)) {
+                lotIds.add(id);
+            }
+        });
+        flushing.forEach((id, cell) -> {
+            if (householdId.equals(cell.householdId)) {
+                lotIds.add(id);
+            }
+        });
+        Map<String, Double> deltas = new HashMap<>();
+        for (String lotId : lotIds) {
+            double delta = pending(lotId);
+            if (delta != 0) {
+                deltas.put(lotId, delta);
+            }
+        }
+        return deltas;
+    }
+
+    public boolean hasPending(String lotId) {
+        Cell open = cells.get(lotId);
+        return (open != null && !open.state.get().sealed()) || flushing.containsKey(lotId);
+    }
+
+    /**
+     * Drops the deltas buffered for a household's lot, for an update that sets its quantity
+     * outright. Holding the flush lock means none of them is half written.
+     *
+     * @return the discarded sum
+     */
+    public synchronized double discard(String householdId, String lotId) {
+        Cell open = cells.get(lotId);
+        if (open == null || !open.householdId.equals(householdId)) {
+            return 0;
+        }
+        State discarded = open.state.getAndUpdate(state -> state.sealed() ? state : new State(0, true, false));
+        if (discarded.sealed()) {
+            return 0;
+        }
+        cells.remove(lotId, open);
+        return discarded.delta();
+    }
+
+    /**
+     * Seals lots that have nothing buffered so that {@link #add} turns them away until
+     * {@link #unseal} and their adjustments are written through. The archive sweep seals
+     * the lots it moves; a delta buffered behind it would be flushed to a deleted lot.
+     *
+     * @return the ids that were sealed; the others have pending deltas
+     */
+    public synchronized Set<String> seal(Collection<String> lotIds) {
+        Set<String> sealed = new HashSet<>();
+        for (String lotId : lotIds) {
+            if (cells.putIfAbsent(lotId, new Cell(null, true)) == null) {
+                sealed.add(lotId);
+            }
+        }
+        return sealed;
+    }
+
+    public synchronized void unseal(Collection<String> lotIds) {
+        for (String lotId : lotIds) {
+            cells.computeIfPresent(lotId, (id, cell) -> cell.state.get().sealed() ? null : cell);
+        }
+    }
+
+    /**
+     * Token for a consistent read: take it before loading lots, apply {@link #pending} and
+     * check {@link #isStable(long)} afterwards. If a flush completed in between, the loaded
+     * document and the pending delta may overlap and the read should be retried.
+     */
+    public long epoch() {
+        return epoch.get();
+    }
+
+    public boolean isStable(long readEpoch) {
+        return (readEpoch & 1) == 0 && epoch.get() == readEpoch;
+    }
+
+    /**
+     * Writes deltas straight to Mongo, keeping totals, the replica and cached list results
+     * in step. Only the bulk write itself can fail the call: if some of its updates fail, the
+     * others still get their bookkeeping before the {@link BulkOperationException} is
+     * rethrown. Bookkeeping failures after the write are logged and never rethrown, since the
+     * deltas are already stored; reconciliation and the change stream repair what they missed.
+     *
+     * @return ids of the lots that matched and were updated
+     */
+    public List<String> write(String householdId, Map<String, Double> deltas) {
+        Map<String, String> householdOf = new HashMap<>();
+        deltas.keySet().forEach(id -> householdOf.put(id, householdId));
+        return write(deltas, householdOf);
+    }
+
+    List<String> write(Map<String, Double> deltas, Map<String, String> householdOf) {
+        if (deltas.isEmpty()) {
+            return List.of();
+        }
+
+        Instant now = Instant.now();
+        List<String> ids = new ArrayList<>(deltas.keySet());
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, PantryLot.class);
+        for (String id : ids) {
+            bulk.updateOne(Query.query(Criteria.where("_id").is(id).and("householdId").is(householdOf.get(id))),
+                    new Update().inc("quantity", deltas.get(id)).set("updatedAt", now));
+        }
+
+        BulkOperationException failure = null;
+        BulkWriteResult result;
+        List<String> applied = ids;
+        try {
+            result = bulk.execute();
+        } catch (BulkOperationException ex) {
+            failure = ex;
+            result = ex.getResult();
+            applied = new ArrayList<>(ids);
+            applied.removeAll(failedIds(ids, ex));
+        }
+
+        List<String> updated = afterWrite(applied, deltas, result);
+        if (failure != null) {
+            throw failure;
+        }
+        if (result.getMatchedCount() < ids.size()) {
+            log.warn("Dropped adjustments for {} unknown pantry lots", ids.size() - result.getMatchedCount());
+        }
+        return updated;
+    }
+
+    /**
+     * Applies the stored deltas to the totals, replica and change feed.
+     */
+    private List<String> afterWrite(List<String> applied, Map<String, Double> deltas, BulkWriteResult result) {
+        if (applied.isEmpty()) {
+            return List.of();
+        }
+
+        List<PantryLot> updated;
+        try {
+            updated = mongoTemplate.find(Query.query(Criteria.where("_id").in(applied)), PantryLot.class);
+        } catch (RuntimeException ex) {
+            log.warn("Could not read back {} adjusted pantry lots, leaving their totals to reconciliation: {}",
+                    applied.size(), ex.getMessage());
+            listCoalescer.invalidate();
+            return result.getMatchedCount() > 0 ? applied : List.of();
+        }
+
+        for (PantryLot lot : updated) {
+            try {
+                pantryTotalsService.applyAdjustment(lot, deltas.get(lot.getId()));
+                pantryReplica.upsert(lot);
+            } catch (RuntimeException ex) {
+                log.warn("Could not update totals for adjusted pantry lot {}, leaving them to reconciliation: {}",
+                        lot.getId(), ex.getMessage());
+            }
+        }
+        listCoalescer.invalidate();
+        for (PantryLot lot : updated) {
+            try {
+                changeEventService.publish(lot.getHouseholdId(), ChangeEvent.PANTRY_LOT, lot.getId(),
+                        ChangeEvent.Operation.UPDATED, lot.getUpdatedAt());
+            } catch (RuntimeException ex) {
+                log.warn("Could not publish adjustment of pantry lot {}: {}", lot.getId(), ex.getMessage());
+            }
+        }
+        return updated.stream().map(PantryLot::getId).toList();
+    }
+
+    private static List<String> failedIds(List<String> ids, BulkOperationException ex) {
+        List<String> failed = new ArrayList<>();
+        for (BulkWriteError error : ex.getErrors()) {
+            failed.add(ids.get(error.getIndex()));
+        }
+        return failed;
+    }
+
+    public synchronized void flush() {
+        flushRequested.set(false);
+        if (cells.isEmpty()) {
+            return;
+        }
+
+        Map<String, Double> deltas = new HashMap<>();
+        Map<String, String> householdOf = new HashMap<>();
+        epoch.incrementAndGet();
+        try {
+            for (Map.Entry<String, Cell> entry : cells.entrySet()) {
+                Cell cell = entry.getValue();
+                if (cell.state.get().sealed()) {
+                    continue;
+                }
+                flushing.put(entry.getKey(), cell);
+                State drained = cell.state.getAndUpdate(state -> new State(state.delta(), true, false));
+                cells.remove(entry.getKey(), cell);
+                if (drained.delta() != 0) {
+                    deltas.put(entry.getKey(), drained.delta());
+                    householdOf.put(entry.getKey(), cell.householdId);
+                }
+            }
+            buffered.set(cells.size());
+
+            // write() only throws when the bulk write fails, so a re-queued delta was never stored
+            try {
+                write(deltas, householdOf);
+                flushes.increment();
+            } catch (BulkOperationException ex) {
+                List<String> failed = failedIds(new ArrayList<>(deltas.keySet()), ex);
+                log.warn("Pantry adjustment flush partially failed, re-queueing {} lots", failed.size());
+                failed.forEach(id -> requeue(householdOf.get(id), id, deltas.get(id)));
+            } catch (RuntimeException ex) {
+                log.warn("Pantry adjustment flush failed, re-queueing {} lots: {}", deltas.size(), ex.getMessage());
+                deltas.forEach((id, delta) -> requeue(householdOf.get(id), id, delta));
+            }
+        } finally {
+            flushing.clear();
+            epoch.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        if (!writeBehind) {
+            return;
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "pantry-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, flushInterval.toMillis(), flushInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (flusher != null) {
+            flusher.shutdown();
+            try {
+                flusher.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            flush();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Stops after the web server so no request can buffer a delta behind the final flush.
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void requeue(String householdId, String lotId, double delta) {
+        if (!accumulate(householdId, lotId, delta)) {
+            log.warn("Dropped a re-queued adjustment for pantry lot {} sealed for archiving", lotId);
+        }
+    }
+
+    /**
+     * Adds to the lot's open cell. Returns false, without adding, when the lot is sealed.
+     */
+    private boolean accumulate(String householdId, String lotId, double delta) {
+        while (true) {
+            Cell cell = cells.computeIfAbsent(lotId, id -> new Cell(householdId, false));
+            State current = cell.state.get();
+            while (!current.retired()) {
+                if (current.sealed()) {
+                    return false;
+                }
+                if (cell.state.compareAndSet(current, new State(current.delta() + delta, false, false))) {
+                    return true;
+                }
+                current = cell.state.get();
+            }
+            // The flusher took this cell; drop it from the map and start a fresh one
+            cells.remove(lotId, cell);
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package com.mealplanner.service;
+
+import com.mealplanner.dto.ChangeEvent;
+import com.mealplanner.dto.PantryLotListResponse;
+import com.mealplanner.exception.InvalidParameterException;
+import com.mealplanner.model.PantryLot;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.DoublePredicate;
+
+/**
+ * Expiry queries over {@code pantryLots.expiresAt} and the sweeper that moves expired or
+ * depleted lots to {@code pantryLotsArchive}. Both are served by indexes from the
+ * {@link IndexCatalog}: household queries by {@code householdId, expiresAt}; the sweep runs
+ * across all households on a sparse {@code expiresAt} index and a partial one covering only
+ * depleted lots.
+ */
+@Slf4j
+@Service
+public class PantryExpiryService {
+
+    public static final String ARCHIVE_COLLECTION = "pantryLotsArchive";
+
+    private final MongoTemplate mongoTemplate;
+    private final PantryTotalsService pantryTotalsService;
+    private final PantryReplica pantryReplica;
+    private final PantryAdjustmentBuffer adjustmentBuffer;
+    private final RequestCoalescer<PantryLotService.ListKey, PantryLotListResponse> listCoalescer;
+    private final ChangeEventService changeEventService;
+    private final HouseholdService householdService;
+    private final Counter archived;
+
+    @Value("${mealplanner.pantry.archive.enabled:true}")
+    private boolean archiveEnabled;
+
+    @Value("${mealplanner.pantry.archive.batch-size:500}")
+    private int batchSize;
+
+    @Value("${mealplanner.pantry.archive.max-batches:20}")
+    private int maxBatches;
+
+    @Value("${mealplanner.pantry.archive.expired-grace:7d}")
+    private Duration expiredGrace;
+
+    @Value("${mealplanner.pantry.archive.depleted-grace:1d}")
+    private Duration depletedGrace;
+
+    public PantryExpiryService(MongoTemplate mongoTemplate,
+                               PantryTotalsService pantryTotalsService,
+                               PantryReplica pantryReplica,
+                               PantryAdjustmentBuffer adjustmentBuffer,
+                               RequestCoalescer<PantryLotService.ListKey, PantryLotListResponse> listCoalescer,
+                               ChangeEventService changeEventService,
+                               HouseholdService householdService,
+                               MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.pantryTotalsService = pantryTotalsService;
+        this.pantryReplica = pantryReplica;
+        this.adjustmentBuffer = adjustmentBuffer;
+        this.listCoalescer = listCoalescer;
+        this.changeEventService = changeEventService;
+        this.householdService = householdService;
+        this.archived = Counter.builder("mealplanner.pantry.archive.lots").register(meterRegistry);
+    }
+
+    /**
+     * Parses a look-ahead window such as {@code 3d}, {@code 12h} or {@code P7D}.
+     */
+    public static Duration parseWindow(String within) {
+        try {
+            Duration window = DurationStyle.detectAndParse(within);
+            if (window.isNegative()) {
+                throw new InvalidParameterException("within", "Window must not be negative");
+            }
+            return window;
+        } catch (IllegalArgumentException | DateTimeParseException ex) {
+            throw new InvalidParameterException("within", "Invalid duration: " + within);
+        }
+    }
+
+    /**
+     * Lots with stock left that expire before {@code now + within}, soonest first. Lots that
+     * already expired are included until the sweeper archives them. Stock counts adjustments
+     * still waiting in the write-behind buffer.
+     */
+    public List<PantryLot> findExpiring(String householdId, Duration within, int limit) {
+        Map<String, Double> pending = adjustmentBuffer.pendingFor(householdId);
+        // Over-fetch by the lots a buffered delta may empty, as they are filtered out below
+        int emptied = lotIds(pending, delta -> delta < 0).size();
+        Query query = expiringQuery(householdId, within, pending)
+                .with(Sort.by(Sort.Direction.ASC, "expiresAt"))
+                .limit(limit + emptied);
+        List<PantryLot> lots = mongoTemplate.find(query, PantryLot.class).stream()
+                .filter(lot -> inStock(lot, pending))
+                .toList();
+        return lots.size() > limit ? lots.subList(0, limit) : lots;
+    }
+
+    public long countExpiring(String householdId, Duration within) {
+        Map<String, Double> pending = adjustmentBuffer.pendingFor(householdId);
+        Query query = expiringQuery(householdId, within, pending);
+        long count = mongoTemplate.count(query, PantryLot.class);
+
+        List<String> emptied = lotIds(pending, delta -> delta < 0);
+        if (!emptied.isEmpty()) {
+            count -= mongoTemplate.find(query.addCriteria(Criteria.where("_id").in(emptied)), PantryLot.class).stream()
+                    .filter(lot -> !inStock(lot, pending))
+                    .count();
+        }
+        return count;
+    }
+
+    /**
+     * Lots in stock by their stored quantity, plus lots only buffered adjustments restock.
+     * Callers drop the lots buffered adjustments empty with {@link #inStock}.
+     */
+    private Query expiringQuery(String householdId, Duration within, Map<String, Double> pending) {
+        Criteria inStock = Criteria.where("quantity").gt(0);
+        List<String> restocked = lotIds(pending, delta -> delta > 0);
+        if (!restocked.isEmpty()) {
+            inStock = new Criteria().orOperator(inStock, Criteria.where("_id").in(restocked));
+        }
+        return Query.query(Criteria.where("householdId").is(householdId)
+                .and("expiresAt").lte(Instant.now().plus(within))
+                .andOperator(inStock));
+    }
+
+    private static boolean inStock(PantryLot lot, Map<String, Double> pending) {
+        return lot.getQuantity() + pending.getOrDefault(lot.getId(), 0.0) > 0;
+    }
+
+    private static List<String> lotIds(Map<String, Double> pending, DoublePredicate matching) {
+        return pending.entrySet().stream()
+                .filter(entry -> matching.test(entry.getValue()))
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    @Scheduled(initialDelayString = "${mealplanner.pantry.archive.initial-delay:PT2M}",
+            fixedDelayString = "${mealplanner.pantry.archive.interval:PT1H}")
+    public void scheduledArchive() {
+        if (!archiveEnabled) {
+            return;
+        }
+        try {
+            archiveStaleLots();
+        } catch (RuntimeException ex) {
+            log.warn("Pantry archive sweep failed: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * Moves lots that expired more than the grace period ago, or have been empty for longer
+     * than theirs, to the archive collection in batches. Lots with buffered adjustments are
+     * left for the next run.
+     *
+     * @return number of lots archived
+     */
+    public int archiveStaleLots() {
+        Set<Object> skipped = new HashSet<>();
+        int total = 0;
+
+        for (int batch = 0; batch < maxBatches; batch++) {
+            Instant now = Instant.now();
+            Criteria stale = staleCriteria(now);
+            Query query = Query.query(skipped.isEmpty() ? stale
+                    : new Criteria().andOperator(stale, Criteria.where("_id").nin(skipped))).limit(batchSize);
+            List<Document> candidates = mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(PantryLot.class));
+            if (candidates.isEmpty()) {
+                break;
+            }
+
+            // Sealed lots turn buffered adjustments away until the batch is done, so none can be
+            // flushed after its lot was moved
+            Set<String> sealed = adjustmentBuffer.seal(
+                    candidates.stream().map(candidate -> candidate.get("_id").toString()).toList());
+            try {
+                List<Document> ready = new ArrayList<>();
+                for (Document candidate : candidates) {
+                    if (sealed.contains(candidate.get("_id").toString())) {
+                        ready.add(candidate);
+                    } else {
+                        skipped.add(candidate.get("_id"));
+                    }
+                }
+                total += archiveBatch(ready, stale, now);
+            } finally {
+                adjustmentBuffer.unseal(sealed);
+            }
+
+            if (candidates.size() < batchSize) {
+                break;
+            }
+        }
+
+        if (total > 0) {
+            archived.increment(total);
+            listCoalescer.invalidate();
+            log.info("Archived {} expired or depleted pantry lots", total);
+        }
+        return total;
+    }
+
+    private int archiveBatch(List<Document> lots, Criteria stale, Instant now) {
+        if (lots.isEmpty()) {
+            return 0;
+        }
+
+        // Copy first, then delete each lot only if it still matches, so a lot edited in between
+        // stays in the hot collection; its premature archive copy is removed again below
+        BulkOperations copy = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ARCHIVE_COLLECTION);
+        for (Document lot : lots) {
+            Document archivedLot = new Document(lot).append("archivedAt", now);
+            copy.replaceOne(Query.query(Criteria.where("_id").is(lot.get("_id"))), archivedLot,
+                    FindAndReplaceOptions.options().upsert());
+        }
+        copy.execute();
+
+        // Removed one at a time so that only lots this sweep deleted touch totals and the feed;
+        // a lot the user deleted or edited in the meantime is not counted again
+        String collection = mongoTemplate.getCollectionName(PantryLot.class);
+        List<Object> notRemoved = new ArrayList<>();
+        int count = 0;
+        for (Document lot : lots) {
+            Document removedDocument = mongoTemplate.findAndRemove(
+                    Query.query(new Criteria().andOperator(stale, Criteria.where("_id").is(lot.get("_id")))),
+                    Document.class, collection);
+            if (removedDocument == null) {
+                notRemoved.add(lot.get("_id"));
+                continue;
+            }
+            if (!removedDocument.equals(lot)) {
+                // Changed but still stale, e.g. adjusted further; archive what was removed
+                mongoTemplate.findAndReplace(Query.query(Criteria.where("_id").is(lot.get("_id"))),
+                        new Document(removedDocument).append("archivedAt", now),
+                        FindAndReplaceOptions.options().upsert(), Document.class, ARCHIVE_COLLECTION);
+            }
+
+            PantryLot removed = mongoTemplate.getConverter().read(PantryLot.class, removedDocument);
+            pantryTotalsService.applyChange(pantryTotalsService.contributionOf(removed), null);
+            pantryReplica.remove(removed.getId());
+            householdService.releasePantryLot(removed.getHouseholdId());
+            changeEventService.publish(removed.getHouseholdId(), ChangeEvent.PANTRY_LOT, removed.getId(),
+                    ChangeEvent.Operation.DELETED, now);
+            count++;
+        }
+        if (!notRemoved.isEmpty()) {
+            mongoTemplate.remove(Query.query(Criteria.where("_id").in(notRemoved)), ARCHIVE_COLLECTION);
+        }
+        return count;
+    }
+
+    private Criteria staleCriteria(Instant now) {
+        return new Criteria().orOperator(
+                Criteria.where("expiresAt").lt(now.minus(expiredGrace)),
+                Criteria.where("quantity").lte(0).and("updatedAt").lt(now.minus(depletedGrace)));
+    }
+}
@@ -0,0 +1,75 @@
+package com.mealplanner.service;
+
+import com.mealplanner.model.PantryLot;
+import org.bson.Document;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * PantryLot v1 to v2: moves expiry and opened dates that were kept in the free-form
+ * {@code metadata} map into the first-class {@code expiresAt} and {@code openedAt} fields.
+ * Values that cannot be read as a date stay in metadata.
+ */
+@Component
+public class PantryLotExpiryMigration implements DocumentMigration {
+
+    private static final List<String> EXPIRY_KEYS = List.of("expiresAt", "expiryDate", "expires", "bestBefore");
+    private static final List<String> OPENED_KEYS = List.of("openedAt", "openedDate", "opened");
+
+    @Override
+    public Class<?> entityType() {
+        return PantryLot.class;
+    }
+
+    @Override
+    public int fromVersion() {
+        return 1;
+    }
+
+    @Override
+    public void migrate(Document document) {
+        if (!(document.get("metadata") instanceof Document metadata)) {
+            return;
+        }
+        promote(document, metadata, EXPIRY_KEYS, "expiresAt");
+        promote(document, metadata, OPENED_KEYS, "openedAt");
+    }
+
+    private void promote(Document document, Document metadata, List<String> keys, String field) {
+        for (String key : keys) {
+            Date date = toDate(metadata.get(key));
+            if (date != null) {
+                if (document.get(field) == null) {
+                    document.put(field, date);
+                }
+                metadata.remove(key);
+                return;
+            }
+        }
+    }
+
+    private Date toDate(Object value) {
+        if (value instanceof Date date) {
+            return date;
+        }
+        if (!(value instanceof String text) || text.isBlank()) {
+            return null;
+        }
+        try {
+            return Date.from(Instant.parse(text.trim()));
+        } catch (DateTimeParseException ignored) {
+            // Fall through to a plain date
+        }
+        try {
+            return Date.from(LocalDate.parse(text.trim()).atStartOfDay(ZoneOffset.UTC).toInstant());
+        } catch (DateTimeParseException ex) {
+            return null;
+        }
+    }
+}
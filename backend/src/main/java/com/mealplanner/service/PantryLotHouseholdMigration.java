@@ -0,0 +1,29 @@
+package com.mealplanner.service;
+
+import com.mealplanner.model.PantryLot;
+import org.bson.Document;
+import org.springframework.stereotype.Component;
+
+/**
+ * PantryLot v2 to v3: documents written before households existed belong to the default household.
+ */
+@Component
+public class PantryLotHouseholdMigration implements DocumentMigration {
+
+    @Override
+    public Class<?> entityType() {
+        return PantryLot.class;
+    }
+
+    @Override
+    public int fromVersion() {
+        return 2;
+    }
+
+    @Override
+    public void migrate(Document document) {
+        if (!(document.get("householdId") instanceof String)) {
+            document.put("householdId", HouseholdService.DEFAULT_HOUSEHOLD);
+        }
+    }
+}
@@ -7,35 +7,68 @@ import com.mealplanner.model.PantryLotType;
 import com.mealplanner.repository.PantryLotRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
 public class PantryLotService {
 
+    static final Sort LIST_SORT = Sort.by(Sort.Direction.DESC, "updatedAt");
+
     private final PantryLotRepository pantryLotRepository;
     private final MongoTemplate mongoTemplate;
+    private final RequestCoalescer<ListKey, PantryLotListResponse> listCoalescer;
+    private final PantryReplica pantryReplica;
+    private final PantryTotalsService pantryTotalsService;
+    private final PantryAdjustmentBuffer adjustmentBuffer;
+    private final ChangeEventService changeEventService;
+    private final PantryExpiryService pantryExpiryService;
+    private final HouseholdService householdService;
 
-    public PantryLotListResponse listPantryLots(PantryLotType type, String name, int limit, int offset) {
-        Sort sort = Sort.by(Sort.Direction.DESC, "updatedAt");
+    public PantryLotListResponse listPantryLots(String householdId, PantryLotType type, String name, int limit,
+                                                int offset) {
+        return readWithPending(() -> {
+            if (pantryReplica.isFresh()) {
+                Optional<PantryReplica.Page> page = pantryReplica.list(householdId, type, name, limit, offset);
+                if (page.isPresent()) {
+                    return PantryLotListResponse.builder()
+                            .items(page.get().items().stream().map(this::toResponse).toList())
+                            .total(page.get().total())
+                            .build();
+                }
+            }
 
-        Query query = new Query();
-        if (type != null) {
-            query.addCriteria(Criteria.where("type").is(type));
-        }
-        if (name != null && !name.isBlank()) {
-            query.addCriteria(Criteria.where("nameNormalized").regex(name, "i"));
-        }
+            ListKey key = ListKey.of(householdId, type, name, limit, offset);
+            PantryLotListResponse shared = listCoalescer.execute(key, () -> queryPantryLots(key));
+            return PantryLotListResponse.builder()
+                    .items(shared.getItems().stream().map(this::withPending).toList())
+                    .total(shared.getTotal())
+                    .build();
+        });
+    }
 
+    private PantryLotListResponse queryPantryLots(ListKey key) {
+        Query query = buildListQuery(key.householdId(), key.type(), key.name());
         long total = mongoTemplate.count(query, PantryLot.class);
 
-        query.with(sort).skip(offset).limit(limit);
+        query.with(LIST_SORT).skip(key.offset()).limit(key.limit());
         List<PantryLot> items = mongoTemplate.find(query, PantryLot.class);
 
         return PantryLotListResponse.builder()
@@ -44,46 +77,216 @@ public class PantryLotService {
                 .build();
     }
 
-    public PantryLotResponse getPantryLot(String id) {
-        PantryLot pantryLot = pantryLotRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("PantryLot", id));
-        return PantryLotResponse.fromEntity(pantryLot);
+    public PantryLotResponse getPantryLot(String householdId, String id) {
+        return readWithPending(() -> toResponse(loadPantryLot(householdId, id)));
+    }
+
+    public PantryLotListResponse listExpiringPantryLots(String householdId, Duration within, int limit) {
+        return readWithPending(() -> PantryLotListResponse.builder()
+                .items(pantryExpiryService.findExpiring(householdId, within, limit).stream()
+                        .map(this::toResponse)
+                        .toList())
+                .total(pantryExpiryService.countExpiring(householdId, within))
+                .build());
     }
 
-    public PantryLotResponse createPantryLot(PantryLotCreateRequest request) {
+    public PantryLotResponse createPantryLot(String householdId, PantryLotCreateRequest request) {
         PantryLot pantryLot = PantryLot.builder()
+                .householdId(householdId)
                 .name(request.getName())
                 .nameNormalized(normalizeName(request.getName()))
                 .type(request.getType())
                 .quantity(request.getQuantity())
                 .unit(request.getUnit())
                 .metadata(request.getMetadata())
+                .expiresAt(request.getExpiresAt())
+                .openedAt(request.getOpenedAt())
                 .build();
 
-        PantryLot saved = pantryLotRepository.save(pantryLot);
+        householdService.reservePantryLot(householdId);
+        PantryLot saved;
+        try {
+            saved = pantryLotRepository.save(pantryLot);
+        } catch (RuntimeException ex) {
+            householdService.releasePantryLot(householdId);
+            throw ex;
+        }
+        pantryTotalsService.applyChange(null, pantryTotalsService.contributionOf(saved));
+        pantryReplica.upsert(saved);
+        listCoalescer.invalidate();
+        changeEventService.publish(householdId, ChangeEvent.PANTRY_LOT, saved.getId(), ChangeEvent.Operation.CREATED,
+                saved.getUpdatedAt());
         return PantryLotResponse.fromEntity(saved);
     }
 
-    public PantryLotResponse updatePantryLot(String id, PantryLotUpdateRequest request) {
-        PantryLot pantryLot = pantryLotRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("PantryLot", id));
+    /**
+     * Sets the edited fields with one conditional update, so adjustments landing concurrently
+     * are never overwritten by a stale read, and uses the document it replaced to move the
+     * totals. Buffered adjustments are discarded: the new quantity is absolute.
+     */
+    public PantryLotResponse updatePantryLot(String householdId, String id, PantryLotUpdateRequest request) {
+        adjustmentBuffer.discard(householdId, id);
 
-        pantryLot.setName(request.getName());
-        pantryLot.setNameNormalized(normalizeName(request.getName()));
-        pantryLot.setType(request.getType());
-        pantryLot.setQuantity(request.getQuantity());
-        pantryLot.setUnit(request.getUnit());
-        pantryLot.setMetadata(request.getMetadata());
+        Instant now = Instant.now();
+        Update update = new Update()
+                .set("name", request.getName())
+                .set("nameNormalized", normalizeName(request.getName()))
+                .set("type", request.getType())
+                .set("quantity", request.getQuantity())
+                .set("unit", request.getUnit())
+                .set("metadata", request.getMetadata())
+                .set("expiresAt", request.getExpiresAt())
+                .set("openedAt", request.getOpenedAt())
+                .set("updatedAt", now);
+        PantryLot previous = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(id).and("householdId").is(householdId)), update,
+                FindAndModifyOptions.options().returnNew(false), PantryLot.class);
+        if (previous == null) {
+            throw new ResourceNotFoundException("PantryLot", id);
+        }
 
-        PantryLot saved = pantryLotRepository.save(pantryLot);
+        PantryLot saved = previous.toBuilder()
+                .name(request.getName())
+                .nameNormalized(normalizeName(request.getName()))
+                .type(request.getType())
+                .quantity(request.getQuantity())
+                .unit(request.getUnit())
+                .metadata(request.getMetadata())
+                .expiresAt(request.getExpiresAt())
+                .openedAt(request.getOpenedAt())
+                .updatedAt(now)
+                .build();
+        pantryTotalsService.applyChange(pantryTotalsService.contributionOf(previous),
+                pantryTotalsService.contributionOf(saved));
+        pantryReplica.upsert(saved);
+        listCoalescer.invalidate();
+        changeEventService.publish(householdId, ChangeEvent.PANTRY_LOT, saved.getId(), ChangeEvent.Operation.UPDATED,
+                saved.getUpdatedAt());
         return PantryLotResponse.fromEntity(saved);
     }
 
-    public void deletePantryLot(String id) {
-        if (!pantryLotRepository.existsById(id)) {
+    public void deletePantryLot(String householdId, String id) {
+        PantryLot pantryLot = mongoTemplate.findAndRemove(
+                Query.query(Criteria.where("_id").is(id).and("householdId").is(householdId)), PantryLot.class);
+        if (pantryLot == null) {
             throw new ResourceNotFoundException("PantryLot", id);
         }
-        pantryLotRepository.deleteById(id);
+        householdService.releasePantryLot(householdId);
+        pantryTotalsService.applyChange(pantryTotalsService.contributionOf(pantryLot), null);
+        pantryReplica.remove(id);
+        listCoalescer.invalidate();
+        changeEventService.publish(householdId, ChangeEvent.PANTRY_LOT, id, ChangeEvent.Operation.DELETED, null);
+    }
+
+    public PantryLotResponse adjustPantryLot(String householdId, String id, double delta) {
+        loadPantryLot(householdId, id);
+        // The buffer publishes the change once the flush has written it
+        if (!adjustmentBuffer.add(householdId, id, delta)
+                && adjustmentBuffer.write(householdId, Map.of(id, delta)).isEmpty()) {
+            throw new ResourceNotFoundException("PantryLot", id);
+        }
+        return getPantryLot(householdId, id);
+    }
+
+    public PantryBulkAdjustResponse adjustPantryLots(String householdId, PantryBulkAdjustRequest request) {
+        Map<String, Double> deltas = new HashMap<>();
+        for (PantryBulkAdjustRequest.Adjustment adjustment : request.getAdjustments()) {
+            deltas.merge(adjustment.getId(), adjustment.getDelta(), Double::sum);
+        }
+        // Lot ids are global; adjustments to another household's lots are dropped like unknown ids
+        deltas.keySet().retainAll(ownedLotIds(householdId, deltas.keySet()));
+
+        // Deltas the buffer turns away, e.g. while it shuts down, are written through instead
+        Map<String, Double> unbuffered = new HashMap<>();
+        deltas.forEach((id, delta) -> {
+            if (!adjustmentBuffer.add(householdId, id, delta)) {
+                unbuffered.put(id, delta);
+            }
+        });
+        adjustmentBuffer.write(householdId, unbuffered);
+        return PantryBulkAdjustResponse.builder()
+                .accepted(deltas.size())
+                .buffered(!deltas.isEmpty() && unbuffered.isEmpty())
+                .build();
+    }
+
+    private PantryLot loadPantryLot(String householdId, String id) {
+        Optional<PantryLot> replicated = pantryReplica.isFresh() ? pantryReplica.find(householdId, id) : Optional.empty();
+        return replicated.or(() -> pantryLotRepository.findByIdAndHouseholdId(id, householdId))
+                .orElseThrow(() -> new ResourceNotFoundException("PantryLot", id));
+    }
+
+    private Set<String> ownedLotIds(String householdId, Collection<String> ids) {
+        if (pantryReplica.isFresh()) {
+            Set<String> owned = new HashSet<>();
+            for (String id : ids) {
+                pantryReplica.find(householdId, id).ifPresent(lot -> owned.add(id));
+            }
+            return owned;
+        }
+        Query query = Query.query(Criteria.where("_id").in(ids).and("householdId").is(householdId));
+        query.fields().include("_id");
+        Set<String> owned = new HashSet<>();
+        for (PantryLot lot : mongoTemplate.find(query, PantryLot.class)) {
+            owned.add(lot.getId());
+        }
+        return owned;
+    }
+
+    private PantryLotResponse toResponse(PantryLot pantryLot) {
+        return withPending(PantryLotResponse.fromEntity(pantryLot));
+    }
+
+    /**
+     * Overlays adjustments still sitting in the write-behind buffer. Shared responses are
+     * never mutated, a copy is returned instead.
+     */
+    private PantryLotResponse withPending(PantryLotResponse response) {
+        double pending = adjustmentBuffer.pending(response.getId());
+        if (pending == 0) {
+            return response;
+        }
+        PantryLotResponse adjusted = response.toBuilder().build();
+        adjusted.setQuantity(response.getQuantity() + pending);
+        return adjusted;
+    }
+
+    /**
+     * Retries a read that raced a write-behind flush, so a delta is never counted both in
+     * the stored quantity and in the pending overlay.
+     */
+    private <T> T readWithPending(Supplier<T> read) {
+        for (int attempt = 1; ; attempt++) {
+            long epoch = adjustmentBuffer.epoch();
+            T result = read.get();
+            if (adjustmentBuffer.isStable(epoch) || attempt == 3) {
+                return result;
+            }
+        }
+    }
+
+    static Query buildListQuery(String householdId, PantryLotType type, String name) {
+        Query query = Query.query(Criteria.where("householdId").is(householdId));
+        if (type != null) {
+            query.addCriteria(Criteria.where("type").is(type));
+        }
+        if (name != null && !name.isBlank()) {
+            query.addCriteria(Criteria.where("nameNormalized").regex(name, "i"));
+        }
+        return query;
+    }
+
+    /**
+     * Normalized list parameters used as the coalescing key. Blank filters are treated as
+     * absent by the query, so they collapse to null here as well.
+     */
+    public record ListKey(String householdId, PantryLotType type, String name, int limit, int offset) {
+
+        static ListKey of(String householdId, PantryLotType type, String name, int limit, int offset) {
+            return new ListKey(householdId, type,
+                    name != null && !name.isBlank() ? name : null,
+                    limit, offset);
+        }
     }
 
     private String normalizeName(String name) {
@@ -0,0 +1,456 @@
+package com.mealplanner.service;
+
+import com.mealplanner.model.PantryLot;
+import com.mealplanner.model.PantryLotType;
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriterSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import java.util.stream.Stream;
+
+/**
+ * Full in-memory copy of {@code pantryLots}, warmed with one streaming read and kept current
+ * by a change stream. Lots are partitioned by household, and each household is an immutable
+ * snapshot of its lots by id and in list order. A change copies the one household it touches
+ * under the single writer lock and publishes the copy, so reads never lock, always see a
+ * household whole, and cost nothing more as other households grow. A change carrying an
+ * older {@code updatedAt} than the replica's copy is ignored. The replica only answers while
+ * the change stream is live; otherwise callers fall back to Mongo.
+ */
+@Slf4j
+@Service
+public class PantryReplica implements SmartLifecycle {
+
+    private static final int CHANGE_STREAM_HISTORY_LOST = 286;
+    private static final int CHANGE_STREAM_FATAL = 280;
+
+    private static final JsonWriterSettings EXTENDED_JSON = JsonWriterSettings.builder()
+            .outputMode(JsonMode.EXTENDED)
+            .build();
+
+    /** {@link PantryLotService#LIST_SORT}, with the id breaking ties so every lot has its own key. */
+    private static final Comparator<PantryLot> NEWEST_FIRST = Comparator
+            .comparing(PantryLot::getUpdatedAt, Comparator.nullsLast(Comparator.<Instant>reverseOrder()))
+            .thenComparing(PantryLot::getId);
+
+    private final MongoTemplate mongoTemplate;
+    private final MigrationRegistry migrationRegistry;
+
+    @Value("${mealplanner.pantry-replica.enabled:true}")
+    private boolean enabled;
+
+    @Value("${mealplanner.pantry-replica.max-lag:5s}")
+    private Duration maxLag;
+
+    @Value("${mealplanner.pantry-replica.snapshot-path:}")
+    private String snapshotPath;
+
+    /** Null until warmed or restored. */
+    private volatile Households households;
+    private volatile BsonDocument resumeToken;
+    private volatile boolean live;
+    private volatile long lastPolledNanos;
+    private volatile boolean running;
+    private Thread worker;
+
+    public PantryReplica(MongoTemplate mongoTemplate, MigrationRegistry migrationRegistry, MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.migrationRegistry = migrationRegistry;
+        Gauge.builder("mealplanner.pantry.replica.size", this, r -> r.households != null ? r.households.householdOf().size() : 0)
+                .register(meterRegistry);
+        Gauge.builder("mealplanner.pantry.replica.fresh", this, r -> r.isFresh() ? 1 : 0)
+                .register(meterRegistry);
+    }
+
+    /**
+     * One household's lots by id and in list order. Never modified once published; a write
+     * replaces the whole record, so a reader's items and total always come from one version.
+     */
+    private record HouseholdLots(Map<String, PantryLot> byId, List<PantryLot> newestFirst) {
+
+        static HouseholdLots of(List<PantryLot> lots) {
+            Map<String, PantryLot> byId = new HashMap<>();
+            lots.forEach(lot -> byId.put(lot.getId(), lot));
+            List<PantryLot> ordered = new ArrayList<>(lots);
+            ordered.sort(NEWEST_FIRST);
+            return new HouseholdLots(Collections.unmodifiableMap(byId), Collections.unmodifiableList(ordered));
+        }
+
+        HouseholdLots with(PantryLot lot) {
+            Map<String, PantryLot> ids = new HashMap<>(byId);
+            PantryLot previous = ids.put(lot.getId(), lot);
+            List<PantryLot> ordered = new ArrayList<>(newestFirst);
+            if (previous != null) {
+                ordered.remove(Collections.binarySearch(ordered, previous, NEWEST_FIRST));
+            }
+            int position = Collections.binarySearch(ordered, lot, NEWEST_FIRST);
+            ordered.add(position < 0 ? -position - 1 : position, lot);
+            return new HouseholdLots(Collections.unmodifiableMap(ids), Collections.unmodifiableList(ordered));
+        }
+
+        HouseholdLots without(String id) {
+            PantryLot previous = byId.get(id);
+            if (previous == null) {
+                return this;
+            }
+            Map<String, PantryLot> ids = new HashMap<>(byId);
+            ids.remove(id);
+            List<PantryLot> ordered = new ArrayList<>(newestFirst);
+            ordered.remove(Collections.binarySearch(ordered, previous, NEWEST_FIRST));
+            return new HouseholdLots(Collections.unmodifiableMap(ids), Collections.unmodifiableList(ordered));
+        }
+    }
+
+    /**
+     * The current snapshot of every household, plus the household of every lot so change
+     * events that only carry an id can be routed. Only the writer changes either map.
+     */
+    private record Households(Map<String, HouseholdLots> byHousehold, Map<String, String> householdOf) {
+
+        static Households of(Map<String, PantryLot> lots) {
+            Map<String, List<PantryLot>> grouped = new HashMap<>();
+            Households households = new Households(new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+            lots.forEach((id, lot) -> {
+                grouped.computeIfAbsent(lot.getHouseholdId(), household -> new ArrayList<>()).add(lot);
+                households.householdOf().put(id, lot.getHouseholdId());
+            });
+            grouped.forEach((household, members) -> households.byHousehold().put(household, HouseholdLots.of(members)));
+            return households;
+        }
+    }
+
+    public record Page(List<PantryLot> items, long total) {
+    }
+
+    public boolean isFresh() {
+        return live
+                && households != null
+                && System.nanoTime() - lastPolledNanos < maxLag.toNanos();
+    }
+
+    public Optional<PantryLot> find(String householdId, String id) {
+        Households current = households;
+        if (current == null) {
+            return Optional.empty();
+        }
+        HouseholdLots lots = current.byHousehold().get(householdId);
+        return lots == null ? Optional.empty() : Optional.ofNullable(lots.byId().get(id));
+    }
+
+    /**
+     * Answers a list query from the snapshot, or empty if the name filter is not a pattern
+     * Java can evaluate the way Mongo would.
+     */
+    public Optional<Page> list(String householdId, PantryLotType type, String name, int limit, int offset) {
+        Households current = households;
+        if (current == null) {
+            return Optional.empty();
+        }
+
+        Pattern namePattern = null;
+        if (name != null && !name.isBlank()) {
+            try {
+                namePattern = Pattern.compile(name, Pattern.CASE_INSENSITIVE);
+            } catch (PatternSyntaxException ex) {
+                return Optional.empty();
+            }
+        }
+
+        Pattern filter = namePattern;
+        HouseholdLots lots = current.byHousehold().get(householdId);
+        if (lots == null) {
+            return Optional.of(new Page(List.of(), 0));
+        }
+        List<PantryLot> matching = lots.newestFirst().stream()
+                .filter(lot -> type == null || type == lot.getType())
+                .filter(lot -> filter == null
+                        || (lot.getNameNormalized() != null && filter.matcher(lot.getNameNormalized()).find()))
+                .toList();
+
+        List<PantryLot> page = matching.stream()
+                .skip(offset)
+                .limit(limit)
+                .toList();
+        return Optional.of(new Page(page, matching.size()));
+    }
+
+    /**
+     * Applies a local write straight away so this instance reads its own writes before the
+     * change stream echoes them back.
+     */
+    public void upsert(PantryLot lot) {
+        if (households != null) {
+            apply(lot.getId(), lot);
+        }
+    }
+
+    public void remove(String id) {
+        if (households != null) {
+            apply(id, null);
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::run, "pantry-replica");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+            try {
+                worker.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        persistSnapshot();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void run() {
+        long backoffMillis = 1_000;
+        loadPersistedSnapshot();
+
+        while (running) {
+            try {
+                follow();
+                backoffMillis = 1_000;
+            } catch (MongoCommandException ex) {
+                if (ex.getErrorCode() == CHANGE_STREAM_HISTORY_LOST || ex.getErrorCode() == CHANGE_STREAM_FATAL) {
+                    log.info("Pantry replica resume point is gone, reloading: {}", ex.getErrorMessage());
+                    resumeToken = null;
+                } else {
+                    log.warn("Pantry replica change stream failed: {}", ex.getErrorMessage());
+                }
+                backoffMillis = sleep(backoffMillis);
+            } catch (RuntimeException ex) {
+                if (running) {
+                    log.warn("Pantry replica change stream failed: {}", ex.getMessage());
+                    backoffMillis = sleep(backoffMillis);
+                }
+            }
+        }
+    }
+
+    private void follow() {
+        ChangeStreamIterable<Document> changeStream = mongoTemplate.getCollection(mongoTemplate.getCollectionName(PantryLot.class))
+                .watch()
+                .fullDocument(FullDocument.UPDATE_LOOKUP)
+                .maxAwaitTime(1, TimeUnit.SECONDS);
+        if (resumeToken != null && households != null) {
+            changeStream = changeStream.resumeAfter(resumeToken);
+        }
+
+        try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = changeStream.cursor()) {
+            // The cursor is open before the warm-up read, so nothing written during it is missed
+            if (resumeToken == null || households == null) {
+                warm();
+            }
+
+            try {
+                while (running) {
+                    ChangeStreamDocument<Document> event = cursor.tryNext();
+                    if (event != null) {
+                        onChange(event);
+                    }
+                    if (cursor.getResumeToken() != null) {
+                        resumeToken = cursor.getResumeToken();
+                    }
+                    lastPolledNanos = System.nanoTime();
+                    live = true;
+                }
+            } finally {
+                live = false;
+            }
+        }
+    }
+
+    private void warm() {
+        Map<String, PantryLot> lots = new HashMap<>();
+        try (Stream<PantryLot> stream = mongoTemplate.stream(new Query(), PantryLot.class)) {
+            stream.forEach(lot -> lots.put(lot.getId(), lot));
+        }
+        households = Households.of(lots);
+        log.info("Pantry replica warmed with {} lots", lots.size());
+    }
+
+    private void onChange(ChangeStreamDocument<Document> event) {
+        if (event.getDocumentKey() == null) {
+            return;
+        }
+        String id = event.getDocumentKey().get("_id").isObjectId()
+                ? event.getDocumentKey().getObjectId("_id").getValue().toHexString()
+                : event.getDocumentKey().getString("_id").getValue();
+
+        switch (event.getOperationType()) {
+            case INSERT, UPDATE, REPLACE -> {
+                Document document = event.getFullDocument();
+                apply(id, document != null ? read(document) : null);
+            }
+            case DELETE -> apply(id, null);
+            case DROP, RENAME, INVALIDATE -> {
+                resumeToken = null;
+                households = null;
+                throw new IllegalStateException("pantryLots collection was " + event.getOperationType());
+            }
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * Maps a raw document the way a template read would. Change events and snapshot lines do
+     * not pass through the template's load events, so schema upgrades are applied here.
+     */
+    private PantryLot read(Document document) {
+        migrationRegistry.upgradeOnRead(mongoTemplate.getCollectionName(PantryLot.class), document);
+        return mongoTemplate.getConverter().read(PantryLot.class, document);
+    }
+
+    /**
+     * Moves the lot out of the household it left, if any, and into the one it belongs to now.
+     * A lot older than the replica's copy is dropped: an insert event carries the document as
+     * first written, and may arrive after this instance applied a newer local write.
+     */
+    private synchronized void apply(String id, PantryLot lot) {
+        Households current = households;
+        if (current == null) {
+            return;
+        }
+        String previousHousehold = current.householdOf().get(id);
+        HouseholdLots previous = previousHousehold != null ? current.byHousehold().get(previousHousehold) : null;
+        PantryLot existing = previous != null ? previous.byId().get(id) : null;
+        if (lot != null && existing != null && isOlder(lot, existing)) {
+            return;
+        }
+
+        if (previous != null && (lot == null || !previousHousehold.equals(lot.getHouseholdId()))) {
+            HouseholdLots remaining = previous.without(id);
+            if (remaining.byId().isEmpty()) {
+                current.byHousehold().remove(previousHousehold);
+            } else {
+                current.byHousehold().put(previousHousehold, remaining);
+            }
+            previous = null;
+        }
+        if (lot != null) {
+            HouseholdLots target = previous != null ? previous
+                    : current.byHousehold().getOrDefault(lot.getHouseholdId(), HouseholdLots.of(List.of()));
+            current.householdOf().put(id, lot.getHouseholdId());
+            current.byHousehold().put(lot.getHouseholdId(), target.with(lot));
+        } else {
+            current.householdOf().remove(id);
+        }
+    }
+
+    private static boolean isOlder(PantryLot lot, PantryLot existing) {
+        return lot.getUpdatedAt() != null && existing.getUpdatedAt() != null
+                && lot.getUpdatedAt().isBefore(existing.getUpdatedAt());
+    }
+
+    private long sleep(long backoffMillis) {
+        try {
+            Thread.sleep(backoffMillis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        return Math.min(backoffMillis * 2, 60_000);
+    }
+
+    private void loadPersistedSnapshot() {
+        if (snapshotPath.isBlank() || !Files.exists(Path.of(snapshotPath))) {
+            return;
+        }
+        try (Stream<String> lines = Files.lines(Path.of(snapshotPath), StandardCharsets.UTF_8)) {
+            List<String> content = lines.toList();
+            Map<String, PantryLot> lots = new HashMap<>();
+            for (String line : content.subList(1, content.size())) {
+                PantryLot lot = read(Document.parse(line));
+                lots.put(lot.getId(), lot);
+            }
+            resumeToken = BsonDocument.parse(content.get(0));
+            households = Households.of(lots);
+            log.info("Pantry replica restored {} lots from {}", lots.size(), snapshotPath);
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Ignoring unreadable pantry replica snapshot {}: {}", snapshotPath, ex.getMessage());
+            resumeToken = null;
+            households = null;
+        }
+    }
+
+    private void persistSnapshot() {
+        Households current = households;
+        BsonDocument token = resumeToken;
+        if (snapshotPath.isBlank() || current == null || token == null) {
+            return;
+        }
+        Path target = Path.of(snapshotPath);
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            writer.write(token.toJson());
+            writer.newLine();
+            for (HouseholdLots household : current.byHousehold().values()) {
+                for (PantryLot lot : household.byId().values()) {
+                    Document document = new Document();
+                    mongoTemplate.getConverter().write(lot, document);
+                    writer.write(document.toJson(EXTENDED_JSON));
+                    writer.newLine();
+                }
+            }
+        } catch (IOException ex) {
+            log.warn("Could not persist pantry replica snapshot: {}", ex.getMessage());
+            return;
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            log.warn("Could not persist pantry replica snapshot: {}", ex.getMessage());
+        }
+    }
+}
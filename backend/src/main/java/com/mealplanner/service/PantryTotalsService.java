@@ -0,0 +1,267 @@
+package com.mealplanner.service;
+
+import com.mealplanner.dto.PantryTotalListResponse;
+import com.mealplanner.dto.PantryTotalResponse;
+import com.mealplanner.model.PantryLot;
+import com.mealplanner.model.PantryTotal;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.ComparisonOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Maintains {@code pantryTotals}: one document per household, ingredient and canonical unit
+ * holding the summed quantity of that household's pantry lots. Pantry writes apply the
+ * difference between a lot's old and new contribution with {@code $inc}; a periodic
+ * reconciliation recomputes the totals from the lots and repairs any drift.
+ */
+@Slf4j
+@Service
+public class PantryTotalsService {
+
+    private static final double EPSILON = 1e-6;
+
+    private final MongoTemplate mongoTemplate;
+    private final UnitConversionService unitConversionService;
+    private final Counter repairs;
+
+    /** Totals with a lot written this recently may still have an increment in flight. */
+    @Value("${mealplanner.pantry-totals.reconcile-settle:PT1M}")
+    private Duration reconcileSettle;
+
+    public PantryTotalsService(MongoTemplate mongoTemplate, UnitConversionService unitConversionService,
+                               MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.unitConversionService = unitConversionService;
+        this.repairs = Counter.builder("mealplanner.pantry.totals.repairs").register(meterRegistry);
+    }
+
+    /**
+     * A lot's share of one total. Capture it before mutating a lot so the change can be
+     * applied as a delta afterwards.
+     */
+    public record Contribution(String householdId, String ingredient, String unit, double quantity) {
+
+        String totalId() {
+            return PantryTotalsService.totalId(householdId, ingredient, unit);
+        }
+    }
+
+    static String totalId(String householdId, String ingredient, String unit) {
+        return householdId + "|" + ingredient + "|" + unit;
+    }
+
+    public Contribution contributionOf(PantryLot lot) {
+        if (lot == null || lot.getNameNormalized() == null) {
+            return null;
+        }
+        UnitConversionService.Quantity normalized = unitConversionService.normalize(lot.getQuantity(), lot.getUnit());
+        return new Contribution(lot.getHouseholdId(), lot.getNameNormalized(), normalized.unit(), normalized.amount());
+    }
+
+    public void applyChange(Contribution before, Contribution after) {
+        if (before != null && after != null && before.totalId().equals(after.totalId())) {
+            increment(after, after.quantity() - before.quantity(), 0);
+            return;
+        }
+        if (before != null) {
+            increment(before, -before.quantity(), -1);
+        }
+        if (after != null) {
+            increment(after, after.quantity(), 1);
+        }
+    }
+
+    /**
+     * Applies a quantity change that did not alter the lot's ingredient or unit, e.g. a
+     * {@code $inc} adjustment, given in the lot's own unit.
+     */
+    public void applyAdjustment(PantryLot lot, double delta) {
+        Contribution contribution = contributionOf(lot);
+        if (contribution != null && delta != 0) {
+            double canonicalDelta = unitConversionService.normalize(delta, lot.getUnit()).amount();
+            increment(contribution, canonicalDelta, 0);
+        }
+    }
+
+    public PantryTotalListResponse listTotals(String householdId, String ingredient) {
+        Query query = Query.query(Criteria.where("householdId").is(householdId));
+        if (ingredient != null && !ingredient.isBlank()) {
+            query.addCriteria(Criteria.where("ingredient").is(normalizeIngredient(ingredient)));
+        }
+        query.with(Sort.by(Sort.Direction.ASC, "ingredient"));
+
+        List<PantryTotalResponse> items = mongoTemplate.find(query, PantryTotal.class).stream()
+                .map(PantryTotalResponse::fromEntity)
+                .toList();
+        return PantryTotalListResponse.builder()
+                .items(items)
+                .total(items.size())
+                .build();
+    }
+
+    @Scheduled(initialDelayString = "${mealplanner.pantry-totals.reconcile-initial-delay:PT1M}",
+            fixedDelayString = "${mealplanner.pantry-totals.reconcile-interval:PT15M}")
+    public void scheduledReconcile() {
+        try {
+            reconcile();
+        } catch (RuntimeException ex) {
+            log.warn("Pantry totals reconciliation failed: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * Recomputes every total from the lots and repairs the ones that drifted, one household
+     * at a time. Totals are read before the lots and repairs are conditional on the total
+     * being unchanged, so a write racing the reconciliation is left for the next run instead
+     * of being clobbered. A lot is saved before its increment is applied, so totals with a lot
+     * written within {@code reconcile-settle} are skipped too: the lot would be counted once
+     * by the repair and again by its pending increment.
+     *
+     * @return number of totals repaired
+     */
+    public int reconcile() {
+        Instant settledBefore = Instant.now().minus(reconcileSettle);
+        Set<String> householdIds = new TreeSet<>(
+                mongoTemplate.findDistinct(new Query(), "householdId", PantryLot.class, String.class));
+        householdIds.addAll(mongoTemplate.findDistinct(new Query(), "householdId", PantryTotal.class, String.class));
+
+        int repaired = 0;
+        for (String householdId : householdIds) {
+            repaired += reconcile(householdId, settledBefore);
+        }
+
+        if (repaired > 0) {
+            repairs.increment(repaired);
+            log.warn("Repaired {} drifted pantry totals", repaired);
+        }
+        return repaired;
+    }
+
+    private int reconcile(String householdId, Instant settledBefore) {
+        Map<String, PantryTotal> observed = new HashMap<>();
+        for (PantryTotal total : mongoTemplate.find(Query.query(Criteria.where("householdId").is(householdId)),
+                PantryTotal.class)) {
+            observed.put(total.getId(), total);
+        }
+
+        // Summed per stored unit by Mongo; units of one dimension are combined after conversion
+        Aggregation sums = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("householdId").is(householdId).and("nameNormalized").ne(null)),
+                Aggregation.group("nameNormalized", "unit")
+                        .sum("quantity").as("quantity")
+                        .count().as("lotCount")
+                        .max(ComparisonOperators.Gt.valueOf("updatedAt").greaterThanValue(settledBefore))
+                        .as("unsettled"));
+        Map<String, PantryTotal> expected = new HashMap<>();
+        Set<String> unsettled = new HashSet<>();
+        for (Document sum : mongoTemplate.aggregate(sums, PantryLot.class, Document.class)) {
+            Document key = sum.get("_id", Document.class);
+            UnitConversionService.Quantity normalized = unitConversionService.normalize(
+                    ((Number) sum.get("quantity")).doubleValue(), key.getString("unit"));
+            String id = totalId(householdId, key.getString("nameNormalized"), normalized.unit());
+            PantryTotal total = expected.computeIfAbsent(id, totalId -> PantryTotal.builder()
+                    .id(totalId)
+                    .householdId(householdId)
+                    .ingredient(key.getString("nameNormalized"))
+                    .unit(normalized.unit())
+                    .build());
+            total.setQuantity(total.getQuantity() + normalized.amount());
+            total.setLotCount(total.getLotCount() + ((Number) sum.get("lotCount")).intValue());
+            if (Boolean.TRUE.equals(sum.getBoolean("unsettled"))) {
+                unsettled.add(id);
+            }
+        }
+
+        int repaired = 0;
+        for (PantryTotal want : expected.values()) {
+            PantryTotal have = observed.remove(want.getId());
+            if (unsettled.contains(want.getId())) {
+                continue;
+            }
+            if (have != null && Math.abs(have.getQuantity() - want.getQuantity()) < EPSILON
+                    && have.getLotCount() == want.getLotCount()) {
+                continue;
+            }
+            if (repair(have, want)) {
+                repaired++;
+            }
+        }
+        for (PantryTotal orphan : observed.values()) {
+            if (repair(orphan, null)) {
+                repaired++;
+            }
+        }
+        return repaired;
+    }
+
+    private boolean repair(PantryTotal observed, PantryTotal expected) {
+        if (observed == null) {
+            expected.setUpdatedAt(Instant.now());
+            try {
+                mongoTemplate.insert(expected);
+                return true;
+            } catch (DuplicateKeyException ex) {
+                return false;
+            }
+        }
+
+        Query unchanged = Query.query(Criteria.where("_id").is(observed.getId())
+                .and("quantity").is(observed.getQuantity())
+                .and("lotCount").is(observed.getLotCount()));
+        if (expected == null) {
+            return mongoTemplate.remove(unchanged, PantryTotal.class).getDeletedCount() > 0;
+        }
+        return mongoTemplate.updateFirst(unchanged,
+                new Update()
+                        .set("quantity", expected.getQuantity())
+                        .set("lotCount", expected.getLotCount())
+                        .set("updatedAt", Instant.now()),
+                PantryTotal.class).getModifiedCount() > 0;
+    }
+
+    private void increment(Contribution contribution, double quantityDelta, int lotDelta) {
+        Query query = Query.query(Criteria.where("_id").is(contribution.totalId()));
+        Update update = new Update()
+                .inc("quantity", quantityDelta)
+                .inc("lotCount", lotDelta)
+                .set("updatedAt", Instant.now())
+                .setOnInsert("householdId", contribution.householdId())
+                .setOnInsert("ingredient", contribution.ingredient())
+                .setOnInsert("unit", contribution.unit());
+
+        PantryTotal updated = mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().upsert(true).returnNew(true), PantryTotal.class);
+
+        if (updated != null && updated.getLotCount() <= 0) {
+            mongoTemplate.remove(Query.query(Criteria.where("_id").is(contribution.totalId())
+                    .and("lotCount").lte(0)), PantryTotal.class);
+        }
+    }
+
+    private String normalizeIngredient(String ingredient) {
+        return ingredient.toLowerCase(Locale.ROOT).trim();
+    }
+}
@@ -0,0 +1,61 @@
+package com.mealplanner.service;
+
+import com.mealplanner.dto.PantryLotListResponse;
+import com.mealplanner.dto.PantryLotResponse;
+import com.mealplanner.exception.ResourceNotFoundException;
+import com.mealplanner.model.PantryLot;
+import com.mealplanner.model.PantryLotType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Non-blocking read path for pantry lots, active under the {@code reactive} profile.
+ * Query shapes are shared with {@link PantryLotService} so both stacks hit the same indexes.
+ */
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactivePantryLotService {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    public Mono<PantryLotListResponse> listPantryLots(String householdId, PantryLotType type, String name, int limit, int offset) {
+        Mono<Long> total = reactiveMongoTemplate.count(PantryLotService.buildListQuery(householdId, type, name), PantryLot.class);
+
+        Query pageQuery = PantryLotService.buildListQuery(householdId, type, name)
+                .with(PantryLotService.LIST_SORT)
+                .skip(offset)
+                .limit(limit);
+        Mono<List<PantryLotResponse>> items = reactiveMongoTemplate.find(pageQuery, PantryLot.class)
+                .map(PantryLotResponse::fromEntity)
+                .collectList();
+
+        // count and find are subscribed together, so the two round trips overlap
+        return Mono.zip(items, total)
+                .map(tuple -> PantryLotListResponse.builder()
+                        .items(tuple.getT1())
+                        .total(tuple.getT2())
+                        .build());
+    }
+
+    public Flux<PantryLotResponse> exportPantryLots(String householdId, PantryLotType type, String name) {
+        Query query = PantryLotService.buildListQuery(householdId, type, name).with(PantryLotService.LIST_SORT);
+        return reactiveMongoTemplate.find(query, PantryLot.class)
+                .map(PantryLotResponse::fromEntity);
+    }
+
+    public Mono<PantryLotResponse> getPantryLot(String householdId, String id) {
+        Query query = Query.query(Criteria.where("_id").is(id).and("householdId").is(householdId));
+        return reactiveMongoTemplate.findOne(query, PantryLot.class)
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("PantryLot", id)))
+                .map(PantryLotResponse::fromEntity);
+    }
+}
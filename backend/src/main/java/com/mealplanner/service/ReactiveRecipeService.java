@@ -0,0 +1,60 @@
+package com.mealplanner.service;
+
+import com.mealplanner.dto.RecipeListResponse;
+import com.mealplanner.dto.RecipeResponse;
+import com.mealplanner.exception.ResourceNotFoundException;
+import com.mealplanner.model.Recipe;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Non-blocking read path for recipes, active under the {@code reactive} profile.
+ * Query shapes are shared with {@link RecipeService} so both stacks hit the same indexes.
+ */
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveRecipeService {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    public Mono<RecipeListResponse> listRecipes(String householdId, String tag, String name, int limit, int offset) {
+        Mono<Long> total = reactiveMongoTemplate.count(RecipeService.buildListQuery(householdId, tag, name), Recipe.class);
+
+        Query pageQuery = RecipeService.buildListQuery(householdId, tag, name)
+                .with(RecipeService.LIST_SORT)
+                .skip(offset)
+                .limit(limit);
+        Mono<List<RecipeResponse>> items = reactiveMongoTemplate.find(pageQuery, Recipe.class)
+                .map(RecipeResponse::fromEntity)
+                .collectList();
+
+        // count and find are subscribed together, so the two round trips overlap
+        return Mono.zip(items, total)
+                .map(tuple -> RecipeListResponse.builder()
+                        .items(tuple.getT1())
+                        .total(tuple.getT2())
+                        .build());
+    }
+
+    public Flux<RecipeResponse> exportRecipes(String householdId, String tag, String name) {
+        Query query = RecipeService.buildListQuery(householdId, tag, name).with(RecipeService.LIST_SORT);
+        return reactiveMongoTemplate.find(query, Recipe.class)
+                .map(RecipeResponse::fromEntity);
+    }
+
+    public Mono<RecipeResponse> getRecipe(String householdId, String id) {
+        Query query = Query.query(Criteria.where("_id").is(id).and("householdId").is(householdId));
+        return reactiveMongoTemplate.findOne(query, Recipe.class)
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("Recipe", id)))
+                .map(RecipeResponse::fromEntity);
+    }
+}
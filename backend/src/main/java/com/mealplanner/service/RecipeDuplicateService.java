@@ -0,0 +1,140 @@
+package com.mealplanner.service;
+
+import com.mealplanner.dto.RecipeDuplicateListResponse;
+import com.mealplanner.dto.RecipeDuplicateResponse;
+import com.mealplanner.dto.RecipeResponse;
+import com.mealplanner.exception.InvalidParameterException;
+import com.mealplanner.exception.ResourceNotFoundException;
+import com.mealplanner.model.Recipe;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationExpression;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Finds near-duplicate recipes within a household. Candidates are the recipes sharing at least
+ * one LSH band key, looked up on the {@code householdId, lshBuckets} index, so the cost depends
+ * on how many recipes are similar rather than on the size of the collection. When there are
+ * more than {@code max-candidates}, those sharing the most bands are scored first. Candidates
+ * are then kept only if their MinHash similarity reaches the threshold.
+ */
+@Service
+@RequiredArgsConstructor
+public class RecipeDuplicateService {
+
+    private static final String SHARED_BANDS = "sharedBands";
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${mealplanner.recipes.duplicates.threshold:0.8}")
+    private double defaultThreshold;
+
+    @Value("${mealplanner.recipes.duplicates.max-candidates:200}")
+    private int maxCandidates;
+
+    public record Match(String id, double similarity) {
+    }
+
+    public RecipeDuplicateListResponse findDuplicates(String householdId, String id, Double threshold, int limit) {
+        double minSimilarity = resolveThreshold(threshold);
+        Recipe recipe = mongoTemplate.findOne(
+                Query.query(Criteria.where("_id").is(id).and("householdId").is(householdId)), Recipe.class);
+        if (recipe == null) {
+            throw new ResourceNotFoundException("Recipe", id);
+        }
+
+        List<Match> matches = findMatches(householdId, signatureOf(recipe), id, minSimilarity, limit);
+        if (matches.isEmpty()) {
+            return RecipeDuplicateListResponse.builder().items(List.of()).build();
+        }
+
+        Map<String, Recipe> byId = mongoTemplate.find(Query.query(Criteria.where("householdId").is(householdId)
+                        .and("_id").in(matches.stream().map(Match::id).toList())), Recipe.class).stream()
+                .collect(Collectors.toMap(Recipe::getId, Function.identity()));
+        List<RecipeDuplicateResponse> items = new ArrayList<>();
+        for (Match match : matches) {
+            Recipe duplicate = byId.get(match.id());
+            if (duplicate != null) {
+                items.add(RecipeDuplicateResponse.builder()
+                        .recipe(RecipeResponse.fromEntity(duplicate))
+                        .similarity(match.similarity())
+                        .build());
+            }
+        }
+        return RecipeDuplicateListResponse.builder().items(items).build();
+    }
+
+    /**
+     * The most similar recipe of the household at or above the configured threshold.
+     */
+    Optional<Match> findBestMatch(String householdId, RecipeMinHash.Signature signature) {
+        return findMatches(householdId, signature, null, defaultThreshold, 1).stream().findFirst();
+    }
+
+    /**
+     * Recipes sharing a band key with {@code signature} whose similarity reaches
+     * {@code minSimilarity}, most similar first.
+     */
+    List<Match> findMatches(String householdId, RecipeMinHash.Signature signature, String excludeId,
+                            double minSimilarity, int limit) {
+        if (signature.bands().isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        Criteria criteria = Criteria.where("householdId").is(householdId).and("lshBuckets").in(signature.bands());
+        if (excludeId != null) {
+            criteria.and("_id").ne(excludeId);
+        }
+        // More shared bands means a higher expected similarity, so a capped candidate set keeps
+        // the likeliest matches instead of whichever the index returns first
+        AggregationExpression sharedBands = context -> new Document("$size",
+                new Document("$setIntersection", List.of("$lshBuckets", new Document("$literal", signature.bands()))));
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(criteria),
+                Aggregation.project("minHash").and(sharedBands).as(SHARED_BANDS),
+                Aggregation.sort(Sort.Direction.DESC, SHARED_BANDS),
+                Aggregation.limit(maxCandidates));
+
+        List<Match> matches = new ArrayList<>();
+        for (Document candidate : mongoTemplate.aggregate(aggregation, Recipe.class, Document.class)) {
+            double similarity = RecipeMinHash.similarity(signature.minHash(),
+                    candidate.getList("minHash", Integer.class));
+            if (similarity >= minSimilarity) {
+                matches.add(new Match(candidate.get("_id").toString(), similarity));
+            }
+        }
+        matches.sort(Comparator.comparingDouble(Match::similarity).reversed());
+        return matches.size() > limit ? matches.subList(0, limit) : matches;
+    }
+
+    /** Older recipes get their signature from the read-time migration, so it is always present. */
+    static RecipeMinHash.Signature signatureOf(Recipe recipe) {
+        return new RecipeMinHash.Signature(
+                recipe.getMinHash() != null ? recipe.getMinHash() : List.of(),
+                recipe.getLshBuckets() != null ? recipe.getLshBuckets() : List.of());
+    }
+
+    private double resolveThreshold(Double threshold) {
+        if (threshold == null) {
+            return defaultThreshold;
+        }
+        if (threshold <= 0 || threshold > 1) {
+            throw new InvalidParameterException("threshold", "Threshold must be greater than 0 and at most 1");
+        }
+        return threshold;
+    }
+}
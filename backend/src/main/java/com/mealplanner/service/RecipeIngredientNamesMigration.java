@@ -0,0 +1,41 @@
+package com.mealplanner.service;
+
+import com.mealplanner.model.Recipe;
+import org.bson.Document;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Recipe v1 to v2: derives {@code ingredientNamesNormalized} from the ingredient list.
+ */
+@Component
+public class RecipeIngredientNamesMigration implements DocumentMigration {
+
+    @Override
+    public Class<?> entityType() {
+        return Recipe.class;
+    }
+
+    @Override
+    public int fromVersion() {
+        return 1;
+    }
+
+    @Override
+    public void migrate(Document document) {
+        Set<String> names = new LinkedHashSet<>();
+        if (document.get("ingredients") instanceof List<?> ingredients) {
+            for (Object ingredient : ingredients) {
+                if (ingredient instanceof Document entry && entry.get("name") instanceof String name) {
+                    names.add(name.toLowerCase(Locale.ROOT).trim());
+                }
+            }
+        }
+        document.put("ingredientNamesNormalized", new ArrayList<>(names));
+    }
+}
@@ -0,0 +1,163 @@
+package com.mealplanner.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * MinHash signatures over a recipe's name shingles and canonical ingredient set, and the LSH
+ * band keys derived from them. The fraction of positions where two signatures agree estimates
+ * the Jaccard similarity of the two feature sets. Recipes whose signatures agree on every row
+ * of at least one band share a band key, which is what the {@code householdId, lshBuckets}
+ * index looks up. With {@value #BANDS} bands of {@value #ROWS} rows a pair becomes a candidate
+ * with probability of about 61% at similarity 0.7, 95% at 0.8 and 99% at 0.85.
+ *
+ * <p>Signatures are stored, so the features, hash functions and band layout must not change
+ * without a schema migration that recomputes them.
+ */
+final class RecipeMinHash {
+
+    static final int BANDS = 16;
+    static final int ROWS = 8;
+    static final int SIZE = BANDS * ROWS;
+
+    private static final int SHINGLE_LENGTH = 3;
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final long[] SEEDS = new long[SIZE];
+
+    static {
+        long state = 0x5DEECE66DL;
+        for (int i = 0; i < SIZE; i++) {
+            state += 0x9E3779B97F4A7C15L;
+            SEEDS[i] = mix(state);
+        }
+    }
+
+    private RecipeMinHash() {
+    }
+
+    record Signature(List<Integer> minHash, List<Long> bands) {
+    }
+
+    static Signature of(String name, Collection<String> ingredientNames) {
+        Set<String> features = features(name, ingredientNames);
+        if (features.isEmpty()) {
+            return new Signature(List.of(), List.of());
+        }
+
+        int[] minimums = new int[SIZE];
+        Arrays.fill(minimums, Integer.MAX_VALUE);
+        for (String feature : features) {
+            long hash = hash(feature);
+            for (int i = 0; i < SIZE; i++) {
+                minimums[i] = Math.min(minimums[i], (int) (mix(hash ^ SEEDS[i]) >>> 32));
+            }
+        }
+
+        List<Integer> minHash = new ArrayList<>(SIZE);
+        for (int value : minimums) {
+            minHash.add(value);
+        }
+        return new Signature(minHash, bands(minHash));
+    }
+
+    /**
+     * Estimated Jaccard similarity of the feature sets behind two signatures; 0 when either is
+     * missing.
+     */
+    static double similarity(List<Integer> a, List<Integer> b) {
+        if (a == null || b == null || a.size() != SIZE || b.size() != SIZE) {
+            return 0;
+        }
+        int equal = 0;
+        for (int i = 0; i < SIZE; i++) {
+            if (a.get(i).intValue() == b.get(i).intValue()) {
+                equal++;
+            }
+        }
+        return (double) equal / SIZE;
+    }
+
+    /**
+     * Name character shingles plus one feature per canonical ingredient, prefixed so a name
+     * shingle never collides with an ingredient.
+     */
+    static Set<String> features(String name, Collection<String> ingredientNames) {
+        Set<String> features = new LinkedHashSet<>();
+        String canonicalName = canonical(name);
+        if (canonicalName.length() <= SHINGLE_LENGTH) {
+            if (!canonicalName.isEmpty()) {
+                features.add("n:" + canonicalName);
+            }
+        } else {
+            for (int i = 0; i + SHINGLE_LENGTH <= canonicalName.length(); i++) {
+                features.add("n:" + canonicalName.substring(i, i + SHINGLE_LENGTH));
+            }
+        }
+        if (ingredientNames != null) {
+            for (String ingredient : ingredientNames) {
+                String canonicalIngredient = canonicalIngredient(ingredient);
+                if (!canonicalIngredient.isEmpty()) {
+                    features.add("i:" + canonicalIngredient);
+                }
+            }
+        }
+        return features;
+    }
+
+    /**
+     * Lower-cased words with punctuation removed and sorted, so "Basil, fresh" and
+     * "fresh basil" are the same ingredient.
+     */
+    static String canonicalIngredient(String name) {
+        String canonical = canonical(name);
+        if (canonical.isEmpty()) {
+            return canonical;
+        }
+        String[] words = canonical.split(" ");
+        Arrays.sort(words);
+        return String.join(" ", words);
+    }
+
+    private static String canonical(String text) {
+        if (text == null) {
+            return "";
+        }
+        return NON_ALPHANUMERIC.matcher(text.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    private static List<Long> bands(List<Integer> minHash) {
+        List<Long> bands = new ArrayList<>(BANDS);
+        for (int band = 0; band < BANDS; band++) {
+            // Seeded with the band number so equal rows in different bands get different keys
+            long key = band;
+            for (int row = 0; row < ROWS; row++) {
+                key = mix(key * 0x9E3779B97F4A7C15L + (minHash.get(band * ROWS + row) & 0xFFFFFFFFL));
+            }
+            bands.add(key);
+        }
+        return bands;
+    }
+
+    /** 64-bit FNV-1a over the UTF-16 code units; stable across JVMs, unlike {@code hashCode}. */
+    private static long hash(String feature) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < feature.length(); i++) {
+            hash ^= feature.charAt(i);
+            hash *= 0x100000001B3L;
+        }
+        return hash;
+    }
+
+    /** MurmurHash3 finalizer. */
+    private static long mix(long value) {
+        value = (value ^ (value >>> 33)) * 0xFF51AFD7ED558CCDL;
+        value = (value ^ (value >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return value ^ (value >>> 33);
+    }
+}
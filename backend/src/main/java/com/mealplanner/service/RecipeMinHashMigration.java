@@ -0,0 +1,33 @@
+package com.mealplanner.service;
+
+import com.mealplanner.model.Recipe;
+import org.bson.Document;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Recipe v3 to v4: computes the MinHash signature and LSH band keys used for near-duplicate
+ * detection.
+ */
+@Component
+public class RecipeMinHashMigration implements DocumentMigration {
+
+    @Override
+    public Class<?> entityType() {
+        return Recipe.class;
+    }
+
+    @Override
+    public int fromVersion() {
+        return 3;
+    }
+
+    @Override
+    public void migrate(Document document) {
+        List<String> ingredientNames = document.getList("ingredientNamesNormalized", String.class, List.of());
+        RecipeMinHash.Signature signature = RecipeMinHash.of(document.getString("name"), ingredientNames);
+        document.put("minHash", signature.minHash());
+        document.put("lshBuckets", signature.bands());
+    }
+}
@@ -1,6 +1,7 @@
 package com.mealplanner.service;
 
 import com.mealplanner.dto.*;
+import com.mealplanner.exception.QuotaExceededException;
 import com.mealplanner.exception.ResourceNotFoundException;
 import com.mealplanner.model.Recipe;
 import com.mealplanner.model.RecipeIngredient;
@@ -12,30 +13,40 @@ import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 public class RecipeService {
 
+    static final Sort LIST_SORT = Sort.by(Sort.Direction.DESC, "updatedAt");
+
     private final RecipeRepository recipeRepository;
     private final MongoTemplate mongoTemplate;
+    private final RequestCoalescer<ListKey, RecipeListResponse> listCoalescer;
+    private final ChangeEventService changeEventService;
+    private final HouseholdService householdService;
+    private final RecipeDuplicateService recipeDuplicateService;
 
-    public RecipeListResponse listRecipes(String tag, String name, int limit, int offset) {
-        Sort sort = Sort.by(Sort.Direction.DESC, "updatedAt");
-
-        Query query = new Query();
-        if (tag != null && !tag.isBlank()) {
-            query.addCriteria(Criteria.where("tags").is(tag));
-        }
-        if (name != null && !name.isBlank()) {
-            query.addCriteria(Criteria.where("nameNormalized").regex(name, "i"));
-        }
+    public RecipeListResponse listRecipes(String householdId, String tag, String name, int limit, int offset) {
+        ListKey key = ListKey.of(householdId, tag, name, limit, offset);
+        return listCoalescer.execute(key, () -> queryRecipes(key));
+    }
 
+    private RecipeListResponse queryRecipes(ListKey key) {
+        Query query = buildListQuery(key.householdId(), key.tag(), key.name());
         long total = mongoTemplate.count(query, Recipe.class);
 
-        query.with(sort).skip(offset).limit(limit);
+        query.with(LIST_SORT).skip(key.offset()).limit(key.limit());
         List<Recipe> items = mongoTemplate.find(query, Recipe.class);
 
         return RecipeListResponse.builder()
@@ -44,33 +55,164 @@ public class RecipeService {
                 .build();
     }
 
-    public RecipeResponse getRecipe(String id) {
-        Recipe recipe = recipeRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Recipe", id));
-        return RecipeResponse.fromEntity(recipe);
+    public RecipeResponse getRecipe(String householdId, String id) {
+        return RecipeResponse.fromEntity(loadRecipe(householdId, id));
+    }
+
+    public RecipeResponse createRecipe(String householdId, RecipeCreateRequest request) {
+        return RecipeResponse.fromEntity(insert(householdId, request, null));
     }
 
-    public RecipeResponse createRecipe(RecipeCreateRequest request) {
+    /**
+     * Imports recipes one by one, so later entries are also checked against earlier ones. An
+     * entry is a duplicate when its {@code externalKey} is already present or its MinHash
+     * signature matches an existing recipe above the configured threshold; the policy decides
+     * whether it is skipped, merged into that recipe or stored with {@code duplicateOf} set.
+     * Entries that would exceed the household's recipe quota are reported as
+     * {@code QUOTA_EXCEEDED} instead of failing the batch, so every stored entry appears in the
+     * response and a retry can resubmit just the rejected ones.
+     */
+    public RecipeImportResponse importRecipes(String householdId, RecipeImportRequest request) {
+        List<RecipeImportResponse.Result> results = new ArrayList<>();
+        Map<RecipeImportResponse.Status, Integer> counts = new EnumMap<>(RecipeImportResponse.Status.class);
+
+        for (int i = 0; i < request.getRecipes().size(); i++) {
+            RecipeCreateRequest item = request.getRecipes().get(i);
+            RecipeImportResponse.Result result;
+            try {
+                result = importRecipe(householdId, item, request.getOnDuplicate());
+            } catch (QuotaExceededException ex) {
+                result = RecipeImportResponse.Result.builder()
+                        .status(RecipeImportResponse.Status.QUOTA_EXCEEDED)
+                        .build();
+            }
+            result.setIndex(i);
+            results.add(result);
+            counts.merge(result.getStatus(), 1, Integer::sum);
+        }
+
+        return RecipeImportResponse.builder()
+                .results(results)
+                .created(counts.getOrDefault(RecipeImportResponse.Status.CREATED, 0))
+                .skipped(counts.getOrDefault(RecipeImportResponse.Status.SKIPPED, 0))
+                .merged(counts.getOrDefault(RecipeImportResponse.Status.MERGED, 0))
+                .flagged(counts.getOrDefault(RecipeImportResponse.Status.FLAGGED, 0))
+                .quotaExceeded(counts.getOrDefault(RecipeImportResponse.Status.QUOTA_EXCEEDED, 0))
+                .build();
+    }
+
+    private RecipeImportResponse.Result importRecipe(String householdId, RecipeCreateRequest item,
+                                                     RecipeImportRequest.DuplicatePolicy policy) {
+        Optional<RecipeDuplicateService.Match> match = findImportMatch(householdId, item);
+        if (match.isEmpty()) {
+            Recipe created = insert(householdId, item, null);
+            return RecipeImportResponse.Result.builder()
+                    .status(RecipeImportResponse.Status.CREATED)
+                    .id(created.getId())
+                    .build();
+        }
+
+        String existingId = match.get().id();
+        RecipeImportResponse.Result.ResultBuilder result = RecipeImportResponse.Result.builder()
+                .duplicateOf(existingId)
+                .similarity(match.get().similarity());
+        return switch (policy) {
+            case SKIP -> result.status(RecipeImportResponse.Status.SKIPPED).id(existingId).build();
+            case MERGE -> result.status(RecipeImportResponse.Status.MERGED)
+                    .id(merge(householdId, existingId, item).getId()).build();
+            case FLAG -> result.status(RecipeImportResponse.Status.FLAGGED)
+                    .id(insert(householdId, item, existingId).getId()).build();
+        };
+    }
+
+    private Optional<RecipeDuplicateService.Match> findImportMatch(String householdId, RecipeCreateRequest item) {
+        if (item.getExternalKey() != null && !item.getExternalKey().isBlank()) {
+            Optional<Recipe> sameKey = recipeRepository.findByHouseholdIdAndExternalKey(householdId, item.getExternalKey());
+            if (sameKey.isPresent()) {
+                return Optional.of(new RecipeDuplicateService.Match(sameKey.get().getId(), 1.0));
+            }
+        }
+        List<RecipeIngredient> ingredients = item.getIngredients().stream()
+                .map(RecipeIngredientDto::toEntity)
+                .toList();
+        return recipeDuplicateService.findBestMatch(householdId,
+                RecipeMinHash.of(item.getName(), normalizeIngredientNames(ingredients)));
+    }
+
+    private Recipe insert(String householdId, RecipeCreateRequest request, String duplicateOf) {
         List<RecipeIngredient> ingredients = request.getIngredients().stream()
                 .map(RecipeIngredientDto::toEntity)
                 .toList();
 
         Recipe recipe = Recipe.builder()
+                .householdId(householdId)
                 .name(request.getName())
                 .nameNormalized(normalizeName(request.getName()))
                 .ingredients(ingredients)
+                .ingredientNamesNormalized(normalizeIngredientNames(ingredients))
                 .instructions(request.getInstructions())
                 .servings(request.getServings())
                 .tags(request.getTags() != null ? request.getTags() : List.of())
+                .externalKey(request.getExternalKey())
+                .duplicateOf(duplicateOf)
                 .build();
+        applySignature(recipe);
+
+        householdService.reserveRecipe(householdId);
+        Recipe saved;
+        try {
+            saved = recipeRepository.save(recipe);
+        } catch (RuntimeException ex) {
+            householdService.releaseRecipe(householdId);
+            throw ex;
+        }
+        listCoalescer.invalidate();
+        changeEventService.publish(householdId, ChangeEvent.RECIPE, saved.getId(), ChangeEvent.Operation.CREATED,
+                saved.getUpdatedAt());
+        return saved;
+    }
+
+    /**
+     * Adds the imported recipe's ingredients and tags that the existing recipe lacks; name,
+     * instructions and servings of the existing recipe are kept.
+     */
+    private Recipe merge(String householdId, String existingId, RecipeCreateRequest item) {
+        Recipe recipe = loadRecipe(householdId, existingId);
+
+        List<RecipeIngredient> ingredients = new ArrayList<>(recipe.getIngredients() != null
+                ? recipe.getIngredients() : List.of());
+        Set<String> present = new HashSet<>();
+        for (RecipeIngredient ingredient : ingredients) {
+            present.add(RecipeMinHash.canonicalIngredient(ingredient.getName()));
+        }
+        for (RecipeIngredientDto ingredient : item.getIngredients()) {
+            if (present.add(RecipeMinHash.canonicalIngredient(ingredient.getName()))) {
+                ingredients.add(ingredient.toEntity());
+            }
+        }
+
+        Set<String> tags = new LinkedHashSet<>(recipe.getTags() != null ? recipe.getTags() : List.of());
+        if (item.getTags() != null) {
+            tags.addAll(item.getTags());
+        }
+
+        recipe.setIngredients(ingredients);
+        recipe.setIngredientNamesNormalized(normalizeIngredientNames(ingredients));
+        recipe.setTags(new ArrayList<>(tags));
+        if (recipe.getExternalKey() == null) {
+            recipe.setExternalKey(item.getExternalKey());
+        }
+        applySignature(recipe);
 
         Recipe saved = recipeRepository.save(recipe);
-        return RecipeResponse.fromEntity(saved);
+        listCoalescer.invalidate();
+        changeEventService.publish(householdId, ChangeEvent.RECIPE, saved.getId(), ChangeEvent.Operation.UPDATED,
+                saved.getUpdatedAt());
+        return saved;
     }
 
-    public RecipeResponse updateRecipe(String id, RecipeUpdateRequest request) {
-        Recipe recipe = recipeRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Recipe", id));
+    public RecipeResponse updateRecipe(String householdId, String id, RecipeUpdateRequest request) {
+        Recipe recipe = loadRecipe(householdId, id);
 
         List<RecipeIngredient> ingredients = request.getIngredients().stream()
                 .map(RecipeIngredientDto::toEntity)
@@ -79,22 +221,76 @@ public class RecipeService {
         recipe.setName(request.getName());
         recipe.setNameNormalized(normalizeName(request.getName()));
         recipe.setIngredients(ingredients);
+        recipe.setIngredientNamesNormalized(normalizeIngredientNames(ingredients));
         recipe.setInstructions(request.getInstructions());
         recipe.setServings(request.getServings());
         recipe.setTags(request.getTags() != null ? request.getTags() : List.of());
+        applySignature(recipe);
 
         Recipe saved = recipeRepository.save(recipe);
+        listCoalescer.invalidate();
+        changeEventService.publish(householdId, ChangeEvent.RECIPE, saved.getId(), ChangeEvent.Operation.UPDATED,
+                saved.getUpdatedAt());
         return RecipeResponse.fromEntity(saved);
     }
 
-    public void deleteRecipe(String id) {
-        if (!recipeRepository.existsById(id)) {
+    public void deleteRecipe(String householdId, String id) {
+        Recipe removed = mongoTemplate.findAndRemove(
+                Query.query(Criteria.where("_id").is(id).and("householdId").is(householdId)), Recipe.class);
+        if (removed == null) {
             throw new ResourceNotFoundException("Recipe", id);
         }
-        recipeRepository.deleteById(id);
+        householdService.releaseRecipe(householdId);
+        listCoalescer.invalidate();
+        changeEventService.publish(householdId, ChangeEvent.RECIPE, id, ChangeEvent.Operation.DELETED, null);
+    }
+
+    private Recipe loadRecipe(String householdId, String id) {
+        return recipeRepository.findByIdAndHouseholdId(id, householdId)
+                .orElseThrow(() -> new ResourceNotFoundException("Recipe", id));
+    }
+
+    static Query buildListQuery(String householdId, String tag, String name) {
+        Query query = Query.query(Criteria.where("householdId").is(householdId));
+        if (tag != null && !tag.isBlank()) {
+            query.addCriteria(Criteria.where("tags").is(tag));
+        }
+        if (name != null && !name.isBlank()) {
+            query.addCriteria(Criteria.where("nameNormalized").regex(name, "i"));
+        }
+        return query;
+    }
+
+    /**
+     * Normalized list parameters used as the coalescing key. Blank filters are treated as
+     * absent by the query, so they collapse to null here as well.
+     */
+    public record ListKey(String householdId, String tag, String name, int limit, int offset) {
+
+        static ListKey of(String householdId, String tag, String name, int limit, int offset) {
+            return new ListKey(householdId,
+                    tag != null && !tag.isBlank() ? tag : null,
+                    name != null && !name.isBlank() ? name : null,
+                    limit, offset);
+        }
+    }
+
+    private static void applySignature(Recipe recipe) {
+        RecipeMinHash.Signature signature = RecipeMinHash.of(recipe.getName(), recipe.getIngredientNamesNormalized());
+        recipe.setMinHash(signature.minHash());
+        recipe.setLshBuckets(signature.bands());
     }
 
     private String normalizeName(String name) {
         return name != null ? name.toLowerCase(Locale.ROOT).trim() : null;
     }
+
+    static List<String> normalizeIngredientNames(List<RecipeIngredient> ingredients) {
+        return ingredients.stream()
+                .map(RecipeIngredient::getName)
+                .filter(Objects::nonNull)
+                .map(name -> name.toLowerCase(Locale.ROOT).trim())
+                .distinct()
+                .toList();
+    }
 }
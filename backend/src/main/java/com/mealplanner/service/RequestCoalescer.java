@@ -0,0 +1,98 @@
+package com.mealplanner.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight execution for identical concurrent reads. The first caller for a key runs
+ * the loader on its own thread; callers arriving while it is in flight wait for and share
+ * its result. With a non-zero TTL the completed result keeps being served for that window.
+ */
+public class RequestCoalescer<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> calls = new ConcurrentHashMap<>();
+    private final Duration ttl;
+    private final Counter requests;
+    private final Counter executions;
+
+    public RequestCoalescer(String name, Duration ttl, MeterRegistry meterRegistry) {
+        this.ttl = ttl;
+        this.requests = Counter.builder("mealplanner.coalescer.requests")
+                .tag("name", name)
+                .register(meterRegistry);
+        this.executions = Counter.builder("mealplanner.coalescer.executions")
+                .tag("name", name)
+                .register(meterRegistry);
+        Gauge.builder("mealplanner.coalescer.ratio", this, RequestCoalescer::coalescingRatio)
+                .tag("name", name)
+                .description("Fraction of requests served by another caller's execution")
+                .register(meterRegistry);
+    }
+
+    public V execute(K key, Supplier<V> loader) {
+        requests.increment();
+
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> existing = calls.putIfAbsent(key, call);
+        if (existing != null) {
+            return await(existing);
+        }
+
+        executions.increment();
+        try {
+            V value = loader.get();
+            call.complete(value);
+            release(key, call);
+            return value;
+        } catch (RuntimeException | Error ex) {
+            call.completeExceptionally(ex);
+            calls.remove(key, call);
+            throw ex;
+        }
+    }
+
+    /**
+     * Drops every shared result, in flight or cached, so callers after a write start a fresh
+     * execution. Callers already waiting still receive the result they joined.
+     */
+    public void invalidate() {
+        calls.clear();
+    }
+
+    double coalescingRatio() {
+        double total = requests.count();
+        return total == 0 ? 0 : (total - executions.count()) / total;
+    }
+
+    private void release(K key, CompletableFuture<V> call) {
+        if (ttl.isZero() || ttl.isNegative()) {
+            calls.remove(key, call);
+        } else {
+            CompletableFuture.delayedExecutor(ttl.toMillis(), TimeUnit.MILLISECONDS)
+                    .execute(() -> calls.remove(key, call));
+        }
+    }
+
+    private V await(CompletableFuture<V> call) {
+        try {
+            return call.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (ex.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+}
@@ -0,0 +1,350 @@
+package com.mealplanner.service;
+
+import com.mealplanner.config.ConcurrencyLimits;
+import com.mealplanner.model.MigrationCheckpoint;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.WriteModel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rewrites documents still below their collection's target schema version in the
+ * background. Batches are read in {@code _id} order straight from the driver, so read-time
+ * upgrades do not interfere, and written back with one unordered {@code bulkWrite} of
+ * conditional replaces: a document changed since it was read is skipped and picked up by
+ * a later pass. A document the server rejects outright, e.g. on a unique index, is parked:
+ * reported, recorded in the checkpoint and skipped from then on, so one bad document cannot
+ * stall its collection. Progress is checkpointed after every batch. The runner paces itself
+ * to a fixed document rate and pauses while the request limiters report the API as busy.
+ */
+@Slf4j
+@Service
+public class SchemaMigrationRunner implements SmartLifecycle {
+
+    private static final Duration PROGRESS_LOG_INTERVAL = Duration.ofSeconds(30);
+
+    private final MongoTemplate mongoTemplate;
+    private final MigrationRegistry migrationRegistry;
+    private final ObjectProvider<ConcurrencyLimits> concurrencyLimits;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Progress> progress = new ConcurrentHashMap<>();
+    private final Counter backoffs;
+
+    @Value("${mealplanner.migrations.background.enabled:true}")
+    private boolean enabled;
+
+    @Value("${mealplanner.migrations.background.start-delay:30s}")
+    private Duration startDelay;
+
+    @Value("${mealplanner.migrations.background.batch-size:200}")
+    private int batchSize;
+
+    @Value("${mealplanner.migrations.background.docs-per-second:500}")
+    private int docsPerSecond;
+
+    @Value("${mealplanner.migrations.background.busy-utilization:0.5}")
+    private double busyUtilization;
+
+    @Value("${mealplanner.migrations.background.busy-backoff:1s}")
+    private Duration busyBackoff;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public SchemaMigrationRunner(MongoTemplate mongoTemplate, MigrationRegistry migrationRegistry,
+                                 ObjectProvider<ConcurrencyLimits> concurrencyLimits,
+                                 MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.migrationRegistry = migrationRegistry;
+        this.concurrencyLimits = concurrencyLimits;
+        this.meterRegistry = meterRegistry;
+        this.backoffs = Counter.builder("mealplanner.migrations.backoffs").register(meterRegistry);
+    }
+
+    /** Live progress of one collection, exported as gauges. */
+    private static final class Progress {
+
+        private final Counter migrated;
+        private final Counter parked;
+        private volatile long remaining;
+        private volatile double docsPerSecond;
+
+        Progress(Counter migrated, Counter parked) {
+            this.migrated = migrated;
+            this.parked = parked;
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!enabled || migrationRegistry.migratedCollections().isEmpty()) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::run, "schema-migrations");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+            try {
+                worker.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void run() {
+        sleep(startDelay.toMillis());
+        long backoffMillis = 5_000;
+        List<String> pending = new ArrayList<>(migrationRegistry.migratedCollections().keySet());
+
+        while (running && !pending.isEmpty()) {
+            try {
+                migrate(pending.get(0));
+                pending.remove(0);
+                backoffMillis = 5_000;
+            } catch (RuntimeException ex) {
+                if (running) {
+                    log.warn("Schema migration of {} failed, retrying in {}ms: {}",
+                            pending.get(0), backoffMillis, ex.getMessage());
+                    sleep(backoffMillis);
+                    backoffMillis = Math.min(backoffMillis * 2, 300_000);
+                }
+            }
+        }
+        running = false;
+    }
+
+    /**
+     * Migrates one collection to its target version, resuming from its checkpoint.
+     */
+    void migrate(String collectionName) {
+        int targetVersion = migrationRegistry.targetVersion(collectionName);
+        String checkpointId = collectionName + ":v" + targetVersion;
+        MigrationCheckpoint checkpoint = mongoTemplate.findById(checkpointId, MigrationCheckpoint.class);
+        if (checkpoint != null && checkpoint.isCompleted()) {
+            return;
+        }
+        if (checkpoint == null) {
+            checkpoint = MigrationCheckpoint.builder()
+                    .id(checkpointId)
+                    .collectionName(collectionName)
+                    .targetVersion(targetVersion)
+                    .startedAt(Instant.now())
+                    .build();
+        }
+        if (checkpoint.getParkedIds() == null) {
+            checkpoint.setParkedIds(new ArrayList<>());
+        }
+
+        MongoCollection<Document> collection = mongoTemplate.getCollection(collectionName);
+        Bson stale = Filters.not(Filters.gte(MigrationRegistry.VERSION_FIELD, targetVersion));
+        Progress tracked = progressFor(collectionName);
+        tracked.remaining = collection.countDocuments(unparked(stale, checkpoint));
+        log.info("Migrating {} to schema v{}: {} documents remaining{}", collectionName, targetVersion,
+                tracked.remaining, checkpoint.getLastId() != null ? ", resuming after " + checkpoint.getLastId() : "");
+
+        long lastLogNanos = System.nanoTime();
+        while (running) {
+            awaitCapacity();
+            long batchStartNanos = System.nanoTime();
+
+            Bson pending = unparked(stale, checkpoint);
+            Bson filter = checkpoint.getLastId() == null ? pending
+                    : Filters.and(pending, Filters.gt("_id", checkpoint.getLastId()));
+            List<Document> batch = collection.find(filter)
+                    .sort(Sorts.ascending("_id"))
+                    .limit(batchSize)
+                    .into(new ArrayList<>());
+
+            if (batch.isEmpty()) {
+                long left = collection.countDocuments(pending);
+                tracked.remaining = left;
+                if (left == 0) {
+                    complete(checkpoint);
+                    return;
+                }
+                // Documents that changed under an earlier batch were skipped; sweep again
+                checkpoint.setLastId(null);
+                checkpoint.setRemaining(left);
+                checkpoint.setUpdatedAt(Instant.now());
+                mongoTemplate.save(checkpoint);
+                continue;
+            }
+
+            long matched = write(checkpoint, collection, stale, batch);
+            tracked.migrated.increment(matched);
+            tracked.remaining = Math.max(0, tracked.remaining - matched);
+
+            pace(batch.size(), batchStartNanos);
+            double seconds = (System.nanoTime() - batchStartNanos) / 1e9;
+            tracked.docsPerSecond = seconds > 0 ? matched / seconds : 0;
+
+            checkpoint.setLastId(batch.get(batch.size() - 1).get("_id"));
+            checkpoint.setMigrated(checkpoint.getMigrated() + matched);
+            checkpoint.setRemaining(tracked.remaining);
+            checkpoint.setDocsPerSecond(tracked.docsPerSecond);
+            checkpoint.setUpdatedAt(Instant.now());
+            mongoTemplate.save(checkpoint);
+
+            if (System.nanoTime() - lastLogNanos > PROGRESS_LOG_INTERVAL.toNanos()) {
+                log.info("Migrating {}: {} migrated, {} remaining, {} docs/s", collectionName,
+                        checkpoint.getMigrated(), tracked.remaining, Math.round(tracked.docsPerSecond));
+                lastLogNanos = System.nanoTime();
+            }
+        }
+    }
+
+    private static Bson unparked(Bson stale, MigrationCheckpoint checkpoint) {
+        return checkpoint.getParkedIds().isEmpty() ? stale
+                : Filters.and(stale, Filters.nin("_id", checkpoint.getParkedIds()));
+    }
+
+    /**
+     * Writes one batch back. Documents the server rejects are parked; write concern errors
+     * and anything else fail the pass, which is retried.
+     *
+     * @return number of documents replaced
+     */
+    private long write(MigrationCheckpoint checkpoint, MongoCollection<Document> collection, Bson stale,
+                       List<Document> batch) {
+        String collectionName = checkpoint.getCollectionName();
+        List<WriteModel<Document>> writes = new ArrayList<>(batch.size());
+        for (Document original : batch) {
+            Document upgraded = deepCopy(original);
+            migrationRegistry.upgrade(collectionName, upgraded);
+            Bson unchanged = Filters.and(
+                    Filters.eq("_id", original.get("_id")),
+                    stale,
+                    Filters.eq("updatedAt", original.get("updatedAt")));
+            writes.add(new ReplaceOneModel<>(unchanged, upgraded));
+        }
+        try {
+            BulkWriteResult result = collection.bulkWrite(writes, new BulkWriteOptions().ordered(false));
+            return result.getMatchedCount();
+        } catch (MongoBulkWriteException ex) {
+            if (ex.getWriteConcernError() != null) {
+                throw ex;
+            }
+            for (BulkWriteError error : ex.getWriteErrors()) {
+                Object id = batch.get(error.getIndex()).get("_id");
+                checkpoint.getParkedIds().add(id);
+                log.warn("Parked {} document {} below schema v{}: {}", collectionName, id,
+                        checkpoint.getTargetVersion(), error.getMessage());
+            }
+            progressFor(collectionName).parked.increment(ex.getWriteErrors().size());
+            return ex.getWriteResult().getMatchedCount();
+        }
+    }
+
+    private static Document deepCopy(Document document) {
+        Document copy = new Document();
+        document.forEach((key, value) -> copy.put(key, deepCopyValue(value)));
+        return copy;
+    }
+
+    private static Object deepCopyValue(Object value) {
+        if (value instanceof Document nested) {
+            return deepCopy(nested);
+        }
+        if (value instanceof List<?> list) {
+            return list.stream().map(SchemaMigrationRunner::deepCopyValue).toList();
+        }
+        return value;
+    }
+
+    private void complete(MigrationCheckpoint checkpoint) {
+        Instant now = Instant.now();
+        checkpoint.setCompleted(true);
+        checkpoint.setRemaining(0);
+        checkpoint.setUpdatedAt(now);
+        checkpoint.setCompletedAt(now);
+        mongoTemplate.save(checkpoint);
+        if (checkpoint.getParkedIds().isEmpty()) {
+            log.info("Migrated {} to schema v{}: {} documents", checkpoint.getCollectionName(),
+                    checkpoint.getTargetVersion(), checkpoint.getMigrated());
+        } else {
+            log.warn("Migrated {} to schema v{}: {} documents, {} parked and left to read-time upgrades: {}",
+                    checkpoint.getCollectionName(), checkpoint.getTargetVersion(), checkpoint.getMigrated(),
+                    checkpoint.getParkedIds().size(), checkpoint.getParkedIds());
+        }
+    }
+
+    /**
+     * Waits while the API is busy, so the migration only uses spare capacity.
+     */
+    private void awaitCapacity() {
+        ConcurrencyLimits limiter = concurrencyLimits.getIfAvailable();
+        while (running && limiter != null && limiter.utilization() > busyUtilization) {
+            backoffs.increment();
+            sleep(busyBackoff.toMillis());
+        }
+    }
+
+    private void pace(int documents, long batchStartNanos) {
+        long minimumNanos = TimeUnit.SECONDS.toNanos(documents) / Math.max(1, docsPerSecond);
+        long remainingNanos = minimumNanos - (System.nanoTime() - batchStartNanos);
+        if (remainingNanos > 0) {
+            sleep(TimeUnit.NANOSECONDS.toMillis(remainingNanos));
+        }
+    }
+
+    private Progress progressFor(String collectionName) {
+        return progress.computeIfAbsent(collectionName, name -> {
+            Progress created = new Progress(
+                    Counter.builder("mealplanner.migrations.migrated").tag("collection", name).register(meterRegistry),
+                    Counter.builder("mealplanner.migrations.parked").tag("collection", name).register(meterRegistry));
+            Gauge.builder("mealplanner.migrations.remaining", created, p -> p.remaining)
+                    .tag("collection", name)
+                    .register(meterRegistry);
+            Gauge.builder("mealplanner.migrations.rate", created, p -> p.docsPerSecond)
+                    .tag("collection", name)
+                    .register(meterRegistry);
+            return created;
+        });
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
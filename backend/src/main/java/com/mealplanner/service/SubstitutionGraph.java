@@ -0,0 +1,255 @@
+package com.mealplanner.service;
+
+import com.mealplanner.model.IngredientSubstitution;
+import com.mealplanner.model.RecipeIngredient;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToDoubleBiFunction;
+
+/**
+ * A household's substitution graph compiled for lookups that never walk the graph. Ingredient
+ * names are interned to ints and, for every ingredient, each way of replacing it through a
+ * chain of up to {@code maxDepth} substitutions is precomputed. One such option is a set of
+ * substitute amounts per canonical unit of the replaced ingredient plus the summed cost. The
+ * options are stored cheapest first in flat arrays indexed by ingredient id, so matching a
+ * recipe ingredient against the pantry is one hash lookup and a scan of a few options.
+ */
+final class SubstitutionGraph {
+
+    static final SubstitutionGraph EMPTY = compile(List.of(), new UnitConversionService(), 1, 1);
+
+    private static final double EPSILON = 1e-6;
+
+    private final Map<String, Integer> ids;
+    private final String[] names;
+    /** Options of ingredient {@code i} are {@code optionStart[i]} to {@code optionStart[i + 1] - 1}. */
+    private final int[] optionStart;
+    private final String[] optionUnit;
+    /** Parts of option {@code o} are {@code partStart[o]} to {@code partStart[o + 1] - 1}. */
+    private final int[] partStart;
+    private final int[] partIngredient;
+    private final String[] partUnit;
+    private final double[] partAmount;
+
+    private record Part(int ingredient, String unit) {
+    }
+
+    /** Replaces one {@code unit} of an ingredient with {@code parts}, amounts per that unit. */
+    private record Option(String unit, double cost, Map<Part, Double> parts) {
+
+        Object key() {
+            return List.of(unit, parts);
+        }
+    }
+
+    private static final Comparator<Option> CHEAPEST_FIRST = Comparator.comparingDouble(Option::cost)
+            .thenComparingInt(option -> option.parts().size());
+
+    private SubstitutionGraph(Map<String, Integer> ids, List<String> names, List<List<Option>> options) {
+        this.ids = Map.copyOf(ids);
+        this.names = names.toArray(String[]::new);
+
+        int optionCount = 0;
+        int partCount = 0;
+        for (List<Option> ingredientOptions : options) {
+            optionCount += ingredientOptions.size();
+            for (Option option : ingredientOptions) {
+                partCount += option.parts().size();
+            }
+        }
+
+        optionStart = new int[this.names.length + 1];
+        optionUnit = new String[optionCount];
+        partStart = new int[optionCount + 1];
+        partIngredient = new int[partCount];
+        partUnit = new String[partCount];
+        partAmount = new double[partCount];
+
+        int o = 0;
+        int p = 0;
+        for (int ingredient = 0; ingredient < this.names.length; ingredient++) {
+            optionStart[ingredient] = o;
+            for (Option option : options.get(ingredient)) {
+                optionUnit[o] = option.unit();
+                partStart[o] = p;
+                for (Map.Entry<Part, Double> part : option.parts().entrySet()) {
+                    partIngredient[p] = part.getKey().ingredient();
+                    partUnit[p] = part.getKey().unit();
+                    partAmount[p] = part.getValue();
+                    p++;
+                }
+                o++;
+            }
+        }
+        optionStart[this.names.length] = o;
+        partStart[optionCount] = p;
+    }
+
+    /**
+     * Builds the closure of {@code substitutions}. Quantities are normalized to canonical
+     * units, so a substitution only applies where the recipe's unit has the same dimension.
+     * Chains that lead back to the ingredient being replaced are dropped, and each ingredient
+     * keeps at most {@code maxOptions} options, cheapest first.
+     */
+    static SubstitutionGraph compile(Collection<IngredientSubstitution> substitutions, UnitConversionService units,
+                                     int maxDepth, int maxOptions) {
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> names = new ArrayList<>();
+        Map<Integer, List<Option>> direct = new HashMap<>();
+
+        for (IngredientSubstitution substitution : substitutions) {
+            if (substitution.getIngredientNormalized() == null || substitution.getSubstitutes() == null) {
+                continue;
+            }
+            UnitConversionService.Quantity replaced = units.normalize(substitution.getQuantity(), substitution.getUnit());
+            if (replaced.amount() <= 0) {
+                continue;
+            }
+            int target = intern(normalize(substitution.getIngredientNormalized()), ids, names);
+
+            Map<Part, Double> parts = new HashMap<>();
+            boolean selfReferencing = false;
+            for (RecipeIngredient substitute : substitution.getSubstitutes()) {
+                if (substitute.getName() == null) {
+                    continue;
+                }
+                int ingredient = intern(normalize(substitute.getName()), ids, names);
+                selfReferencing |= ingredient == target;
+                UnitConversionService.Quantity amount = units.normalize(substitute.getQuantity(), substitute.getUnit());
+                parts.merge(new Part(ingredient, amount.unit()), amount.amount() / replaced.amount(), Double::sum);
+            }
+            if (!selfReferencing && !parts.isEmpty()) {
+                direct.computeIfAbsent(target, id -> new ArrayList<>())
+                        .add(new Option(replaced.unit(), substitution.getCost(), Map.copyOf(parts)));
+            }
+        }
+
+        List<List<Option>> options = new ArrayList<>(names.size());
+        for (int ingredient = 0; ingredient < names.size(); ingredient++) {
+            options.add(close(ingredient, direct, maxDepth, maxOptions));
+        }
+        return new SubstitutionGraph(ids, names, options);
+    }
+
+    /**
+     * Expands the direct options of {@code target} level by level: at each level one part of
+     * an option is replaced by one of that part's own direct options.
+     */
+    private static List<Option> close(int target, Map<Integer, List<Option>> direct, int maxDepth, int maxOptions) {
+        List<Option> first = direct.get(target);
+        if (first == null) {
+            return List.of();
+        }
+
+        Map<Object, Option> best = new HashMap<>();
+        List<Option> frontier = new ArrayList<>();
+        for (Option option : first) {
+            if (keepIfCheaper(option, best)) {
+                frontier.add(option);
+            }
+        }
+
+        for (int depth = 2; depth <= maxDepth && !frontier.isEmpty(); depth++) {
+            List<Option> next = new ArrayList<>();
+            for (Option option : cheapest(frontier, maxOptions)) {
+                for (Map.Entry<Part, Double> part : option.parts().entrySet()) {
+                    for (Option replacement : direct.getOrDefault(part.getKey().ingredient(), List.of())) {
+                        if (!replacement.unit().equals(part.getKey().unit())) {
+                            continue;
+                        }
+                        Option expanded = expand(option, part.getKey(), part.getValue(), replacement, target);
+                        if (expanded != null && keepIfCheaper(expanded, best)) {
+                            next.add(expanded);
+                        }
+                    }
+                }
+            }
+            frontier = next;
+        }
+        return cheapest(best.values(), maxOptions);
+    }
+
+    private static Option expand(Option option, Part replacedPart, double replacedAmount, Option replacement,
+                                 int target) {
+        Map<Part, Double> parts = new HashMap<>(option.parts());
+        parts.remove(replacedPart);
+        for (Map.Entry<Part, Double> part : replacement.parts().entrySet()) {
+            if (part.getKey().ingredient() == target) {
+                return null;
+            }
+            parts.merge(part.getKey(), part.getValue() * replacedAmount, Double::sum);
+        }
+        return new Option(option.unit(), option.cost() + replacement.cost(), Map.copyOf(parts));
+    }
+
+    private static boolean keepIfCheaper(Option option, Map<Object, Option> best) {
+        Option known = best.get(option.key());
+        if (known != null && known.cost() <= option.cost()) {
+            return false;
+        }
+        best.put(option.key(), option);
+        return true;
+    }
+
+    private static List<Option> cheapest(Collection<Option> options, int limit) {
+        return options.stream().sorted(CHEAPEST_FIRST).limit(limit).toList();
+    }
+
+    private static int intern(String name, Map<String, Integer> ids, List<String> names) {
+        return ids.computeIfAbsent(name, key -> {
+            names.add(key);
+            return names.size() - 1;
+        });
+    }
+
+    private static String normalize(String name) {
+        return name.toLowerCase(Locale.ROOT).trim();
+    }
+
+    /**
+     * Whether one of the precomputed options for {@code ingredient} is fully covered by the
+     * pantry for {@code amount} of canonical {@code unit}. {@code stock} returns the available
+     * quantity of an ingredient in a canonical unit.
+     */
+    boolean canSubstitute(String ingredient, double amount, String unit, ToDoubleBiFunction<String, String> stock) {
+        Integer id = ids.get(ingredient);
+        if (id == null) {
+            return false;
+        }
+        for (int o = optionStart[id]; o < optionStart[id + 1]; o++) {
+            if (!optionUnit[o].equals(unit)) {
+                continue;
+            }
+            boolean covered = true;
+            for (int p = partStart[o]; p < partStart[o + 1] && covered; p++) {
+                double have = stock.applyAsDouble(names[partIngredient[p]], partUnit[p]);
+                covered = have > 0 && have + EPSILON >= amount * partAmount[p];
+            }
+            if (covered) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Every ingredient that appears in an option for {@code ingredient}. */
+    Set<String> substitutesOf(String ingredient) {
+        Integer id = ids.get(ingredient);
+        if (id == null) {
+            return Set.of();
+        }
+        Set<String> substitutes = new LinkedHashSet<>();
+        for (int p = partStart[optionStart[id]]; p < partStart[optionStart[id + 1]]; p++) {
+            substitutes.add(names[partIngredient[p]]);
+        }
+        return substitutes;
+    }
+}
@@ -0,0 +1,167 @@
+package com.mealplanner.service;
+
+import com.mealplanner.dto.RecipeIngredientDto;
+import com.mealplanner.dto.SubstitutionCreateRequest;
+import com.mealplanner.dto.SubstitutionListResponse;
+import com.mealplanner.dto.SubstitutionResponse;
+import com.mealplanner.dto.SubstitutionUpdateRequest;
+import com.mealplanner.exception.ResourceNotFoundException;
+import com.mealplanner.model.IngredientSubstitution;
+import com.mealplanner.repository.IngredientSubstitutionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * CRUD for a household's ingredient substitutions and the compiled {@link SubstitutionGraph}
+ * that cookability checks query. A household's graph is compiled on first use and kept in a
+ * least-recently-used cache of {@code cache-size} households; concurrent requests for a graph
+ * that is not cached share one compile. Writes on this instance drop the graph at once, writes
+ * on other instances (or a compile that raced a local write) are picked up once it is older
+ * than the refresh interval.
+ */
+@Service
+public class SubstitutionService {
+
+    static final Sort LIST_SORT = Sort.by(Sort.Direction.ASC, "ingredientNormalized");
+
+    private final IngredientSubstitutionRepository substitutionRepository;
+    private final MongoTemplate mongoTemplate;
+    private final UnitConversionService unitConversionService;
+    private final Timer compileTimer;
+    private final RequestCoalescer<String, SubstitutionGraph> compiles;
+    private final Map<String, CompiledGraph> graphs = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CompiledGraph> eldest) {
+                    return size() > cacheSize;
+                }
+            });
+
+    @Value("${mealplanner.substitutions.max-depth:3}")
+    private int maxDepth;
+
+    @Value("${mealplanner.substitutions.max-options:16}")
+    private int maxOptions;
+
+    @Value("${mealplanner.substitutions.refresh-interval:5m}")
+    private Duration refreshInterval;
+
+    @Value("${mealplanner.substitutions.cache-size:10000}")
+    private int cacheSize;
+
+    public SubstitutionService(IngredientSubstitutionRepository substitutionRepository, MongoTemplate mongoTemplate,
+                               UnitConversionService unitConversionService, MeterRegistry meterRegistry) {
+        this.substitutionRepository = substitutionRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.unitConversionService = unitConversionService;
+        this.compileTimer = Timer.builder("mealplanner.substitutions.compile").register(meterRegistry);
+        this.compiles = new RequestCoalescer<>("substitutions.compile", Duration.ZERO, meterRegistry);
+    }
+
+    private record CompiledGraph(SubstitutionGraph graph, Instant compiledAt) {
+    }
+
+    public SubstitutionListResponse listSubstitutions(String householdId, String ingredient, int limit, int offset) {
+        Query query = buildListQuery(householdId, ingredient);
+        long total = mongoTemplate.count(query, IngredientSubstitution.class);
+
+        query.with(LIST_SORT).skip(offset).limit(limit);
+        List<IngredientSubstitution> items = mongoTemplate.find(query, IngredientSubstitution.class);
+
+        return SubstitutionListResponse.builder()
+                .items(items.stream().map(SubstitutionResponse::fromEntity).toList())
+                .total(total)
+                .build();
+    }
+
+    public SubstitutionResponse getSubstitution(String householdId, String id) {
+        return SubstitutionResponse.fromEntity(loadSubstitution(householdId, id));
+    }
+
+    public SubstitutionResponse createSubstitution(String householdId, SubstitutionCreateRequest request) {
+        IngredientSubstitution substitution = IngredientSubstitution.builder()
+                .householdId(householdId)
+                .ingredient(request.getIngredient())
+                .ingredientNormalized(normalize(request.getIngredient()))
+                .quantity(request.getQuantity())
+                .unit(request.getUnit())
+                .substitutes(request.getSubstitutes().stream().map(RecipeIngredientDto::toEntity).toList())
+                .cost(request.getCost())
+                .build();
+
+        IngredientSubstitution saved = substitutionRepository.save(substitution);
+        graphs.remove(householdId);
+        return SubstitutionResponse.fromEntity(saved);
+    }
+
+    public SubstitutionResponse updateSubstitution(String householdId, String id, SubstitutionUpdateRequest request) {
+        IngredientSubstitution substitution = loadSubstitution(householdId, id);
+
+        substitution.setIngredient(request.getIngredient());
+        substitution.setIngredientNormalized(normalize(request.getIngredient()));
+        substitution.setQuantity(request.getQuantity());
+        substitution.setUnit(request.getUnit());
+        substitution.setSubstitutes(request.getSubstitutes().stream().map(RecipeIngredientDto::toEntity).toList());
+        substitution.setCost(request.getCost());
+
+        IngredientSubstitution saved = substitutionRepository.save(substitution);
+        graphs.remove(householdId);
+        return SubstitutionResponse.fromEntity(saved);
+    }
+
+    public void deleteSubstitution(String householdId, String id) {
+        substitutionRepository.delete(loadSubstitution(householdId, id));
+        graphs.remove(householdId);
+    }
+
+    /**
+     * The household's compiled graph, compiling it when it is missing or older than the
+     * refresh interval.
+     */
+    SubstitutionGraph graphFor(String householdId) {
+        CompiledGraph cached = graphs.get(householdId);
+        if (cached != null && cached.compiledAt().plus(refreshInterval).isAfter(Instant.now())) {
+            return cached.graph();
+        }
+
+        return compiles.execute(householdId, () -> {
+            Instant compiledAt = Instant.now();
+            SubstitutionGraph graph = compileTimer.record(() -> SubstitutionGraph.compile(
+                    substitutionRepository.findByHouseholdId(householdId), unitConversionService,
+                    maxDepth, maxOptions));
+            graphs.put(householdId, new CompiledGraph(graph, compiledAt));
+            return graph;
+        });
+    }
+
+    private IngredientSubstitution loadSubstitution(String householdId, String id) {
+        return substitutionRepository.findByIdAndHouseholdId(id, householdId)
+                .orElseThrow(() -> new ResourceNotFoundException("Substitution", id));
+    }
+
+    static Query buildListQuery(String householdId, String ingredient) {
+        Query query = Query.query(Criteria.where("householdId").is(householdId));
+        if (ingredient != null && !ingredient.isBlank()) {
+            query.addCriteria(Criteria.where("ingredientNormalized").is(normalize(ingredient)));
+        }
+        return query;
+    }
+
+    private static String normalize(String name) {
+        return name.toLowerCase(Locale.ROOT).trim();
+    }
+}
@@ -0,0 +1,90 @@
+package com.mealplanner.service;
+
+import org.springframework.stereotype.Service;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Normalizes quantities to one canonical unit per dimension: grams for mass, millilitres
+ * for volume and "each" for counts. Units it does not recognise are kept as-is, so two
+ * quantities only combine when they are genuinely comparable.
+ */
+@Service
+public class UnitConversionService {
+
+    public static final String GRAM = "g";
+    public static final String MILLILITRE = "ml";
+    public static final String EACH = "each";
+
+    private static final Map<String, Conversion> CONVERSIONS = Map.ofEntries(
+            Map.entry("mg", new Conversion(GRAM, 0.001)),
+            Map.entry("g", new Conversion(GRAM, 1)),
+            Map.entry("gram", new Conversion(GRAM, 1)),
+            Map.entry("grams", new Conversion(GRAM, 1)),
+            Map.entry("kg", new Conversion(GRAM, 1000)),
+            Map.entry("kilogram", new Conversion(GRAM, 1000)),
+            Map.entry("kilograms", new Conversion(GRAM, 1000)),
+            Map.entry("oz", new Conversion(GRAM, 28.349523125)),
+            Map.entry("ounce", new Conversion(GRAM, 28.349523125)),
+            Map.entry("ounces", new Conversion(GRAM, 28.349523125)),
+            Map.entry("lb", new Conversion(GRAM, 453.59237)),
+            Map.entry("lbs", new Conversion(GRAM, 453.59237)),
+            Map.entry("pound", new Conversion(GRAM, 453.59237)),
+            Map.entry("pounds", new Conversion(GRAM, 453.59237)),
+            Map.entry("ml", new Conversion(MILLILITRE, 1)),
+            Map.entry("millilitre", new Conversion(MILLILITRE, 1)),
+            Map.entry("milliliter", new Conversion(MILLILITRE, 1)),
+            Map.entry("l", new Conversion(MILLILITRE, 1000)),
+            Map.entry("litre", new Conversion(MILLILITRE, 1000)),
+            Map.entry("liter", new Conversion(MILLILITRE, 1000)),
+            Map.entry("litres", new Conversion(MILLILITRE, 1000)),
+            Map.entry("liters", new Conversion(MILLILITRE, 1000)),
+            Map.entry("tsp", new Conversion(MILLILITRE, 4.92892159375)),
+            Map.entry("teaspoon", new Conversion(MILLILITRE, 4.92892159375)),
+            Map.entry("teaspoons", new Conversion(MILLILITRE, 4.92892159375)),
+            Map.entry("tbsp", new Conversion(MILLILITRE, 14.78676478125)),
+            Map.entry("tablespoon", new Conversion(MILLILITRE, 14.78676478125)),
+            Map.entry("tablespoons", new Conversion(MILLILITRE, 14.78676478125)),
+            Map.entry("fl oz", new Conversion(MILLILITRE, 29.5735295625)),
+            Map.entry("cup", new Conversion(MILLILITRE, 236.5882365)),
+            Map.entry("cups", new Conversion(MILLILITRE, 236.5882365)),
+            Map.entry("pint", new Conversion(MILLILITRE, 473.176473)),
+            Map.entry("pints", new Conversion(MILLILITRE, 473.176473)),
+            Map.entry("quart", new Conversion(MILLILITRE, 946.352946)),
+            Map.entry("quarts", new Conversion(MILLILITRE, 946.352946)),
+            Map.entry("gallon", new Conversion(MILLILITRE, 3785.411784)),
+            Map.entry("gallons", new Conversion(MILLILITRE, 3785.411784)),
+            Map.entry("each", new Conversion(EACH, 1)),
+            Map.entry("ea", new Conversion(EACH, 1)),
+            Map.entry("count", new Conversion(EACH, 1)),
+            Map.entry("pc", new Conversion(EACH, 1)),
+            Map.entry("pcs", new Conversion(EACH, 1)),
+            Map.entry("piece", new Conversion(EACH, 1)),
+            Map.entry("pieces", new Conversion(EACH, 1)),
+            Map.entry("unit", new Conversion(EACH, 1)),
+            Map.entry("units", new Conversion(EACH, 1))
+    );
+
+    public record Quantity(double amount, String unit) {
+    }
+
+    private record Conversion(String canonicalUnit, double factor) {
+    }
+
+    public Quantity normalize(double amount, String unit) {
+        String key = unit != null ? unit.toLowerCase(Locale.ROOT).trim() : "";
+        if (key.isEmpty()) {
+            return new Quantity(amount, EACH);
+        }
+        Conversion conversion = CONVERSIONS.get(key);
+        if (conversion == null) {
+            return new Quantity(amount, key);
+        }
+        return new Quantity(amount * conversion.factor(), conversion.canonicalUnit());
+    }
+
+    public String canonicalUnit(String unit) {
+        return normalize(0, unit).unit();
+    }
+}
@@ -0,0 +1,86 @@
+package com.mealplanner.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mealplanner.service.HouseholdService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class ConcurrencyLimitWebFilterTest {
+
+    private ConcurrencyLimits limits;
+    private WebTestClient client;
+
+    @BeforeEach
+    void setUp() {
+        ConcurrencyLimitProperties properties = new ConcurrencyLimitProperties();
+        properties.setBulk(new ConcurrencyLimitProperties.Budget(1, 1, 1));
+        HouseholdProperties householdProperties = new HouseholdProperties();
+        householdProperties.setQuota(new HouseholdProperties.Quota(10, 10, 2));
+        limits = new ConcurrencyLimits(properties,
+                new HouseholdService(mock(MongoTemplate.class), householdProperties), new SimpleMeterRegistry());
+        client = WebTestClient.bindToController(new ExportController())
+                .webFilter(new ConcurrencyLimitWebFilter(limits, new ObjectMapper()))
+                .build();
+    }
+
+    @Test
+    void shedsExportsBeyondTheBulkBudget() {
+        ConcurrencyLimits.Admission held = limits.admit("other", "GET", "/api/recipes/export");
+
+        client.get().uri("/api/recipes/export").header(HouseholdService.HOUSEHOLD_HEADER, "family").exchange()
+                .expectStatus().isEqualTo(HttpStatus.SERVICE_UNAVAILABLE)
+                .expectHeader().valueEquals(HttpHeaders.RETRY_AFTER, "1")
+                .expectBody().jsonPath("$.code").isEqualTo("SERVICE_OVERLOADED");
+
+        held.release();
+        client.get().uri("/api/recipes/export").header(HouseholdService.HOUSEHOLD_HEADER, "family").exchange()
+                .expectStatus().isOk();
+        assertThat(limits.utilization()).isZero();
+    }
+
+    @Test
+    void rejectsRequestsWithoutAHousehold() {
+        client.get().uri("/api/recipes").exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.code").isEqualTo("VALIDATION_ERROR");
+    }
+
+    @Test
+    void capsEachHouseholdsInFlightRequests() {
+        ConcurrencyLimits.Admission first = limits.admit("busy", "GET", "/api/recipes");
+        ConcurrencyLimits.Admission second = limits.admit("busy", "GET", "/api/recipes");
+
+        client.get().uri("/api/recipes").header(HouseholdService.HOUSEHOLD_HEADER, "busy").exchange()
+                .expectStatus().isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        client.get().uri("/api/recipes").header(HouseholdService.HOUSEHOLD_HEADER, "quiet").exchange()
+                .expectStatus().isOk();
+
+        first.release();
+        second.release();
+    }
+
+    @RestController
+    static class ExportController {
+
+        @GetMapping("/api/recipes/export")
+        Flux<String> export() {
+            return Flux.just("a", "b");
+        }
+
+        @GetMapping("/api/recipes")
+        String list() {
+            return "[]";
+        }
+    }
+}
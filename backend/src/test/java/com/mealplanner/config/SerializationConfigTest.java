@@ -0,0 +1,137 @@
+package com.mealplanner.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.mealplanner.dto.RecipeIngredientDto;
+import com.mealplanner.dto.RecipeResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Negotiates {@code application/cbor} through the converter and codec beans that
+ * {@link SerializationConfig} contributes on each stack, built from Boot's Jackson setup.
+ */
+class SerializationConfigTest {
+
+    private static final MediaType CBOR = MediaType.parseMediaType("application/cbor");
+    private static final ObjectMapper CBOR_READER = new ObjectMapper(new CBORFactory()).findAndRegisterModules();
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(JacksonAutoConfiguration.class))
+            .withUserConfiguration(SerializationConfig.class);
+
+    @Test
+    void servletStackReadsAndWritesCbor() {
+        contextRunner.run(context -> {
+            MappingJackson2CborHttpMessageConverter converter =
+                    context.getBean(MappingJackson2CborHttpMessageConverter.class);
+            assertThat(converter.getObjectMapper().getRegisteredModuleIds())
+                    .anySatisfy(id -> assertThat(id.toString()).contains("Blackbird"));
+            assertThat(context).doesNotHaveBean(CodecCustomizer.class);
+
+            MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new RecipeEchoController())
+                    .setMessageConverters(converter,
+                            new MappingJackson2HttpMessageConverter(context.getBean(ObjectMapper.class)))
+                    .build();
+
+            MvcResult fetched = mockMvc.perform(get("/recipe").accept(CBOR))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentTypeCompatibleWith(CBOR))
+                    .andReturn();
+            assertThat(CBOR_READER.readValue(fetched.getResponse().getContentAsByteArray(), RecipeResponse.class))
+                    .isEqualTo(recipe());
+
+            MvcResult echoed = mockMvc.perform(post("/recipe")
+                            .contentType(CBOR)
+                            .content(CBOR_READER.writeValueAsBytes(recipe()))
+                            .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                    .andReturn();
+            assertThat(context.getBean(ObjectMapper.class)
+                    .readValue(echoed.getResponse().getContentAsByteArray(), RecipeResponse.class))
+                    .isEqualTo(recipe());
+        });
+    }
+
+    @Test
+    void reactiveStackReadsAndWritesCbor() {
+        contextRunner
+                .withInitializer(context -> context.getEnvironment().setActiveProfiles("reactive"))
+                .run(context -> {
+                    assertThat(context).doesNotHaveBean(MappingJackson2CborHttpMessageConverter.class);
+                    CodecCustomizer customizer = context.getBean(CodecCustomizer.class);
+                    WebTestClient client = WebTestClient.bindToController(new RecipeEchoController())
+                            .httpMessageCodecs(customizer::customize)
+                            .build();
+
+                    byte[] fetched = client.get().uri("/recipe").accept(CBOR)
+                            .exchange()
+                            .expectStatus().isOk()
+                            .expectHeader().contentTypeCompatibleWith(CBOR)
+                            .expectBody().returnResult().getResponseBody();
+                    assertThat(CBOR_READER.readValue(fetched, RecipeResponse.class)).isEqualTo(recipe());
+
+                    byte[] echoed = client.post().uri("/recipe")
+                            .contentType(CBOR)
+                            .bodyValue(CBOR_READER.writeValueAsBytes(recipe()))
+                            .accept(CBOR)
+                            .exchange()
+                            .expectStatus().isOk()
+                            .expectHeader().contentTypeCompatibleWith(CBOR)
+                            .expectBody().returnResult().getResponseBody();
+                    assertThat(CBOR_READER.readValue(echoed, RecipeResponse.class)).isEqualTo(recipe());
+                });
+    }
+
+    private static RecipeResponse recipe() {
+        Instant now = Instant.parse("2026-01-15T12:00:00Z");
+        return RecipeResponse.builder()
+                .id("65a100000000000000000001")
+                .name("Pancakes")
+                .ingredients(List.of(RecipeIngredientDto.builder().name("flour").quantity(200).unit("g").build()))
+                .instructions(List.of("Mix", "Fry"))
+                .servings(2)
+                .tags(List.of("breakfast"))
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+    }
+
+    @RestController
+    static class RecipeEchoController {
+
+        @GetMapping("/recipe")
+        RecipeResponse get() {
+            return recipe();
+        }
+
+        @PostMapping("/recipe")
+        RecipeResponse echo(@RequestBody RecipeResponse recipe) {
+            return recipe;
+        }
+    }
+}
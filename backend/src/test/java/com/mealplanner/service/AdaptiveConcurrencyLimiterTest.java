@@ -0,0 +1,51 @@
+package com.mealplanner.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long MILLIS = 1_000_000L;
+
+    @Test
+    void rejectsBeyondLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 2, 1, 10, new SimpleMeterRegistry());
+
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isFalse();
+
+        limiter.release(5 * MILLIS);
+        assertThat(limiter.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void shrinksWhenLatencyRisesAndGrowsWhenItRecovers() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 20, 2, 100, new SimpleMeterRegistry());
+
+        runSaturated(limiter, 2_000, 5 * MILLIS);
+        int steady = limiter.getLimit();
+
+        runSaturated(limiter, 200, 100 * MILLIS);
+        int congested = limiter.getLimit();
+        assertThat(congested).isLessThan(steady);
+
+        runSaturated(limiter, 2_000, 5 * MILLIS);
+        assertThat(limiter.getLimit()).isGreaterThan(congested);
+    }
+
+    private static void runSaturated(AdaptiveConcurrencyLimiter limiter, int samples, long rttNanos) {
+        int taken = 0;
+        while (taken < samples) {
+            int acquired = 0;
+            while (limiter.tryAcquire()) {
+                acquired++;
+            }
+            for (int i = 0; i < acquired; i++, taken++) {
+                limiter.release(rttNanos);
+            }
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.mealplanner.service;
+
+import com.mealplanner.dto.ChangeEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChangeEventServiceTest {
+
+    @Test
+    void deliversOnlyTheSubscribersHouseholdInOrder() throws Exception {
+        ChangeEventService service = service(16);
+        RecordingSink family = new RecordingSink();
+        RecordingSink neighbours = new RecordingSink();
+        service.subscribe("family", null, family);
+        service.subscribe("neighbours", null, neighbours);
+
+        publish(service, "family", "lot-1");
+        publish(service, "neighbours", "lot-2");
+        publish(service, "family", "lot-3");
+
+        assertThat(family.take(2)).containsExactly("change lot-1", "change lot-3");
+        assertThat(neighbours.take(1)).containsExactly("change lot-2");
+        assertThat(family.poll()).isNull();
+    }
+
+    @Test
+    void resumesAfterLastEventIdWithoutGapsOrDuplicates() throws Exception {
+        ChangeEventService service = service(16);
+        RecordingSink first = new RecordingSink();
+        Runnable unsubscribe = service.subscribe("family", null, first);
+        publish(service, "family", "lot-1");
+        publish(service, "family", "lot-2");
+        first.take(2);
+        String lastEventId = first.lastEventId;
+        unsubscribe.run();
+        assertThat(first.completed).isTrue();
+
+        publish(service, "family", "lot-3");
+        publish(service, "neighbours", "lot-4");
+        publish(service, "family", "lot-5");
+
+        RecordingSink resumed = new RecordingSink();
+        service.subscribe("family", lastEventId, resumed);
+        publish(service, "family", "lot-6");
+
+        assertThat(resumed.take(3)).containsExactly("change lot-3", "change lot-5", "change lot-6");
+        assertThat(resumed.poll()).isNull();
+    }
+
+    @Test
+    void resetsWhenTheResumePointIsUnknownOrEvicted() throws Exception {
+        ChangeEventService service = service(4);
+        RecordingSink first = new RecordingSink();
+        service.subscribe("family", null, first);
+        publish(service, "family", "lot-1");
+        first.take(1);
+        String evicted = first.lastEventId;
+        for (int i = 2; i <= 8; i++) {
+            publish(service, "family", "lot-" + i);
+        }
+
+        RecordingSink fromEvicted = new RecordingSink();
+        service.subscribe("family", evicted, fromEvicted);
+        RecordingSink fromOtherProcess = new RecordingSink();
+        service.subscribe("family", "0badc0de-3", fromOtherProcess);
+
+        assertThat(fromEvicted.take(1)).containsExactly("reset");
+        assertThat(fromOtherProcess.take(1)).containsExactly("reset");
+        publish(service, "family", "lot-9");
+        assertThat(fromEvicted.take(1)).containsExactly("change lot-9");
+    }
+
+    @Test
+    void deliversConcurrentPublishesWithoutDroppingAny() throws Exception {
+        ChangeEventService service = service(4096);
+        ReflectionTestUtils.setField(service, "queueSize", 4096);
+        RecordingSink family = new RecordingSink();
+        service.subscribe("family", null, family);
+
+        ExecutorService publishers = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 2_000; i++) {
+            String id = "lot-" + i;
+            publishers.execute(() -> publish(service, "family", id));
+        }
+        publishers.shutdown();
+        assertThat(publishers.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(family.take(2_000)).doesNotHaveDuplicates();
+        assertThat(family.poll()).isNull();
+        assertThat(family.completed).isFalse();
+    }
+
+    private static ChangeEventService service(int historySize) {
+        ChangeEventService service = new ChangeEventService(historySize, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "heartbeat", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(service, "queueSize", 64);
+        return service;
+    }
+
+    private static void publish(ChangeEventService service, String householdId, String id) {
+        service.publish(householdId, ChangeEvent.PANTRY_LOT, id, ChangeEvent.Operation.UPDATED, null);
+    }
+
+    private static final class RecordingSink implements ChangeEventService.Sink {
+
+        private final BlockingQueue<String> received = new LinkedBlockingQueue<>();
+        private volatile String lastEventId;
+        private volatile boolean completed;
+
+        @Override
+        public void change(String eventId, ChangeEvent event) {
+            lastEventId = eventId;
+            received.add("change " + event.getId());
+        }
+
+        @Override
+        public void reset(String eventId) {
+            lastEventId = eventId;
+            received.add("reset");
+        }
+
+        @Override
+        public void keepalive() {
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+
+        List<String> take(int count) throws InterruptedException {
+            List<String> taken = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                String next = received.poll(5, TimeUnit.SECONDS);
+                assertThat(next).as("event %d of %d", i + 1, count).isNotNull();
+                taken.add(next);
+            }
+            return taken;
+        }
+
+        String poll() throws InterruptedException {
+            return received.poll(200, TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.mealplanner.service;
+
+import com.mealplanner.dto.RecipeSuggestionListResponse;
+import com.mealplanner.dto.RecipeSuggestionResponse;
+import com.mealplanner.exception.InvalidParameterException;
+import com.mealplanner.model.IngredientSubstitution;
+import com.mealplanner.model.PantryLot;
+import com.mealplanner.model.PantryTotal;
+import com.mealplanner.model.Recipe;
+import com.mealplanner.model.RecipeIngredient;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CookabilityServiceTest {
+
+    private MongoTemplate mongoTemplate;
+    private PantryExpiryService pantryExpiryService;
+    private SubstitutionService substitutionService;
+    private CookabilityService cookabilityService;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        pantryExpiryService = mock(PantryExpiryService.class);
+        substitutionService = mock(SubstitutionService.class);
+        when(substitutionService.graphFor(any())).thenReturn(SubstitutionGraph.EMPTY);
+        cookabilityService = new CookabilityService(mongoTemplate, pantryExpiryService, new UnitConversionService(),
+                substitutionService);
+        ReflectionTestUtils.setField(cookabilityService, "maxExpiringLots", 500);
+        ReflectionTestUtils.setField(cookabilityService, "maxCandidates", 200);
+    }
+
+    @Test
+    void ranksCookableRecipesUsingSoonerExpiringLotsFirst() {
+        Instant now = Instant.now();
+        when(pantryExpiryService.findExpiring(any(), any(), anyInt())).thenReturn(List.of(
+                lot("spinach", now.plus(Duration.ofHours(6))),
+                lot("milk", now.plus(Duration.ofDays(2)))));
+
+        Recipe salad = recipe("salad", ingredient("Spinach", 100, "g"), ingredient("oil", 1, "tbsp"));
+        Recipe latte = recipe("latte", ingredient("milk", 200, "ml"));
+        Recipe quiche = recipe("quiche", ingredient("spinach", 100, "g"), ingredient("eggs", 6, "each"));
+        stubCandidates(salad, latte, quiche);
+        when(mongoTemplate.find(any(Query.class), eq(PantryTotal.class))).thenReturn(List.of(
+                total("spinach", "g", 250),
+                total("oil", "ml", 500),
+                total("milk", "ml", 1000),
+                total("eggs", "each", 2)));
+
+        RecipeSuggestionListResponse response = cookabilityService.rankUseSoon(HouseholdService.DEFAULT_HOUSEHOLD, Duration.ofDays(3), 10);
+
+        assertThat(response.getItems()).extracting(item -> item.getRecipe().getName())
+                .containsExactly("salad", "latte", "quiche");
+        RecipeSuggestionResponse quicheSuggestion = response.getItems().get(2);
+        assertThat(quicheSuggestion.isCookable()).isFalse();
+        assertThat(quicheSuggestion.getCoverage()).isEqualTo(0.5);
+        assertThat(quicheSuggestion.getExpiringIngredients()).containsExactly("spinach");
+    }
+
+    @Test
+    void countsIngredientsCoveredBySubstitutesAsAvailable() {
+        when(substitutionService.graphFor(any())).thenReturn(SubstitutionGraph.compile(List.of(
+                IngredientSubstitution.builder()
+                        .ingredientNormalized("buttermilk").quantity(1).unit("cup")
+                        .substitutes(List.of(ingredient("milk", 1, "cup"), ingredient("lemon juice", 1, "tbsp")))
+                        .build()), new UnitConversionService(), 3, 16));
+        when(pantryExpiryService.findExpiring(any(), any(), anyInt())).thenReturn(List.of(
+                lot("flour", Instant.now().plus(Duration.ofDays(1)))));
+
+        Recipe pancakes = recipe("pancakes", ingredient("flour", 200, "g"), ingredient("buttermilk", 2, "cups"));
+        stubCandidates(pancakes);
+        when(mongoTemplate.find(any(Query.class), eq(PantryTotal.class))).thenReturn(List.of(
+                total("flour", "g", 500),
+                total("milk", "ml", 1000),
+                total("lemon juice", "ml", 30)));
+
+        RecipeSuggestionResponse suggestion = cookabilityService
+                .rankUseSoon(HouseholdService.DEFAULT_HOUSEHOLD, Duration.ofDays(3), 10).getItems().get(0);
+
+        assertThat(suggestion.isCookable()).isTrue();
+        assertThat(suggestion.getSubstitutedIngredients()).containsExactly("buttermilk");
+    }
+
+    @Test
+    void preselectsTheRecipesUsingTheMostExpiringIngredients() {
+        when(pantryExpiryService.findExpiring(any(), any(), anyInt())).thenReturn(List.of(
+                lot("spinach", Instant.now().plus(Duration.ofHours(6)))));
+        stubCandidates();
+
+        cookabilityService.rankUseSoon(HouseholdService.DEFAULT_HOUSEHOLD, Duration.ofDays(3), 10);
+
+        ArgumentCaptor<Aggregation> pipeline = ArgumentCaptor.forClass(Aggregation.class);
+        verify(mongoTemplate).aggregate(pipeline.capture(), eq(Recipe.class), eq(Recipe.class));
+        List<Document> stages = pipeline.getValue().toPipeline(Aggregation.DEFAULT_CONTEXT);
+        assertThat(stages.get(1).get("$addFields", Document.class).get("expiringOverlap", Document.class))
+                .containsKey("$size");
+        assertThat(stages.get(2).get("$sort", Document.class).keySet())
+                .containsExactly("expiringOverlap", "updatedAt");
+        assertThat(stages.get(3)).isEqualTo(new Document("$limit", 200L));
+    }
+
+    @Test
+    void rejectsInvalidWindow() {
+        assertThat(PantryExpiryService.parseWindow("12h")).isEqualTo(Duration.ofHours(12));
+        assertThat(PantryExpiryService.parseWindow("P7D")).isEqualTo(Duration.ofDays(7));
+        assertThatThrownBy(() -> PantryExpiryService.parseWindow("soon"))
+                .isInstanceOf(InvalidParameterException.class);
+        assertThatThrownBy(() -> PantryExpiryService.parseWindow("-1d"))
+                .isInstanceOf(InvalidParameterException.class);
+    }
+
+    private void stubCandidates(Recipe... recipes) {
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(Recipe.class), eq(Recipe.class)))
+                .thenReturn(new AggregationResults<>(List.of(recipes), new Document()));
+    }
+
+    private static PantryLot lot(String name, Instant expiresAt) {
+        return PantryLot.builder().name(name).nameNormalized(name).quantity(1).unit("each").expiresAt(expiresAt).build();
+    }
+
+    private static RecipeIngredient ingredient(String name, double quantity, String unit) {
+        return RecipeIngredient.builder().name(name).quantity(quantity).unit(unit).build();
+    }
+
+    private static Recipe recipe(String name, RecipeIngredient... ingredients) {
+        List<RecipeIngredient> list = List.of(ingredients);
+        return Recipe.builder()
+                .id(name)
+                .name(name)
+                .ingredients(list)
+                .ingredientNamesNormalized(RecipeService.normalizeIngredientNames(list))
+                .build();
+    }
+
+    private static PantryTotal total(String ingredient, String unit, double quantity) {
+        return PantryTotal.builder().id(ingredient + "|" + unit).ingredient(ingredient).unit(unit)
+                .quantity(quantity).lotCount(1).build();
+    }
+}
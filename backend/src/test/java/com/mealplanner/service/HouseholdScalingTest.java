@@ -0,0 +1,229 @@
+package com.mealplanner.service;
+
+import com.mealplanner.model.PantryLot;
+import com.mealplanner.model.PantryLotType;
+import com.mealplanner.model.Recipe;
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoDatabase;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Grows the number of households while keeping one household's data fixed and explains that
+ * household's list queries at each size. With every index led by {@code householdId}, the
+ * keys and documents examined must stay identical however many other households share the
+ * collections. The latency counterpart is tagged {@code benchmark}, so it only runs with
+ * {@code mvn test -Pbenchmark}; it prints median list latencies per size and allows them a
+ * generous growth bound. Skipped when no MongoDB is reachable at {@code MONGODB_URI}
+ * (default {@code mongodb://localhost:27017}).
+ */
+class HouseholdScalingTest {
+
+    private static final String DATABASE = "mealplanner_household_scaling";
+    private static final int[] HOUSEHOLD_COUNTS = {10, 100, 1_000};
+    private static final int DOCS_PER_HOUSEHOLD = 60;
+    private static final int WARMUP_RUNS = 50;
+    private static final int MEASURED_RUNS = 300;
+    /** Generous bound for timer noise on a shared machine; a scan would grow 100x. */
+    private static final double MAX_LATENCY_GROWTH = 3.0;
+    private static final String PROBE = "household-0";
+
+    private static MongoClient client;
+    private static MongoDatabase database;
+    private static MongoTemplate mongoTemplate;
+
+    @BeforeAll
+    static void connect() {
+        String uri = System.getenv().getOrDefault("MONGODB_URI", "mongodb://localhost:27017");
+        client = MongoClients.create(MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(uri))
+                .applyToClusterSettings(cluster -> cluster.serverSelectionTimeout(2, TimeUnit.SECONDS))
+                .build());
+        database = client.getDatabase(DATABASE);
+        try {
+            database.runCommand(new Document("ping", 1));
+        } catch (RuntimeException ex) {
+            client.close();
+            client = null;
+            assumeTrue(false, "No MongoDB reachable at " + uri);
+        }
+
+        mongoTemplate = new MongoTemplate(client, DATABASE);
+    }
+
+    @AfterAll
+    static void disconnect() {
+        if (client != null) {
+            database.drop();
+            client.close();
+        }
+    }
+
+    @Test
+    void householdQueryCostIsIndependentOfHouseholdCount() {
+        Map<Integer, Examined> results = grow(this::examine);
+
+        Examined smallest = results.get(HOUSEHOLD_COUNTS[0]);
+        Examined largest = results.get(HOUSEHOLD_COUNTS[HOUSEHOLD_COUNTS.length - 1]);
+        assertThat(largest.keysExamined()).isEqualTo(smallest.keysExamined());
+        assertThat(largest.docsExamined()).isEqualTo(smallest.docsExamined());
+    }
+
+    @Test
+    @Tag("benchmark")
+    void householdListLatencyStaysFlatAsHouseholdsGrow() {
+        Map<Integer, Latency> results = grow(this::time);
+
+        System.out.println("households  recipe p50 (us)  pantry p50 (us)");
+        results.forEach((households, result) -> System.out.printf("%10d  %15d  %15d%n",
+                households, result.recipeMedianMicros(), result.pantryMedianMicros()));
+
+        Latency smallest = results.get(HOUSEHOLD_COUNTS[0]);
+        Latency largest = results.get(HOUSEHOLD_COUNTS[HOUSEHOLD_COUNTS.length - 1]);
+        assertThat((double) largest.recipeMedianMicros())
+                .isLessThanOrEqualTo(Math.max(1, smallest.recipeMedianMicros()) * MAX_LATENCY_GROWTH);
+        assertThat((double) largest.pantryMedianMicros())
+                .isLessThanOrEqualTo(Math.max(1, smallest.pantryMedianMicros()) * MAX_LATENCY_GROWTH);
+    }
+
+    private record Examined(long keysExamined, long docsExamined) {
+    }
+
+    private record Latency(long recipeMedianMicros, long pantryMedianMicros) {
+    }
+
+    /**
+     * Starts from an empty database and measures the probe household at every size.
+     */
+    private <T> Map<Integer, T> grow(Supplier<T> measure) {
+        database.drop();
+        new IndexManager(mongoTemplate, new IndexCatalog(Duration.ofHours(24))).apply();
+
+        Map<Integer, T> results = new LinkedHashMap<>();
+        int seeded = 0;
+        for (int households : HOUSEHOLD_COUNTS) {
+            seed(seeded, households);
+            seeded = households;
+            results.put(households, measure.get());
+        }
+        return results;
+    }
+
+    private static Query recipePage() {
+        return RecipeService.buildListQuery(PROBE, "quick", null).with(RecipeService.LIST_SORT).limit(20);
+    }
+
+    private static Query pantryPage() {
+        return PantryLotService.buildListQuery(PROBE, PantryLotType.INGREDIENT, null)
+                .with(PantryLotService.LIST_SORT).limit(20);
+    }
+
+    private Latency time() {
+        Query recipeCount = RecipeService.buildListQuery(PROBE, "quick", null);
+        Query pantryCount = PantryLotService.buildListQuery(PROBE, PantryLotType.INGREDIENT, null);
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            mongoTemplate.find(recipePage(), Recipe.class);
+            mongoTemplate.find(pantryPage(), PantryLot.class);
+        }
+
+        long[] recipeNanos = new long[MEASURED_RUNS];
+        long[] pantryNanos = new long[MEASURED_RUNS];
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            long start = System.nanoTime();
+            mongoTemplate.count(recipeCount, Recipe.class);
+            mongoTemplate.find(recipePage(), Recipe.class);
+            long middle = System.nanoTime();
+            mongoTemplate.count(pantryCount, PantryLot.class);
+            mongoTemplate.find(pantryPage(), PantryLot.class);
+            recipeNanos[i] = middle - start;
+            pantryNanos[i] = System.nanoTime() - middle;
+        }
+        return new Latency(median(recipeNanos) / 1_000, median(pantryNanos) / 1_000);
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    private Examined examine() {
+        Document recipeStats = explain("recipes", recipePage());
+        Document pantryStats = explain("pantryLots", pantryPage());
+        return new Examined(
+                recipeStats.get("totalKeysExamined", Number.class).longValue()
+                        + pantryStats.get("totalKeysExamined", Number.class).longValue(),
+                recipeStats.get("totalDocsExamined", Number.class).longValue()
+                        + pantryStats.get("totalDocsExamined", Number.class).longValue());
+    }
+
+    private Document explain(String collection, Query query) {
+        // Converted so enum values are sent the way the template stores them
+        Document find = new Document("find", collection)
+                .append("filter", mongoTemplate.getConverter().convertToMongoType(query.getQueryObject()))
+                .append("sort", query.getSortObject())
+                .append("limit", query.getLimit());
+        Document explain = database.runCommand(new Document("explain", find).append("verbosity", "executionStats"));
+        return explain.get("executionStats", Document.class);
+    }
+
+    /**
+     * Adds households {@code from} to {@code to - 1}, each with the same shape of data, so
+     * the probe household never changes.
+     */
+    private void seed(int from, int to) {
+        Instant now = Instant.now();
+        List<String> tags = List.of("quick", "dinner", "vegan");
+        for (int h = from; h < to; h++) {
+            String householdId = "household-" + h;
+            List<Recipe> recipes = new ArrayList<>(DOCS_PER_HOUSEHOLD);
+            List<PantryLot> lots = new ArrayList<>(DOCS_PER_HOUSEHOLD);
+            for (int i = 0; i < DOCS_PER_HOUSEHOLD; i++) {
+                String name = "item " + i;
+                recipes.add(Recipe.builder()
+                        .householdId(householdId)
+                        .name(name)
+                        .nameNormalized(name)
+                        .ingredients(List.of())
+                        .ingredientNamesNormalized(List.of())
+                        .tags(List.of(tags.get(i % tags.size())))
+                        .createdAt(now.minusSeconds(i))
+                        .updatedAt(now.minusSeconds(i))
+                        .build());
+                lots.add(PantryLot.builder()
+                        .householdId(householdId)
+                        .name(name)
+                        .nameNormalized(name)
+                        .type(i % 2 == 0 ? PantryLotType.INGREDIENT : PantryLotType.PACKAGED)
+                        .quantity(1)
+                        .unit("each")
+                        .createdAt(now.minusSeconds(i))
+                        .updatedAt(now.minusSeconds(i))
+                        .build());
+            }
+            mongoTemplate.insertAll(recipes);
+            mongoTemplate.insertAll(lots);
+        }
+    }
+}
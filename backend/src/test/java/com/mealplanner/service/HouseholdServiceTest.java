@@ -0,0 +1,117 @@
+package com.mealplanner.service;
+
+import com.mealplanner.config.HouseholdProperties;
+import com.mealplanner.exception.InvalidParameterException;
+import com.mealplanner.exception.QuotaExceededException;
+import com.mealplanner.model.HouseholdUsage;
+import com.mealplanner.model.PantryLot;
+import com.mealplanner.model.Recipe;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class HouseholdServiceTest {
+
+    @Test
+    void capsEachHouseholdsInFlightRequestsSeparately() {
+        HouseholdProperties properties = new HouseholdProperties();
+        properties.setQuota(new HouseholdProperties.Quota(10, 10, 2));
+        properties.getOverrides().put("big-family", new HouseholdProperties.Quota(10, 10, 3));
+        HouseholdService service = new HouseholdService(mock(MongoTemplate.class), properties);
+
+        assertThat(service.tryAcquireRequest("default")).isTrue();
+        assertThat(service.tryAcquireRequest("default")).isTrue();
+        assertThat(service.tryAcquireRequest("default")).isFalse();
+        for (int i = 0; i < 3; i++) {
+            assertThat(service.tryAcquireRequest("big-family")).isTrue();
+        }
+        assertThat(service.tryAcquireRequest("big-family")).isFalse();
+
+        service.releaseRequest("default");
+        assertThat(service.tryAcquireRequest("default")).isTrue();
+        assertThat(service.tryAcquireRequest("default")).isFalse();
+    }
+
+    @Test
+    void admitsEverythingWhenTheCapIsSwitchedOff() {
+        HouseholdProperties properties = new HouseholdProperties();
+        properties.setQuota(new HouseholdProperties.Quota(10, 10, 1));
+        properties.setInFlightLimitEnabled(false);
+        HouseholdService service = new HouseholdService(mock(MongoTemplate.class), properties);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(service.tryAcquireRequest("default")).isTrue();
+        }
+    }
+
+    @Test
+    void rejectsRequestsWithoutAHousehold() {
+        assertThatThrownBy(() -> HouseholdService.resolve(null)).isInstanceOf(InvalidParameterException.class);
+        assertThatThrownBy(() -> HouseholdService.resolve(" ")).isInstanceOf(InvalidParameterException.class);
+        assertThat(HouseholdService.resolve("family-1")).isEqualTo("family-1");
+    }
+
+    @Test
+    void reservesASlotOnlyWhileTheCounterIsBelowTheQuota() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        HouseholdService service = new HouseholdService(mongoTemplate, quota(2));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(HouseholdUsage.class)))
+                .thenReturn(matched(1), matched(0));
+        when(mongoTemplate.exists(any(Query.class), eq(HouseholdUsage.class))).thenReturn(true);
+
+        service.reserveRecipe("family");
+        assertThatThrownBy(() -> service.reserveRecipe("family")).isInstanceOf(QuotaExceededException.class);
+
+        ArgumentCaptor<Query> reservation = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> increment = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(2))
+                .updateFirst(reservation.capture(), increment.capture(), eq(HouseholdUsage.class));
+        assertThat(reservation.getValue().getQueryObject())
+                .containsEntry("_id", "family")
+                .containsEntry("recipes", new Document("$lt", 2L));
+        assertThat(increment.getValue().getUpdateObject()).containsEntry("$inc", new Document("recipes", 1));
+        verify(mongoTemplate, never()).insert(any(HouseholdUsage.class));
+    }
+
+    @Test
+    void seedsAMissingCounterFromTheStoredDocuments() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        HouseholdService service = new HouseholdService(mongoTemplate, quota(10));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(HouseholdUsage.class)))
+                .thenReturn(matched(0), matched(1));
+        when(mongoTemplate.count(any(Query.class), eq(Recipe.class))).thenReturn(4L);
+        when(mongoTemplate.count(any(Query.class), eq(PantryLot.class))).thenReturn(7L);
+
+        service.reservePantryLot("family");
+
+        ArgumentCaptor<HouseholdUsage> seeded = ArgumentCaptor.forClass(HouseholdUsage.class);
+        verify(mongoTemplate).insert(seeded.capture());
+        assertThat(seeded.getValue().getId()).isEqualTo("family");
+        assertThat(seeded.getValue().getRecipes()).isEqualTo(4);
+        assertThat(seeded.getValue().getPantryLots()).isEqualTo(7);
+    }
+
+    private static HouseholdProperties quota(long max) {
+        HouseholdProperties properties = new HouseholdProperties();
+        properties.setQuota(new HouseholdProperties.Quota(max, max, 2));
+        return properties;
+    }
+
+    private static UpdateResult matched(long count) {
+        return UpdateResult.acknowledged(count, count, null);
+    }
+}
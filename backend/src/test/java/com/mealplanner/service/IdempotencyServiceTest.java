@@ -0,0 +1,238 @@
+package com.mealplanner.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mealplanner.dto.RecipeResponse;
+import com.mealplanner.exception.IdempotencyInProgressException;
+import com.mealplanner.exception.IdempotencyKeyReuseException;
+import com.mealplanner.model.IdempotencyRecord;
+import com.mealplanner.model.IdempotencyStatus;
+import com.mongodb.client.result.UpdateResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IdempotencyServiceTest {
+
+    private static final String SCOPE = "recipes.create";
+    private static final Map<String, Object> REQUEST = Map.of("name", "Pancakes");
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private MongoTemplate mongoTemplate;
+    private AtomicInteger executions;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.insert(any(IdempotencyRecord.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(IdempotencyRecord.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        executions = new AtomicInteger();
+    }
+
+    @Test
+    void claimsExecutesOnceAndReplaysTheStoredResponse() {
+        IdempotencyService service = service(Duration.ofSeconds(30));
+
+        RecipeResponse first = service.execute("default", SCOPE, "key-1", REQUEST, RecipeResponse.class, this::create);
+        RecipeResponse second = service.execute("default", SCOPE, "key-1", REQUEST, RecipeResponse.class, this::create);
+
+        assertThat(executions).hasValue(1);
+        assertThat(second).isEqualTo(first);
+        ArgumentCaptor<IdempotencyRecord> claim = ArgumentCaptor.forClass(IdempotencyRecord.class);
+        verify(mongoTemplate).insert(claim.capture());
+        assertThat(claim.getValue().getId()).isEqualTo("default:recipes.create:key-1");
+        assertThat(claim.getValue().getStatus()).isEqualTo(IdempotencyStatus.IN_PROGRESS);
+        assertThat(claim.getValue().getOwner()).isNotBlank();
+        assertThat(claim.getValue().getLeaseExpiresAt()).isAfter(claim.getValue().getCreatedAt());
+
+        ArgumentCaptor<Query> completed = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).updateFirst(completed.capture(), any(Update.class), eq(IdempotencyRecord.class));
+        assertThat(completed.getValue().getQueryObject().get("owner")).isEqualTo(claim.getValue().getOwner());
+    }
+
+    @Test
+    void replaysACompletedRecordWrittenByAnotherInstance() throws Exception {
+        IdempotencyService first = service(Duration.ofSeconds(30));
+        RecipeResponse original = first.execute("default", SCOPE, "key-1", REQUEST, RecipeResponse.class, this::create);
+        IdempotencyRecord completed = completedRecord(original);
+
+        IdempotencyService second = service(Duration.ofSeconds(30));
+        when(mongoTemplate.findById(completed.getId(), IdempotencyRecord.class)).thenReturn(completed);
+
+        assertThat(second.execute("default", SCOPE, "key-1", REQUEST, RecipeResponse.class, this::create))
+                .isEqualTo(original);
+        assertThat(executions).hasValue(1);
+        assertThatThrownBy(() -> second.execute("default", SCOPE, "key-1", Map.of("name", "Waffles"),
+                RecipeResponse.class, this::create))
+                .isInstanceOf(IdempotencyKeyReuseException.class);
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    void rejectsAKeyReusedForADifferentRequest() {
+        IdempotencyService service = service(Duration.ofSeconds(30));
+        service.execute("default", SCOPE, "key-1", REQUEST, RecipeResponse.class, this::create);
+
+        assertThatThrownBy(() -> service.execute("default", SCOPE, "key-1", Map.of("name", "Waffles"),
+                RecipeResponse.class, this::create))
+                .isInstanceOf(IdempotencyKeyReuseException.class);
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    void reportsAClaimHeldByAnotherInstanceAsInProgress() {
+        IdempotencyService service = service(Duration.ofSeconds(30));
+        when(mongoTemplate.insert(any(IdempotencyRecord.class))).thenThrow(new DuplicateKeyException("claimed"));
+        when(mongoTemplate.findById("default:recipes.create:key-1", IdempotencyRecord.class)).thenReturn(null,
+                IdempotencyRecord.builder().id("default:recipes.create:key-1")
+                        .status(IdempotencyStatus.IN_PROGRESS).owner("other").build());
+
+        assertThatThrownBy(() -> service.execute("default", SCOPE, "key-1", REQUEST, RecipeResponse.class,
+                this::create))
+                .isInstanceOf(IdempotencyInProgressException.class);
+        assertThat(executions).hasValue(0);
+    }
+
+    @Test
+    void takesOverOnlyClaimsWhoseLeaseLapsed() {
+        IdempotencyService service = service(Duration.ofSeconds(30));
+        service.execute("default", SCOPE, "key-1", REQUEST, RecipeResponse.class, this::create);
+
+        ArgumentCaptor<Query> takeover = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).remove(takeover.capture(), eq(IdempotencyRecord.class));
+        Document filter = takeover.getValue().getQueryObject();
+        assertThat(filter.get("status")).isEqualTo(IdempotencyStatus.IN_PROGRESS);
+        assertThat(filter.getList("$or", Document.class))
+                .anySatisfy(clause -> assertThat(clause).containsKey("leaseExpiresAt"));
+    }
+
+    @Test
+    void renewsTheLeaseWhileTheActionOutlivesIt() {
+        IdempotencyService service = service(Duration.ofMillis(90));
+
+        service.execute("default", SCOPE, "key-1", REQUEST, RecipeResponse.class, () -> {
+            sleep(400);
+            return create();
+        });
+
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, atLeast(3)).updateFirst(any(Query.class), updates.capture(), eq(IdempotencyRecord.class));
+        List<Update> renewals = updates.getAllValues().stream()
+                .filter(update -> update.getUpdateObject().get("$set", Document.class).containsKey("leaseExpiresAt"))
+                .toList();
+        assertThat(renewals).hasSizeGreaterThanOrEqualTo(2);
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    void keepsRenewingTheLeaseUntilTheCompletionIsStored() {
+        IdempotencyService service = service(Duration.ofMillis(300));
+        AtomicInteger completionAttempts = new AtomicInteger();
+        List<Instant> renewedAfterCompletion = new CopyOnWriteArrayList<>();
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(IdempotencyRecord.class)))
+                .thenAnswer(invocation -> {
+                    Document set = invocation.<Update>getArgument(1).getUpdateObject().get("$set", Document.class);
+                    if (set.containsKey("status")) {
+                        if (completionAttempts.incrementAndGet() <= 3) {
+                            throw new DataAccessResourceFailureException("primary stepped down");
+                        }
+                    } else if (completionAttempts.get() > 0) {
+                        renewedAfterCompletion.add(Instant.now());
+                    }
+                    return UpdateResult.acknowledged(1, 1L, null);
+                });
+
+        RecipeResponse response = service.execute("default", SCOPE, "key-1", REQUEST, RecipeResponse.class,
+                this::create);
+
+        assertThat(response.getId()).isEqualTo("recipe-1");
+        await(() -> completionAttempts.get() == 4);
+        assertThat(renewedAfterCompletion).isNotEmpty();
+        int renewals = renewedAfterCompletion.size();
+        sleep(350);
+        assertThat(renewedAfterCompletion).hasSize(renewals);
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    void releasesOnlyItsOwnClaimWhenTheActionFails() {
+        IdempotencyService service = service(Duration.ofSeconds(30));
+
+        assertThatThrownBy(() -> service.execute("default", SCOPE, "key-1", REQUEST, RecipeResponse.class, () -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class);
+
+        ArgumentCaptor<Query> removals = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(2)).remove(removals.capture(), eq(IdempotencyRecord.class));
+        assertThat(removals.getAllValues().get(1).getQueryObject()).containsKey("owner");
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class), eq(IdempotencyRecord.class));
+    }
+
+    private IdempotencyService service(Duration claimLease) {
+        IdempotencyService service = new IdempotencyService(mongoTemplate, objectMapper, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "frontCacheTtl", Duration.ofMinutes(10));
+        ReflectionTestUtils.setField(service, "frontCacheSize", 100);
+        ReflectionTestUtils.setField(service, "claimLease", claimLease);
+        return service;
+    }
+
+    private RecipeResponse create() {
+        return RecipeResponse.builder().id("recipe-" + executions.incrementAndGet()).name("Pancakes").build();
+    }
+
+    /** The record the first instance stored, as another instance would read it back. */
+    private IdempotencyRecord completedRecord(RecipeResponse response) throws Exception {
+        ArgumentCaptor<IdempotencyRecord> claim = ArgumentCaptor.forClass(IdempotencyRecord.class);
+        verify(mongoTemplate).insert(claim.capture());
+        return IdempotencyRecord.builder()
+                .id(claim.getValue().getId())
+                .requestHash(claim.getValue().getRequestHash())
+                .status(IdempotencyStatus.COMPLETED)
+                .responseBody(objectMapper.writeValueAsString(response))
+                .build();
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            sleep(10);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.mealplanner.service;
+
+import com.mongodb.MongoNamespace;
+import com.mongodb.client.ListIndexesIterable;
+import com.mongodb.client.MongoCollection;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IndexManagerTest {
+
+    private MongoTemplate mongoTemplate;
+    private IndexOperations indexOps;
+    private final Map<String, List<Document>> indexesByCollection = new HashMap<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        indexOps = mock(IndexOperations.class);
+        when(mongoTemplate.getCollectionName(any())).thenAnswer(invocation ->
+                invocation.getArgument(0, Class.class).getSimpleName());
+        when(mongoTemplate.indexOps(any(Class.class))).thenReturn(indexOps);
+        when(mongoTemplate.getCollection(any())).thenAnswer(invocation -> {
+            String name = invocation.getArgument(0);
+            MongoCollection<Document> collection = mock(MongoCollection.class);
+            ListIndexesIterable<Document> listed = mock(ListIndexesIterable.class);
+            when(listed.into(anyList())).thenAnswer(into -> {
+                List<Document> target = into.getArgument(0);
+                target.addAll(indexesByCollection.getOrDefault(name, List.of()));
+                return target;
+            });
+            when(collection.listIndexes()).thenReturn(listed);
+            when(collection.getNamespace()).thenReturn(new MongoNamespace("test", name));
+            return collection;
+        });
+    }
+
+    @Test
+    void leavesIndexesMatchingTheCatalogAlone() {
+        IndexCatalog catalog = new IndexCatalog(Duration.ofHours(24));
+        existingFrom(catalog);
+
+        assertThat(new IndexManager(mongoTemplate, catalog).apply()).isFalse();
+
+        verify(indexOps, never()).ensureIndex(any());
+    }
+
+    @Test
+    void rebuildsAnIndexWhoseOptionsChangedWithoutAVersionBump() {
+        existingFrom(new IndexCatalog(Duration.ofHours(24)));
+        IndexCatalog shorterTtl = new IndexCatalog(Duration.ofHours(12));
+
+        assertThat(new IndexManager(mongoTemplate, shorterTtl).apply()).isTrue();
+
+        ArgumentCaptor<IndexDefinition> rebuilt = ArgumentCaptor.forClass(IndexDefinition.class);
+        verify(indexOps).ensureIndex(rebuilt.capture());
+        assertThat(rebuilt.getValue().getIndexOptions())
+                .containsEntry("name", "createdAt_ttl_idx")
+                .containsEntry("expireAfterSeconds", 43_200L);
+    }
+
+    @Test
+    void failsStartupWhenTheCatalogCannotBeApplied() {
+        when(indexOps.ensureIndex(any())).thenThrow(new IllegalStateException("not authorized"));
+        IndexManager indexManager = new IndexManager(mongoTemplate, new IndexCatalog(Duration.ofHours(24)));
+        ReflectionTestUtils.setField(indexManager, "manageOnStartup", true);
+
+        assertThatThrownBy(indexManager::afterSingletonsInstantiated)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("index catalog")
+                .hasRootCauseMessage("not authorized");
+    }
+
+    /** What the server lists once the catalog has been applied. */
+    private void existingFrom(IndexCatalog catalog) {
+        for (IndexCatalog.Entry entry : catalog.indexes()) {
+            Document listed = new Document("v", 2).append("key", entry.definition().getIndexKeys());
+            listed.putAll(entry.definition().getIndexOptions());
+            // The server reports TTLs as int32
+            if (listed.get("expireAfterSeconds") instanceof Long seconds) {
+                listed.put("expireAfterSeconds", seconds.intValue());
+            }
+            indexesByCollection.computeIfAbsent(entry.entityType().getSimpleName(), name -> new ArrayList<>())
+                    .add(listed);
+        }
+    }
+}
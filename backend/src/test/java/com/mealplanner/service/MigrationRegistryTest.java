@@ -0,0 +1,109 @@
+package com.mealplanner.service;
+
+import com.mealplanner.model.PantryLot;
+import com.mealplanner.model.Recipe;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.type.filter.AssignableTypeFilter;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MigrationRegistryTest {
+
+    private MongoTemplate mongoTemplate;
+    private MigrationRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.getCollectionName(any())).thenAnswer(invocation ->
+                invocation.getArgument(0, Class.class).getSimpleName().equals("Recipe") ? "recipes" : "pantryLots");
+        registry = new MigrationRegistry(List.of(new RecipeIngredientNamesMigration(), new PantryLotExpiryMigration()),
+                mongoTemplate, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void upgradesVersionOneRecipes() {
+        Document recipe = new Document("name", "Pancakes")
+                .append("ingredients", List.of(
+                        new Document("name", " Flour").append("quantity", 200.0),
+                        new Document("name", "milk"),
+                        new Document("name", "flour")));
+
+        assertThat(registry.upgrade("recipes", recipe)).isTrue();
+
+        assertThat(recipe.getList("ingredientNamesNormalized", String.class)).containsExactly("flour", "milk");
+        assertThat(MigrationRegistry.versionOf(recipe)).isEqualTo(2);
+        assertThat(registry.upgrade("recipes", recipe)).isFalse();
+    }
+
+    @Test
+    void promotesExpiryDatesOutOfPantryMetadata() {
+        Document lot = new Document("name", "yogurt")
+                .append("schemaVersion", 1)
+                .append("metadata", new Document("expiryDate", "2026-03-01")
+                        .append("openedAt", "2026-02-20T08:30:00Z")
+                        .append("brand", "acme"));
+
+        registry.upgrade("pantryLots", lot);
+
+        assertThat(lot.get("expiresAt")).isEqualTo(Date.from(Instant.parse("2026-03-01T00:00:00Z")));
+        assertThat(lot.get("openedAt")).isEqualTo(Date.from(Instant.parse("2026-02-20T08:30:00Z")));
+        assertThat(lot.get("metadata", Document.class)).containsOnlyKeys("brand");
+        assertThat(lot.getInteger("schemaVersion")).isEqualTo(2);
+    }
+
+    @Test
+    void entitySchemaVersionsMatchTheRegisteredMigrations() throws Exception {
+        // Every migration component on the classpath, as the application context would register them
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+        scanner.addIncludeFilter(new AssignableTypeFilter(DocumentMigration.class));
+        List<DocumentMigration> migrations = new ArrayList<>();
+        for (BeanDefinition candidate : scanner.findCandidateComponents(DocumentMigration.class.getPackageName())) {
+            migrations.add((DocumentMigration) Class.forName(candidate.getBeanClassName())
+                    .getDeclaredConstructor().newInstance());
+        }
+        MigrationRegistry all = new MigrationRegistry(migrations, mongoTemplate, new SimpleMeterRegistry());
+
+        assertThat(all.migratedCollections()).containsOnlyKeys("recipes", "pantryLots");
+        assertThat(Recipe.SCHEMA_VERSION).isEqualTo(all.targetVersion("recipes"));
+        assertThat(PantryLot.SCHEMA_VERSION).isEqualTo(all.targetVersion("pantryLots"));
+    }
+
+    @Test
+    void rejectsGapsInVersionHistory() {
+        DocumentMigration skipsAhead = new DocumentMigration() {
+            @Override
+            public Class<?> entityType() {
+                return Recipe.class;
+            }
+
+            @Override
+            public int fromVersion() {
+                return 3;
+            }
+
+            @Override
+            public void migrate(Document document) {
+            }
+        };
+
+        assertThatThrownBy(() -> new MigrationRegistry(List.of(new RecipeIngredientNamesMigration(), skipsAhead),
+                mongoTemplate, new SimpleMeterRegistry()))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
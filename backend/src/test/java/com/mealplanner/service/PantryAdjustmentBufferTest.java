@@ -0,0 +1,223 @@
+package com.mealplanner.service;
+
+import com.mealplanner.model.PantryLot;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PantryAdjustmentBufferTest {
+
+    private PantryAdjustmentBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        buffer = spy(new PantryAdjustmentBuffer(mock(MongoTemplate.class), mock(PantryTotalsService.class),
+                mock(PantryReplica.class), new RequestCoalescer<>("test", Duration.ZERO, new SimpleMeterRegistry()),
+                mock(ChangeEventService.class), new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(buffer, "writeBehind", true);
+        ReflectionTestUtils.setField(buffer, "flushSize", Integer.MAX_VALUE);
+        ReflectionTestUtils.setField(buffer, "flushInterval", Duration.ofHours(1));
+        doReturn(List.of()).when(buffer).write(anyMap(), anyMap());
+        buffer.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        buffer.stop();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void coalescesConcurrentDeltasPerLot() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 8_000; i++) {
+            String lotId = "lot-" + (i % 4);
+            executor.execute(() -> buffer.add("home", lotId, 0.5));
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(buffer.pending("lot-0")).isEqualTo(1_000);
+
+        buffer.flush();
+
+        ArgumentCaptor<Map<String, Double>> written = ArgumentCaptor.forClass(Map.class);
+        verify(buffer, times(1)).write(written.capture(), anyMap());
+        assertThat(written.getValue()).containsOnly(
+                Map.entry("lot-0", 1_000.0), Map.entry("lot-1", 1_000.0),
+                Map.entry("lot-2", 1_000.0), Map.entry("lot-3", 1_000.0));
+        assertThat(buffer.pending("lot-0")).isZero();
+        assertThat(buffer.hasPending("lot-0")).isFalse();
+    }
+
+    @Test
+    void requeuesDeltasWhenFlushFails() {
+        buffer.add("home", "lot-1", 2);
+        doThrow(new IllegalStateException("down")).when(buffer).write(anyMap(), anyMap());
+
+        buffer.flush();
+
+        assertThat(buffer.pending("lot-1")).isEqualTo(2);
+    }
+
+    @Test
+    void appliesADeltaOnceWhenBookkeepingAfterTheWriteFails() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        BulkOperations bulk = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, PantryLot.class)).thenReturn(bulk);
+        when(bulk.execute()).thenReturn(BulkWriteResult.acknowledged(0, 1, 0, 1, List.of()));
+        when(mongoTemplate.find(any(Query.class), eq(PantryLot.class)))
+                .thenThrow(new IllegalStateException("read back failed"))
+                .thenReturn(List.of(PantryLot.builder().id("lot-1").build()));
+        PantryAdjustmentBuffer writing = writingBuffer(mongoTemplate, mock(PantryTotalsService.class));
+
+        writing.add("home", "lot-1", 2);
+        writing.flush();
+        writing.flush();
+
+        verify(bulk, times(1)).updateOne(any(Query.class), any(Update.class));
+        verify(bulk, times(1)).execute();
+        assertThat(writing.hasPending("lot-1")).isFalse();
+        writing.stop();
+    }
+
+    @Test
+    void keepsBookkeepingForTheLotsAPartiallyFailedFlushWrote() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        BulkOperations bulk = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, PantryLot.class)).thenReturn(bulk);
+        PantryTotalsService totals = mock(PantryTotalsService.class);
+        PantryAdjustmentBuffer writing = writingBuffer(mongoTemplate, totals);
+        writing.add("home", "lot-1", 2);
+        writing.add("home", "lot-2", 5);
+
+        List<Object> order = new ArrayList<>();
+        when(bulk.updateOne(any(Query.class), any(Update.class))).thenAnswer(invocation -> {
+            order.add(invocation.<Query>getArgument(0).getQueryObject().get("_id"));
+            return bulk;
+        });
+        when(bulk.execute()).thenAnswer(invocation -> {
+            int failedIndex = order.indexOf("lot-1");
+            BulkWriteResult result = BulkWriteResult.acknowledged(0, 1, 0, 1, List.of());
+            throw new BulkOperationException("partial", new MongoBulkWriteException(result,
+                    List.of(new BulkWriteError(11000, "failed", new BsonDocument(), failedIndex)), null,
+                    new ServerAddress()));
+        });
+        PantryLot written = PantryLot.builder().id("lot-2").quantity(5).unit("g").build();
+        when(mongoTemplate.find(any(Query.class), eq(PantryLot.class))).thenReturn(List.of(written));
+
+        writing.flush();
+
+        verify(totals).applyAdjustment(written, 5.0);
+        verify(totals, never()).applyAdjustment(any(PantryLot.class), eq(2.0));
+        assertThat(writing.pending("lot-1")).isEqualTo(2);
+        assertThat(writing.hasPending("lot-2")).isFalse();
+        writing.stop();
+    }
+
+    @Test
+    void stopFlushesEverything() {
+        buffer.add("home", "lot-1", 3);
+
+        buffer.stop();
+
+        verify(buffer).write(Map.of("lot-1", 3.0), Map.of("lot-1", "home"));
+        assertThat(buffer.isWriteBehind()).isFalse();
+    }
+
+    @Test
+    void filtersEveryUpdateOnTheLotsHousehold() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        BulkOperations bulk = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, PantryLot.class)).thenReturn(bulk);
+        when(bulk.execute()).thenReturn(BulkWriteResult.acknowledged(0, 2, 0, 2, List.of()));
+        PantryAdjustmentBuffer writing = writingBuffer(mongoTemplate, mock(PantryTotalsService.class));
+        writing.add("home", "lot-1", 2);
+        writing.add("cabin", "lot-2", 5);
+
+        writing.flush();
+
+        ArgumentCaptor<Query> filters = ArgumentCaptor.forClass(Query.class);
+        verify(bulk, times(2)).updateOne(filters.capture(), any(Update.class));
+        assertThat(filters.getAllValues()).extracting(Query::getQueryObject).containsExactlyInAnyOrder(
+                new Document("_id", "lot-1").append("householdId", "home"),
+                new Document("_id", "lot-2").append("householdId", "cabin"));
+        writing.stop();
+    }
+
+    @Test
+    void discardsOnlyTheHouseholdsBufferedDeltas() {
+        buffer.add("home", "lot-1", 2);
+        buffer.add("home", "lot-1", 3);
+
+        assertThat(buffer.discard("cabin", "lot-1")).isZero();
+        assertThat(buffer.discard("home", "lot-1")).isEqualTo(5);
+
+        assertThat(buffer.hasPending("lot-1")).isFalse();
+        buffer.flush();
+        verify(buffer, never()).write(anyMap(), anyMap());
+        assertThat(buffer.add("home", "lot-1", 1)).isTrue();
+        assertThat(buffer.pending("lot-1")).isEqualTo(1);
+    }
+
+    @Test
+    void turnsAdjustmentsToSealedLotsAway() {
+        buffer.add("home", "lot-1", 2);
+
+        assertThat(buffer.seal(List.of("lot-1", "lot-2"))).containsExactly("lot-2");
+        assertThat(buffer.add("home", "lot-2", 4)).isFalse();
+        assertThat(buffer.hasPending("lot-2")).isFalse();
+        buffer.flush();
+        verify(buffer).write(Map.of("lot-1", 2.0), Map.of("lot-1", "home"));
+
+        buffer.unseal(List.of("lot-2"));
+        assertThat(buffer.add("home", "lot-2", 4)).isTrue();
+        assertThat(buffer.pending("lot-2")).isEqualTo(4);
+    }
+
+    private static PantryAdjustmentBuffer writingBuffer(MongoTemplate mongoTemplate, PantryTotalsService totals) {
+        PantryAdjustmentBuffer writing = new PantryAdjustmentBuffer(mongoTemplate, totals, mock(PantryReplica.class),
+                new RequestCoalescer<>("test", Duration.ZERO, new SimpleMeterRegistry()),
+                mock(ChangeEventService.class), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(writing, "writeBehind", true);
+        ReflectionTestUtils.setField(writing, "flushSize", Integer.MAX_VALUE);
+        ReflectionTestUtils.setField(writing, "flushInterval", Duration.ofHours(1));
+        writing.start();
+        return writing;
+    }
+}
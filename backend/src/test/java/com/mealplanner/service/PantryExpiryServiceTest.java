@@ -0,0 +1,161 @@
+package com.mealplanner.service;
+
+import com.mealplanner.dto.ChangeEvent;
+import com.mealplanner.dto.PantryLotListResponse;
+import com.mealplanner.model.PantryLot;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PantryExpiryServiceTest {
+
+    private static final Instant EXPIRED = Instant.parse("2026-01-01T00:00:00Z");
+
+    private MongoTemplate mongoTemplate;
+    private PantryTotalsService totals;
+    private PantryReplica replica;
+    private ChangeEventService changeEvents;
+    private PantryAdjustmentBuffer adjustmentBuffer;
+    private HouseholdService households;
+    private PantryExpiryService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.getCollectionName(PantryLot.class)).thenReturn("pantryLots");
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(PantryExpiryService.ARCHIVE_COLLECTION)))
+                .thenReturn(mock(BulkOperations.class));
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        when(mongoTemplate.getConverter()).thenReturn(converter);
+
+        totals = mock(PantryTotalsService.class);
+        replica = mock(PantryReplica.class);
+        changeEvents = mock(ChangeEventService.class);
+        adjustmentBuffer = mock(PantryAdjustmentBuffer.class);
+        households = mock(HouseholdService.class);
+        when(adjustmentBuffer.seal(anyCollection())).thenAnswer(invocation -> new HashSet<>(invocation.getArgument(0)));
+        service = new PantryExpiryService(mongoTemplate, totals, replica, adjustmentBuffer,
+                (RequestCoalescer<PantryLotService.ListKey, PantryLotListResponse>) mock(RequestCoalescer.class),
+                changeEvents, households, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "batchSize", 500);
+        ReflectionTestUtils.setField(service, "maxBatches", 20);
+        ReflectionTestUtils.setField(service, "expiredGrace", Duration.ofDays(7));
+        ReflectionTestUtils.setField(service, "depletedGrace", Duration.ofDays(1));
+    }
+
+    @Test
+    void countsOnlyLotsTheSweepItselfRemoved() {
+        Document swept = lot("lot-1");
+        Document deletedByUser = lot("lot-2");
+        Document editedInBetween = lot("lot-3");
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), eq("pantryLots")))
+                .thenReturn(List.of(swept, deletedByUser, editedInBetween));
+        // lot-2 is already gone and lot-3 no longer matches the stale filter when the sweep gets to them
+        when(mongoTemplate.findAndRemove(any(Query.class), eq(Document.class), eq("pantryLots")))
+                .thenReturn(new Document(swept), null, null);
+
+        assertThat(service.archiveStaleLots()).isEqualTo(1);
+
+        verify(totals, times(1)).applyChange(any(), isNull());
+        verify(totals).contributionOf(argThat(lot -> "lot-1".equals(lot.getId())));
+        verify(replica).remove("lot-1");
+        verify(replica, never()).remove("lot-2");
+        verify(households, times(1)).releasePantryLot("default");
+        verify(changeEvents, times(1)).publish(anyString(), eq(ChangeEvent.PANTRY_LOT), anyString(),
+                eq(ChangeEvent.Operation.DELETED), any());
+        verify(changeEvents).publish(eq("default"), eq(ChangeEvent.PANTRY_LOT), eq("lot-1"),
+                eq(ChangeEvent.Operation.DELETED), any());
+
+        ArgumentCaptor<Query> archiveCleanup = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).remove(archiveCleanup.capture(), eq(PantryExpiryService.ARCHIVE_COLLECTION));
+        assertThat(archiveCleanup.getValue().getQueryObject().get("_id", Document.class).getList("$in", Object.class))
+                .containsExactly("lot-2", "lot-3");
+    }
+
+    @Test
+    void archivesTheRemovedVersionWhenTheLotChangedButStayedStale() {
+        Document candidate = lot("lot-1");
+        Document removed = lot("lot-1").append("quantity", 0.0);
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), eq("pantryLots"))).thenReturn(List.of(candidate));
+        when(mongoTemplate.findAndRemove(any(Query.class), eq(Document.class), eq("pantryLots"))).thenReturn(removed);
+
+        assertThat(service.archiveStaleLots()).isEqualTo(1);
+
+        ArgumentCaptor<Document> replacement = ArgumentCaptor.forClass(Document.class);
+        verify(mongoTemplate).findAndReplace(any(Query.class), replacement.capture(), any(), eq(Document.class),
+                eq(PantryExpiryService.ARCHIVE_COLLECTION));
+        assertThat(replacement.getValue().get("quantity")).isEqualTo(0.0);
+        assertThat(replacement.getValue()).containsKey("archivedAt");
+        verify(totals).contributionOf(argThat(lot -> lot.getQuantity() == 0.0));
+    }
+
+    @Test
+    void countsBufferedAdjustmentsTowardsTheStockOfExpiringLots() {
+        when(adjustmentBuffer.pendingFor("default")).thenReturn(Map.of("restocked", 2.0, "emptied", -1.0));
+        when(mongoTemplate.find(any(Query.class), eq(PantryLot.class))).thenReturn(List.of(
+                pantryLot("restocked", 0), pantryLot("emptied", 1), pantryLot("stocked", 1)));
+        when(mongoTemplate.count(any(Query.class), eq(PantryLot.class))).thenReturn(3L);
+
+        assertThat(service.findExpiring("default", Duration.ofDays(3), 2))
+                .extracting(PantryLot::getId).containsExactly("restocked", "stocked");
+        assertThat(service.countExpiring("default", Duration.ofDays(3))).isEqualTo(2);
+
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(2)).find(queries.capture(), eq(PantryLot.class));
+        Query expiring = queries.getAllValues().get(0);
+        assertThat(expiring.getLimit()).isEqualTo(3);
+        Document inStock = expiring.getQueryObject().getList("$and", Document.class).get(0);
+        assertThat(inStock.getList("$or", Document.class).get(1))
+                .isEqualTo(new Document("_id", new Document("$in", List.of("restocked"))));
+    }
+
+    private static PantryLot pantryLot(String id, double quantity) {
+        return PantryLot.builder().id(id).householdId("default").quantity(quantity).expiresAt(EXPIRED).build();
+    }
+
+    private static Document lot(String id) {
+        return new Document("_id", id)
+                .append("householdId", "default")
+                .append("name", "milk")
+                .append("nameNormalized", "milk")
+                .append("quantity", 1.0)
+                .append("unit", "l")
+                .append("expiresAt", EXPIRED);
+    }
+}
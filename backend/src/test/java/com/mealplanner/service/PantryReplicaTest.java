@@ -0,0 +1,233 @@
+package com.mealplanner.service;
+
+import com.mealplanner.model.PantryLot;
+import com.mealplanner.model.PantryLotType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonDocument;
+import org.bson.BsonRegularExpression;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PantryReplicaTest {
+
+    private static final List<String> HOUSEHOLDS = List.of("default", "family-1", "family-2");
+    private static final List<String> NAMES = List.of("milk", "oat milk", "eggs", "flour", "spinach", "butter");
+    private static final Instant BASE = Instant.parse("2026-01-15T12:00:00Z");
+
+    private MongoTemplate mongoTemplate;
+    private final Map<String, PantryLot> stored = new LinkedHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.getCollectionName(PantryLot.class)).thenReturn("pantryLots");
+        when(mongoTemplate.stream(any(Query.class), eq(PantryLot.class)))
+                .thenAnswer(invocation -> new ArrayList<>(stored.values()).stream());
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        when(mongoTemplate.getConverter()).thenReturn(converter);
+    }
+
+    @Test
+    void listMatchesTheMongoListQueryAcrossWrites() {
+        Random random = new Random(42);
+        for (int i = 0; i < 120; i++) {
+            store(randomLot(random, "lot-" + i, i));
+        }
+        PantryReplica replica = warmed();
+        assertListsMatch(replica);
+
+        for (int i = 0; i < 400; i++) {
+            String id = "lot-" + random.nextInt(150);
+            if (random.nextInt(5) == 0) {
+                stored.remove(id);
+                replica.remove(id);
+            } else {
+                PantryLot lot = randomLot(random, id, 200 + i);
+                store(lot);
+                replica.upsert(lot);
+            }
+        }
+        assertListsMatch(replica);
+    }
+
+    @Test
+    void answersNothingUntilWarmedAndDefersPatternsItCannotEvaluate() {
+        store(lot("lot-1", "default", "milk", PantryLotType.INGREDIENT, BASE));
+        PantryReplica replica = replica();
+
+        assertThat(replica.list("default", null, null, 10, 0)).isEmpty();
+        assertThat(replica.isFresh()).isFalse();
+
+        ReflectionTestUtils.invokeMethod(replica, "warm");
+        assertThat(replica.list("default", null, null, 10, 0)).get()
+                .satisfies(page -> assertThat(page.total()).isEqualTo(1));
+        assertThat(replica.list("family-9", null, null, 10, 0)).get()
+                .satisfies(page -> assertThat(page.items()).isEmpty());
+        assertThat(replica.list("default", null, "milk(", 10, 0)).isEmpty();
+        // Not fresh until the change stream is live, so services still go to Mongo
+        assertThat(replica.isFresh()).isFalse();
+    }
+
+    @Test
+    void ignoresWritesOlderThanTheReplicasCopy() {
+        store(lot("lot-1", "default", "milk", PantryLotType.INGREDIENT, BASE));
+        PantryReplica replica = warmed();
+        PantryReplica.Page before = replica.list("default", null, null, 10, 0).orElseThrow();
+
+        PantryLot renamed = lot("lot-1", "default", "oat milk", PantryLotType.INGREDIENT, BASE.plusSeconds(60));
+        replica.upsert(renamed);
+        // The change stream's insert event still carries the document as first written
+        replica.upsert(lot("lot-1", "default", "milk", PantryLotType.INGREDIENT, BASE));
+
+        assertThat(replica.find("default", "lot-1")).contains(renamed);
+        assertThat(replica.list("default", null, "milk", 10, 0).orElseThrow().items()).containsExactly(renamed);
+        // A page already read is a snapshot and is not changed by later writes
+        assertThat(before.items()).extracting(PantryLot::getName).containsExactly("milk");
+    }
+
+    @Test
+    void resumesFromAPersistedSnapshot(@TempDir Path directory) {
+        Random random = new Random(7);
+        for (int i = 0; i < 40; i++) {
+            store(randomLot(random, "lot-" + i, i));
+        }
+        String snapshotPath = directory.resolve("pantry-replica.snapshot").toString();
+        PantryReplica original = warmed();
+        ReflectionTestUtils.setField(original, "snapshotPath", snapshotPath);
+        ReflectionTestUtils.setField(original, "resumeToken", new BsonDocument("_data", new BsonString("8263A1")));
+        ReflectionTestUtils.invokeMethod(original, "persistSnapshot");
+
+        stored.clear();
+        PantryReplica restored = replica();
+        ReflectionTestUtils.setField(restored, "snapshotPath", snapshotPath);
+        ReflectionTestUtils.invokeMethod(restored, "loadPersistedSnapshot");
+
+        assertThat(ReflectionTestUtils.getField(restored, "resumeToken"))
+                .isEqualTo(new BsonDocument("_data", new BsonString("8263A1")));
+        for (String household : HOUSEHOLDS) {
+            assertThat(ids(restored.list(household, null, null, 100, 0).orElseThrow().items()))
+                    .isEqualTo(ids(original.list(household, null, null, 100, 0).orElseThrow().items()));
+        }
+    }
+
+    private void assertListsMatch(PantryReplica replica) {
+        List<PantryLotType> types = new ArrayList<>(List.of(PantryLotType.values()));
+        types.add(null);
+        for (String household : HOUSEHOLDS) {
+            for (PantryLotType type : types) {
+                for (String name : new String[]{null, "milk", "^o", "EGG"}) {
+                    for (int[] window : new int[][]{{200, 0}, {5, 0}, {5, 7}}) {
+                        PantryReplica.Page page = replica.list(household, type, name, window[0], window[1]).orElseThrow();
+                        List<PantryLot> expected = expectedList(household, type, name);
+                        assertThat(page.total()).as("%s %s %s", household, type, name).isEqualTo(expected.size());
+                        assertThat(ids(page.items())).as("%s %s %s %s", household, type, name, window[1])
+                                .isEqualTo(ids(expected.stream().skip(window[1]).limit(window[0]).toList()));
+                    }
+                }
+            }
+        }
+    }
+
+    /** Evaluates {@link PantryLotService#buildListQuery} the way Mongo would over the stored lots. */
+    private List<PantryLot> expectedList(String household, PantryLotType type, String name) {
+        Document filter = PantryLotService.buildListQuery(household, type, name).getQueryObject();
+        return stored.values().stream()
+                .filter(lot -> filter.entrySet().stream().allMatch(condition -> matches(lot, condition)))
+                .sorted(Comparator.comparing(PantryLot::getUpdatedAt, Comparator.nullsLast(Comparator.reverseOrder())))
+                .toList();
+    }
+
+    private static boolean matches(PantryLot lot, Map.Entry<String, Object> condition) {
+        Object actual = switch (condition.getKey()) {
+            case "householdId" -> lot.getHouseholdId();
+            case "type" -> lot.getType();
+            case "nameNormalized" -> lot.getNameNormalized();
+            default -> throw new IllegalArgumentException("Unexpected list filter " + condition.getKey());
+        };
+        Object expected = condition.getValue();
+        if (expected instanceof BsonRegularExpression regex) {
+            int flags = regex.getOptions().contains("i") ? Pattern.CASE_INSENSITIVE : 0;
+            return actual != null && Pattern.compile(regex.getPattern(), flags).matcher(actual.toString()).find();
+        }
+        if (expected instanceof Pattern pattern) {
+            return actual != null && pattern.matcher(actual.toString()).find();
+        }
+        return Objects.equals(expected, actual);
+    }
+
+    private PantryReplica replica() {
+        PantryReplica replica = new PantryReplica(mongoTemplate, mock(MigrationRegistry.class), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(replica, "maxLag", Duration.ofSeconds(5));
+        ReflectionTestUtils.setField(replica, "snapshotPath", "");
+        return replica;
+    }
+
+    private PantryReplica warmed() {
+        PantryReplica replica = replica();
+        ReflectionTestUtils.invokeMethod(replica, "warm");
+        return replica;
+    }
+
+    private void store(PantryLot lot) {
+        stored.put(lot.getId(), lot);
+    }
+
+    /** Distinct timestamps per step keep the expected order free of ties, except for one undated lot. */
+    private static PantryLot randomLot(Random random, String id, int step) {
+        Instant updatedAt = step == 3 ? null : BASE.plusSeconds(step * 60L + random.nextInt(60));
+        return lot(id, HOUSEHOLDS.get(random.nextInt(HOUSEHOLDS.size())), NAMES.get(random.nextInt(NAMES.size())),
+                PantryLotType.values()[random.nextInt(PantryLotType.values().length)], updatedAt);
+    }
+
+    private static PantryLot lot(String id, String household, String name, PantryLotType type, Instant updatedAt) {
+        return PantryLot.builder()
+                .id(id)
+                .householdId(household)
+                .name(name)
+                .nameNormalized(name)
+                .type(type)
+                .quantity(1)
+                .unit("each")
+                .createdAt(BASE)
+                .updatedAt(updatedAt)
+                .build();
+    }
+
+    private static List<String> ids(List<PantryLot> lots) {
+        return lots.stream().map(PantryLot::getId).toList();
+    }
+}
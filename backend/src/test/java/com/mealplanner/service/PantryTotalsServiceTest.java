@@ -0,0 +1,273 @@
+package com.mealplanner.service;
+
+import com.mealplanner.model.PantryLot;
+import com.mealplanner.model.PantryTotal;
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the totals arithmetic against a map standing in for {@code pantryTotals}, applying
+ * the service's {@code $inc} upserts and conditional repairs the way Mongo would.
+ */
+class PantryTotalsServiceTest {
+
+    private final Map<String, PantryTotal> totals = new HashMap<>();
+    private final List<PantryLot> lots = new ArrayList<>();
+    private PantryTotalsService service;
+
+    @BeforeEach
+    void setUp() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(PantryTotal.class))).thenAnswer(invocation -> increment(invocation.getArgument(0),
+                invocation.getArgument(1)));
+        when(mongoTemplate.remove(any(Query.class), eq(PantryTotal.class)))
+                .thenAnswer(invocation -> remove(invocation.getArgument(0)));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(PantryTotal.class)))
+                .thenAnswer(invocation -> set(invocation.getArgument(0), invocation.getArgument(1)));
+        when(mongoTemplate.insert(any(PantryTotal.class))).thenAnswer(invocation -> {
+            PantryTotal total = invocation.getArgument(0);
+            totals.put(total.getId(), copy(total));
+            return total;
+        });
+        when(mongoTemplate.findDistinct(any(Query.class), eq("householdId"), eq(PantryTotal.class), eq(String.class)))
+                .thenAnswer(invocation -> totals.values().stream().map(PantryTotal::getHouseholdId).distinct().toList());
+        when(mongoTemplate.findDistinct(any(Query.class), eq("householdId"), eq(PantryLot.class), eq(String.class)))
+                .thenAnswer(invocation -> lots.stream().map(PantryLot::getHouseholdId).distinct().toList());
+        when(mongoTemplate.find(any(Query.class), eq(PantryTotal.class)))
+                .thenAnswer(invocation -> {
+                    Object householdId = invocation.<Query>getArgument(0).getQueryObject().get("householdId");
+                    return totals.values().stream()
+                            .filter(total -> total.getHouseholdId().equals(householdId))
+                            .map(PantryTotalsServiceTest::copy)
+                            .toList();
+                });
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(PantryLot.class), eq(Document.class)))
+                .thenAnswer(invocation -> sums(invocation.getArgument(0)));
+        service = new PantryTotalsService(mongoTemplate, new UnitConversionService(), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "reconcileSettle", Duration.ofMinutes(1));
+    }
+
+    @Test
+    void sumsLotsInDifferentUnitsOfOneDimension() {
+        create(lot("milk", 1, "l"));
+        create(lot("milk", 2, "cups"));
+        create(lot("flour", 1.5, "kg"));
+
+        assertThat(total("milk", "ml").getQuantity()).isCloseTo(1000 + 2 * 236.5882365, within(1e-9));
+        assertThat(total("milk", "ml").getLotCount()).isEqualTo(2);
+        assertThat(total("flour", "g").getQuantity()).isCloseTo(1500, within(1e-9));
+    }
+
+    @Test
+    void appliesCrossUnitDeltasAndAdjustmentsInCanonicalUnits() {
+        PantryLot carton = create(lot("milk", 1, "l"));
+        create(lot("milk", 500, "ml"));
+
+        PantryTotalsService.Contribution before = service.contributionOf(carton);
+        carton.setQuantity(4);
+        carton.setUnit("cups");
+        service.applyChange(before, service.contributionOf(carton));
+        assertThat(total("milk", "ml").getQuantity()).isCloseTo(4 * 236.5882365 + 500, within(1e-9));
+        assertThat(total("milk", "ml").getLotCount()).isEqualTo(2);
+
+        service.applyAdjustment(carton, -1);
+        assertThat(total("milk", "ml").getQuantity()).isCloseTo(3 * 236.5882365 + 500, within(1e-9));
+    }
+
+    @Test
+    void movesALotBetweenTotalsWhenItsUnitChangesDimension() {
+        PantryLot butter = create(lot("butter", 2, "cups"));
+
+        PantryTotalsService.Contribution before = service.contributionOf(butter);
+        butter.setQuantity(250);
+        butter.setUnit("g");
+        service.applyChange(before, service.contributionOf(butter));
+
+        assertThat(totals).doesNotContainKey("default|butter|ml");
+        assertThat(total("butter", "g").getQuantity()).isEqualTo(250);
+        assertThat(total("butter", "g").getLotCount()).isEqualTo(1);
+
+        service.applyChange(service.contributionOf(butter), null);
+        assertThat(totals).isEmpty();
+    }
+
+    @Test
+    void reconcileRepairsDriftedMissingAndOrphanedTotals() {
+        create(lot("eggs", 6, "each"));
+        create(lot("eggs", 12, "pcs"));
+        create(lot("rice", 1, "kg"));
+        totals.get("default|eggs|each").setQuantity(10);
+        totals.remove("default|rice|g");
+        totals.put("default|ghost|g", PantryTotal.builder().id("default|ghost|g").householdId("default")
+                .ingredient("ghost").unit("g").quantity(5).lotCount(1).build());
+
+        assertThat(service.reconcile()).isEqualTo(3);
+
+        assertThat(total("eggs", "each").getQuantity()).isEqualTo(18);
+        assertThat(total("eggs", "each").getLotCount()).isEqualTo(2);
+        assertThat(total("rice", "g").getQuantity()).isEqualTo(1000);
+        assertThat(totals).doesNotContainKey("default|ghost|g");
+        assertThat(service.reconcile()).isZero();
+    }
+
+    @Test
+    void reconcileLeavesTotalsWithRecentlyWrittenLotsForTheNextRun() {
+        create(lot("flour", 500, "g"));
+        create(lot("oats", 1, "kg"));
+        // Saved, but its increment has not been applied yet
+        PantryLot pending = lot("flour", 250, "g");
+        pending.setUpdatedAt(Instant.now());
+        lots.add(pending);
+        totals.get("default|oats|g").setQuantity(900);
+
+        assertThat(service.reconcile()).isEqualTo(1);
+        assertThat(total("oats", "g").getQuantity()).isEqualTo(1000);
+        assertThat(total("flour", "g").getQuantity()).isEqualTo(500);
+
+        service.applyChange(null, service.contributionOf(pending));
+        assertThat(total("flour", "g").getQuantity()).isEqualTo(750);
+        assertThat(total("flour", "g").getLotCount()).isEqualTo(2);
+    }
+
+    @Test
+    void reconcilesEachHouseholdOnItsOwn() {
+        create(lot("milk", 1, "l"));
+        PantryLot other = lot("milk", 2, "l");
+        other.setHouseholdId("family-1");
+        create(other);
+        totals.get("family-1|milk|ml").setQuantity(1);
+
+        assertThat(service.reconcile()).isEqualTo(1);
+        assertThat(totals.get("default|milk|ml").getQuantity()).isEqualTo(1000);
+        assertThat(totals.get("family-1|milk|ml").getQuantity()).isEqualTo(2000);
+    }
+
+    private PantryLot create(PantryLot lot) {
+        lots.add(lot);
+        service.applyChange(null, service.contributionOf(lot));
+        return lot;
+    }
+
+    private PantryTotal total(String ingredient, String unit) {
+        return totals.get(PantryTotalsService.totalId("default", ingredient, unit));
+    }
+
+    private static PantryLot lot(String name, double quantity, String unit) {
+        return PantryLot.builder().householdId("default").name(name).nameNormalized(name)
+                .quantity(quantity).unit(unit).build();
+    }
+
+    /** Evaluates the reconcile aggregation's {@code $match} and {@code $group} over the stored lots. */
+    private AggregationResults<Document> sums(Aggregation aggregation) {
+        List<Document> pipeline = aggregation.toPipeline(Aggregation.DEFAULT_CONTEXT);
+        String householdId = pipeline.get(0).get("$match", Document.class).getString("householdId");
+        Object bound = pipeline.get(1).get("$group", Document.class).get("unsettled", Document.class)
+                .get("$max", Document.class).getList("$gt", Object.class).get(1);
+        Instant settledBefore = bound instanceof Date date ? date.toInstant() : (Instant) bound;
+
+        Map<List<String>, Document> groups = new LinkedHashMap<>();
+        lots.stream()
+                .filter(lot -> lot.getHouseholdId().equals(householdId) && lot.getNameNormalized() != null)
+                .forEach(lot -> {
+                    Document group = groups.computeIfAbsent(List.of(lot.getNameNormalized(), lot.getUnit()),
+                            key -> new Document("_id", new Document("nameNormalized", key.get(0))
+                                    .append("unit", key.get(1)))
+                                    .append("quantity", 0.0).append("lotCount", 0).append("unsettled", false));
+                    group.put("quantity", group.getDouble("quantity") + lot.getQuantity());
+                    group.put("lotCount", group.getInteger("lotCount") + 1);
+                    if (lot.getUpdatedAt() != null && lot.getUpdatedAt().isAfter(settledBefore)) {
+                        group.put("unsettled", true);
+                    }
+                });
+        return new AggregationResults<>(new ArrayList<>(groups.values()), new Document());
+    }
+
+    private PantryTotal increment(Query query, Update update) {
+        String id = (String) query.getQueryObject().get("_id");
+        Document inc = update.getUpdateObject().get("$inc", Document.class);
+        Document onInsert = update.getUpdateObject().get("$setOnInsert", Document.class);
+        PantryTotal total = totals.computeIfAbsent(id, key -> PantryTotal.builder()
+                .id(key)
+                .householdId(onInsert.getString("householdId"))
+                .ingredient(onInsert.getString("ingredient"))
+                .unit(onInsert.getString("unit"))
+                .build());
+        total.setQuantity(total.getQuantity() + ((Number) inc.get("quantity")).doubleValue());
+        total.setLotCount(total.getLotCount() + ((Number) inc.get("lotCount")).intValue());
+        return copy(total);
+    }
+
+    private DeleteResult remove(Query query) {
+        PantryTotal total = matching(query);
+        if (total == null) {
+            return DeleteResult.acknowledged(0);
+        }
+        totals.remove(total.getId());
+        return DeleteResult.acknowledged(1);
+    }
+
+    private UpdateResult set(Query query, Update update) {
+        PantryTotal total = matching(query);
+        if (total == null) {
+            return UpdateResult.acknowledged(0, 0L, null);
+        }
+        Document set = update.getUpdateObject().get("$set", Document.class);
+        total.setQuantity(((Number) set.get("quantity")).doubleValue());
+        total.setLotCount(((Number) set.get("lotCount")).intValue());
+        return UpdateResult.acknowledged(1, 1L, null);
+    }
+
+    /** The total matching an {@code _id} filter plus optional quantity, lotCount or lotCount $lte conditions. */
+    private PantryTotal matching(Query query) {
+        Document filter = query.getQueryObject();
+        PantryTotal total = totals.get((String) filter.get("_id"));
+        if (total == null) {
+            return null;
+        }
+        if (filter.get("quantity") instanceof Number quantity && quantity.doubleValue() != total.getQuantity()) {
+            return null;
+        }
+        Object lotCount = filter.get("lotCount");
+        if (lotCount instanceof Number count && count.intValue() != total.getLotCount()) {
+            return null;
+        }
+        if (lotCount instanceof Document condition && total.getLotCount() > ((Number) condition.get("$lte")).intValue()) {
+            return null;
+        }
+        return total;
+    }
+
+    private static PantryTotal copy(PantryTotal total) {
+        return PantryTotal.builder().id(total.getId()).householdId(total.getHouseholdId())
+                .ingredient(total.getIngredient()).unit(total.getUnit())
+                .quantity(total.getQuantity()).lotCount(total.getLotCount()).build();
+    }
+}
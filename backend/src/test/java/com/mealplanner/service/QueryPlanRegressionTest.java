@@ -0,0 +1,371 @@
+package com.mealplanner.service;
+
+import com.mealplanner.dto.PantryLotListResponse;
+import com.mealplanner.model.IngredientSubstitution;
+import com.mealplanner.model.PantryLot;
+import com.mealplanner.model.PantryLotType;
+import com.mealplanner.model.PantryTotal;
+import com.mealplanner.model.Recipe;
+import com.mealplanner.model.RecipeIngredient;
+import com.mealplanner.repository.IngredientSubstitutionRepository;
+import com.mealplanner.repository.PantryLotRepository;
+import com.mealplanner.repository.RecipeRepository;
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Filters;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Runs every list, lookup and count query shape of the services and repositories against
+ * a local Mongo with the {@link IndexCatalog} applied, captures the commands with the
+ * profiler and explains each one. Fails on a collection scan, a blocking in-memory sort,
+ * or a plan that examines far more documents than it returns. Skipped when no Mongo is
+ * reachable at {@code MONGODB_URI} (default {@code mongodb://localhost:27017}).
+ */
+class QueryPlanRegressionTest {
+
+    private static final String DATABASE = "mealplanner_query_plans";
+    private static final int LOTS = 3_000;
+    private static final int RECIPES = 3_000;
+    private static final int HOUSEHOLDS = 10;
+    /** The household every query runs for; the others only add keys outside its range. */
+    private static final String HOUSEHOLD = household(3);
+    private static final double MAX_EXAMINED_RATIO = 2.0;
+    private static final long EXAMINED_SLACK = 20;
+
+    private static final List<String> WORDS = List.of(
+            "apple", "basil", "butter", "carrot", "cheddar", "chicken", "cumin", "egg", "flour", "garlic",
+            "ginger", "honey", "kale", "lemon", "lentil", "milk", "oat", "onion", "paprika", "pasta",
+            "pepper", "potato", "rice", "salmon", "spinach", "sugar", "thyme", "tofu", "tomato", "yogurt");
+    private static final List<String> TAGS = List.of("quick", "dinner", "vegan", "breakfast", "baking");
+
+    private static MongoClient client;
+    private static MongoDatabase database;
+    private static MongoTemplate mongoTemplate;
+
+    @BeforeAll
+    static void connect() {
+        String uri = System.getenv().getOrDefault("MONGODB_URI", "mongodb://localhost:27017");
+        client = MongoClients.create(MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(uri))
+                .applyToClusterSettings(cluster -> cluster.serverSelectionTimeout(2, TimeUnit.SECONDS))
+                .build());
+        database = client.getDatabase(DATABASE);
+        try {
+            database.runCommand(new Document("ping", 1));
+        } catch (RuntimeException ex) {
+            client.close();
+            client = null;
+            assumeTrue(false, "No MongoDB reachable at " + uri);
+        }
+
+        database.drop();
+        mongoTemplate = new MongoTemplate(client, DATABASE);
+        seed();
+        new IndexManager(mongoTemplate, new IndexCatalog(Duration.ofHours(24))).apply();
+    }
+
+    @AfterAll
+    static void disconnect() {
+        if (client != null) {
+            database.drop();
+            client.close();
+        }
+    }
+
+    @Test
+    void everyQueryShapeUsesAnIndex() {
+        database.runCommand(new Document("profile", 0));
+        database.getCollection("system.profile").drop();
+        database.runCommand(new Document("profile", 2));
+        try {
+            runQueryShapes();
+        } finally {
+            database.runCommand(new Document("profile", 0));
+        }
+
+        List<String> violations = new ArrayList<>();
+        int explained = 0;
+        for (Document profiled : database.getCollection("system.profile")
+                .find(Filters.in("ns", namespace("pantryLots"), namespace("recipes"), namespace("pantryTotals"),
+                        namespace("ingredientSubstitutions")))) {
+            Document command = profiled.get("command", Document.class);
+            if (command == null || !isQuery(profiled.getString("op"), command)) {
+                continue;
+            }
+            Document explain = database.runCommand(new Document("explain", clean(command))
+                    .append("verbosity", "executionStats"));
+            explained++;
+            checkPlan(command, explain, violations);
+        }
+
+        assertThat(explained).as("explained query shapes").isGreaterThan(20);
+        assertThat(violations).as("query plan violations").isEmpty();
+    }
+
+    private void runQueryShapes() {
+        PageRequest page = PageRequest.of(0, 50, Sort.by(Sort.Direction.DESC, "updatedAt"));
+
+        // RecipeService / ReactiveRecipeService list: every filter combination, page and count
+        for (String tag : new String[]{null, "vegan"}) {
+            for (String name : new String[]{null, "pasta"}) {
+                Query query = RecipeService.buildListQuery(HOUSEHOLD, tag, name);
+                mongoTemplate.count(query, Recipe.class);
+                mongoTemplate.find(query.with(RecipeService.LIST_SORT).limit(50), Recipe.class);
+            }
+        }
+
+        // PantryLotService / ReactivePantryLotService list
+        for (PantryLotType type : new PantryLotType[]{null, PantryLotType.PACKAGED}) {
+            for (String name : new String[]{null, "tomato"}) {
+                Query query = PantryLotService.buildListQuery(HOUSEHOLD, type, name);
+                mongoTemplate.count(query, PantryLot.class);
+                mongoTemplate.find(query.with(PantryLotService.LIST_SORT).limit(50), PantryLot.class);
+            }
+        }
+
+        // Expiry, use-soon ranking, totals and the archive sweep
+        PantryExpiryService expiryService = new PantryExpiryService(mongoTemplate, mock(PantryTotalsService.class),
+                mock(PantryReplica.class), mock(PantryAdjustmentBuffer.class),
+                new RequestCoalescer<PantryLotService.ListKey, PantryLotListResponse>("test", Duration.ZERO,
+                        new SimpleMeterRegistry()),
+                mock(ChangeEventService.class), mock(HouseholdService.class), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(expiryService, "batchSize", 500);
+        ReflectionTestUtils.setField(expiryService, "maxBatches", 1);
+        ReflectionTestUtils.setField(expiryService, "expiredGrace", Duration.ofDays(7));
+        ReflectionTestUtils.setField(expiryService, "depletedGrace", Duration.ofDays(1));
+        expiryService.findExpiring(HOUSEHOLD, Duration.ofDays(3), 50);
+        expiryService.countExpiring(HOUSEHOLD, Duration.ofDays(3));
+
+        SubstitutionService substitutionService = new SubstitutionService(
+                new MongoRepositoryFactory(mongoTemplate).getRepository(IngredientSubstitutionRepository.class),
+                mongoTemplate, new UnitConversionService(), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(substitutionService, "maxDepth", 3);
+        ReflectionTestUtils.setField(substitutionService, "maxOptions", 16);
+        ReflectionTestUtils.setField(substitutionService, "refreshInterval", Duration.ofMinutes(5));
+        ReflectionTestUtils.setField(substitutionService, "cacheSize", 100);
+        substitutionService.listSubstitutions(HOUSEHOLD, null, 50, 0);
+        substitutionService.listSubstitutions(HOUSEHOLD, "buttermilk", 50, 0);
+
+        CookabilityService cookabilityService = new CookabilityService(mongoTemplate, expiryService,
+                new UnitConversionService(), substitutionService);
+        ReflectionTestUtils.setField(cookabilityService, "maxExpiringLots", 20);
+        ReflectionTestUtils.setField(cookabilityService, "maxCandidates", 200);
+        cookabilityService.rankUseSoon(HOUSEHOLD, Duration.ofDays(3), 10);
+
+        PantryTotalsService totalsService = new PantryTotalsService(mongoTemplate, new UnitConversionService(),
+                new SimpleMeterRegistry());
+        totalsService.listTotals(HOUSEHOLD, null);
+        totalsService.listTotals(HOUSEHOLD, "flour");
+
+        expiryService.archiveStaleLots();
+
+        RecipeDuplicateService duplicateService = new RecipeDuplicateService(mongoTemplate);
+        ReflectionTestUtils.setField(duplicateService, "defaultThreshold", 0.8);
+        ReflectionTestUtils.setField(duplicateService, "maxCandidates", 200);
+        duplicateService.findBestMatch(HOUSEHOLD, RecipeMinHash.of("garlic soup 40", List.of("garlic", "onion")));
+
+        // Repository interfaces
+        MongoRepositoryFactory factory = new MongoRepositoryFactory(mongoTemplate);
+        PantryLotRepository pantryLots = factory.getRepository(PantryLotRepository.class);
+        pantryLots.findByIdAndHouseholdId(new ObjectId().toHexString(), HOUSEHOLD);
+        pantryLots.findByHouseholdIdAndType(HOUSEHOLD, PantryLotType.INGREDIENT, page);
+        pantryLots.findByHouseholdIdAndNameContaining(HOUSEHOLD, "onion", page);
+        pantryLots.findByHouseholdIdAndTypeAndNameContaining(HOUSEHOLD, PantryLotType.INGREDIENT, "onion", page);
+        pantryLots.findByHouseholdIdAndNameNormalizedIgnoreCase(HOUSEHOLD, "onion 7");
+
+        RecipeRepository recipes = factory.getRepository(RecipeRepository.class);
+        recipes.findByIdAndHouseholdId(new ObjectId().toHexString(), HOUSEHOLD);
+        recipes.findByHouseholdIdAndNameContaining(HOUSEHOLD, "soup", page);
+        recipes.findByHouseholdIdAndTagsContaining(HOUSEHOLD, "quick", page);
+        recipes.findByHouseholdIdAndTagAndNameContaining(HOUSEHOLD, "quick", "soup", page);
+        recipes.findByHouseholdIdAndExternalKey(HOUSEHOLD, "seed-40");
+        recipes.findByHouseholdIdAndNameNormalizedIgnoreCase(HOUSEHOLD, "garlic soup 40");
+    }
+
+    private void checkPlan(Document command, Document explain, List<String> violations) {
+        List<String> stages = new ArrayList<>();
+        collectWinningStages(explain, stages);
+        if (stages.contains("COLLSCAN")) {
+            violations.add("COLLSCAN: " + command.toJson());
+        }
+        if (stages.contains("SORT")) {
+            violations.add("in-memory SORT: " + command.toJson());
+        }
+
+        List<Document> stats = new ArrayList<>();
+        collect(explain, "executionStats", stats);
+        for (Document stat : stats) {
+            if (stat.get("totalDocsExamined") instanceof Number examined && stat.get("nReturned") instanceof Number returned
+                    && examined.longValue() > returned.longValue() * MAX_EXAMINED_RATIO + EXAMINED_SLACK) {
+                violations.add("examined " + examined + " docs for " + returned + " returned: " + command.toJson());
+            }
+        }
+    }
+
+    /**
+     * Stage names of the winning plans only; rejected plans may legitimately scan.
+     */
+    private static void collectWinningStages(Object node, List<String> stages) {
+        if (node instanceof Document document) {
+            for (String key : document.keySet()) {
+                Object value = document.get(key);
+                if (key.equals("rejectedPlans") || key.equals("allPlansExecution")) {
+                    continue;
+                }
+                if (key.equals("winningPlan")) {
+                    collectStages(value, stages);
+                } else {
+                    collectWinningStages(value, stages);
+                }
+            }
+        } else if (node instanceof List<?> list) {
+            list.forEach(item -> collectWinningStages(item, stages));
+        }
+    }
+
+    private static void collectStages(Object node, List<String> stages) {
+        if (node instanceof Document document) {
+            if (document.get("stage") instanceof String stage) {
+                stages.add(stage);
+            }
+            document.values().forEach(value -> collectStages(value, stages));
+        } else if (node instanceof List<?> list) {
+            list.forEach(item -> collectStages(item, stages));
+        }
+    }
+
+    private static void collect(Object node, String key, List<Document> found) {
+        if (node instanceof Document document) {
+            if (document.get(key) instanceof Document match) {
+                found.add(match);
+            }
+            document.values().forEach(value -> collect(value, key, found));
+        } else if (node instanceof List<?> list) {
+            list.forEach(item -> collect(item, key, found));
+        }
+    }
+
+    private static boolean isQuery(String op, Document command) {
+        return "query".equals(op)
+                || ("command".equals(op) && (command.containsKey("aggregate") || command.containsKey("count")));
+    }
+
+    /** Drops session and routing fields the driver added, which explain does not accept. */
+    private static Document clean(Document command) {
+        Document cleaned = new Document();
+        command.forEach((key, value) -> {
+            if (!key.startsWith("$") && !key.equals("lsid") && !key.equals("txnNumber")) {
+                cleaned.put(key, value);
+            }
+        });
+        return cleaned;
+    }
+
+    private static String household(int index) {
+        return "household-" + index % HOUSEHOLDS;
+    }
+
+    private static String namespace(String collection) {
+        return DATABASE + "." + collection;
+    }
+
+    private static void seed() {
+        Instant now = Instant.now();
+        List<PantryLot> lots = new ArrayList<>(LOTS);
+        for (int i = 0; i < LOTS; i++) {
+            String name = WORDS.get(i % WORDS.size()) + " " + i;
+            boolean depleted = i % 50 == 0;
+            lots.add(PantryLot.builder()
+                    .householdId(household(i))
+                    .name(name)
+                    .nameNormalized(name)
+                    .type(i % 2 == 0 ? PantryLotType.INGREDIENT : PantryLotType.PACKAGED)
+                    .quantity(depleted ? 0 : 1 + i % 7)
+                    .unit(i % 3 == 0 ? "g" : "each")
+                    .expiresAt(i % 3 == 0 ? now.plus(Duration.ofHours(i % 480 - 240)) : null)
+                    .createdAt(now.minus(Duration.ofMinutes(i)))
+                    .updatedAt(depleted ? now.minus(Duration.ofDays(3)) : now.minus(Duration.ofMinutes(i)))
+                    .build());
+        }
+        mongoTemplate.insertAll(lots);
+
+        List<PantryTotal> totals = new ArrayList<>();
+        for (int h = 0; h < HOUSEHOLDS; h++) {
+            for (String word : WORDS) {
+                totals.add(PantryTotal.builder().id(PantryTotalsService.totalId(household(h), word, "g"))
+                        .householdId(household(h)).ingredient(word).unit("g")
+                        .quantity(500).lotCount(3).updatedAt(now).build());
+            }
+        }
+        mongoTemplate.insertAll(totals);
+
+        List<IngredientSubstitution> substitutions = new ArrayList<>();
+        for (int h = 0; h < HOUSEHOLDS; h++) {
+            for (int w = 0; w < WORDS.size(); w++) {
+                substitutions.add(IngredientSubstitution.builder()
+                        .householdId(household(h))
+                        .ingredient(WORDS.get(w))
+                        .ingredientNormalized(WORDS.get(w))
+                        .quantity(1)
+                        .unit("g")
+                        .substitutes(List.of(RecipeIngredient.builder()
+                                .name(WORDS.get((w + 1) % WORDS.size())).quantity(1).unit("g").build()))
+                        .build());
+            }
+        }
+        mongoTemplate.insertAll(substitutions);
+
+        List<Recipe> recipes = new ArrayList<>(RECIPES);
+        for (int i = 0; i < RECIPES; i++) {
+            String main = WORDS.get(i % WORDS.size());
+            String side = WORDS.get((i * 7 + 3) % WORDS.size());
+            String name = main + (i % 4 == 0 ? " soup " : " bake ") + i;
+            List<RecipeIngredient> ingredients = List.of(
+                    RecipeIngredient.builder().name(main).quantity(100).unit("g").build(),
+                    RecipeIngredient.builder().name(side).quantity(1).unit("each").build());
+            RecipeMinHash.Signature signature = RecipeMinHash.of(name,
+                    RecipeService.normalizeIngredientNames(ingredients));
+            recipes.add(Recipe.builder()
+                    .householdId(household(i))
+                    .name(name)
+                    .nameNormalized(name)
+                    .ingredients(ingredients)
+                    .ingredientNamesNormalized(RecipeService.normalizeIngredientNames(ingredients))
+                    .instructions(List.of("Cook."))
+                    .servings(2)
+                    .tags(List.of(TAGS.get(i % TAGS.size()), TAGS.get((i / 5) % TAGS.size())))
+                    .externalKey(i % 10 == 0 ? "seed-" + i : null)
+                    .minHash(signature.minHash())
+                    .lshBuckets(signature.bands())
+                    .createdAt(now.minus(Duration.ofMinutes(i)))
+                    .updatedAt(now.minus(Duration.ofMinutes(i)))
+                    .build());
+        }
+        mongoTemplate.insertAll(recipes);
+    }
+}
@@ -0,0 +1,119 @@
+package com.mealplanner.service;
+
+import com.mealplanner.dto.RecipeDuplicateListResponse;
+import com.mealplanner.dto.RecipeDuplicateResponse;
+import com.mealplanner.exception.InvalidParameterException;
+import com.mealplanner.exception.ResourceNotFoundException;
+import com.mealplanner.model.Recipe;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RecipeDuplicateServiceTest {
+
+    private static final List<String> CURRY = List.of("chicken thigh", "onion", "garlic", "ginger", "garam masala",
+            "tomato", "cream", "butter", "rice");
+
+    private MongoTemplate mongoTemplate;
+    private RecipeDuplicateService service;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        service = new RecipeDuplicateService(mongoTemplate);
+        ReflectionTestUtils.setField(service, "defaultThreshold", 0.8);
+        ReflectionTestUtils.setField(service, "maxCandidates", 200);
+    }
+
+    @Test
+    void listsCandidatesAboveTheThresholdMostSimilarFirst() {
+        Recipe original = recipe("recipe-1", "Butter Chicken Curry", CURRY);
+        Recipe variant = recipe("recipe-2", "Butter chicken curry!",
+                CURRY.stream().map(name -> name.equals("rice") ? "basmati rice" : name).toList());
+        Recipe copy = recipe("recipe-3", "Butter Chicken Curry", CURRY);
+        Recipe unrelated = recipe("recipe-4", "Fluffy Pancakes", List.of("flour", "milk", "egg", "sugar"));
+        when(mongoTemplate.findOne(any(Query.class), eq(Recipe.class))).thenReturn(original);
+        candidates(variant, unrelated, copy);
+        when(mongoTemplate.find(any(Query.class), eq(Recipe.class))).thenReturn(List.of(variant, copy));
+
+        RecipeDuplicateListResponse response = service.findDuplicates("default", "recipe-1", null, 10);
+
+        assertThat(response.getItems()).extracting(item -> item.getRecipe().getId())
+                .containsExactly("recipe-3", "recipe-2");
+        assertThat(response.getItems()).extracting(RecipeDuplicateResponse::getSimilarity)
+                .satisfies(similarities -> {
+                    assertThat(similarities.get(0)).isEqualTo(1.0);
+                    assertThat(similarities.get(1)).isBetween(0.8, 1.0);
+                });
+        assertThat(service.findDuplicates("default", "recipe-1", null, 1).getItems()).hasSize(1);
+    }
+
+    @Test
+    void ranksCandidatesBySharedBandsBeforeCappingThem() {
+        when(mongoTemplate.findOne(any(Query.class), eq(Recipe.class)))
+                .thenReturn(recipe("recipe-1", "Butter Chicken Curry", CURRY));
+        candidates();
+
+        service.findDuplicates("default", "recipe-1", 0.5, 10);
+
+        ArgumentCaptor<Aggregation> aggregation = ArgumentCaptor.forClass(Aggregation.class);
+        verify(mongoTemplate).aggregate(aggregation.capture(), eq(Recipe.class), eq(Document.class));
+        List<Document> pipeline = aggregation.getValue().toPipeline(Aggregation.DEFAULT_CONTEXT);
+        assertThat(pipeline).extracting(stage -> stage.keySet().iterator().next())
+                .containsExactly("$match", "$project", "$sort", "$limit");
+        Document match = pipeline.get(0).get("$match", Document.class);
+        assertThat(match).containsEntry("householdId", "default");
+        assertThat(match.get("_id", Document.class)).containsEntry("$ne", "recipe-1");
+        assertThat(pipeline.get(1).get("$project", Document.class)).containsKeys("minHash", "sharedBands");
+        assertThat(pipeline.get(2).get("$sort", Document.class)).isEqualTo(new Document("sharedBands", -1));
+        assertThat(pipeline.get(3).get("$limit")).isEqualTo(200L);
+    }
+
+    @Test
+    void rejectsUnknownRecipesAndThresholdsOutOfRange() {
+        assertThatThrownBy(() -> service.findDuplicates("default", "missing", null, 10))
+                .isInstanceOf(ResourceNotFoundException.class);
+        assertThatThrownBy(() -> service.findDuplicates("default", "recipe-1", 0.0, 10))
+                .isInstanceOf(InvalidParameterException.class);
+        assertThatThrownBy(() -> service.findDuplicates("default", "recipe-1", 1.5, 10))
+                .isInstanceOf(InvalidParameterException.class);
+    }
+
+    /** The candidates the aggregation returns, already projected to {@code _id} and {@code minHash}. */
+    private void candidates(Recipe... recipes) {
+        List<Document> documents = Arrays.stream(recipes)
+                .map(recipe -> new Document("_id", recipe.getId()).append("minHash", recipe.getMinHash()))
+                .toList();
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(Recipe.class), eq(Document.class)))
+                .thenReturn(new AggregationResults<>(documents, new Document()));
+    }
+
+    private static Recipe recipe(String id, String name, List<String> ingredients) {
+        RecipeMinHash.Signature signature = RecipeMinHash.of(name, ingredients);
+        return Recipe.builder()
+                .id(id)
+                .householdId("default")
+                .name(name)
+                .ingredients(List.of())
+                .minHash(signature.minHash())
+                .lshBuckets(signature.bands())
+                .build();
+    }
+}
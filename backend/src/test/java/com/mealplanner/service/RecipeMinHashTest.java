@@ -0,0 +1,44 @@
+package com.mealplanner.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecipeMinHashTest {
+
+    private static final List<String> CURRY = List.of("chicken thigh", "onion", "garlic", "ginger", "garam masala",
+            "tomato", "cream", "butter", "rice");
+
+    @Test
+    void nearDuplicatesShareABandAndScoreHigh() {
+        RecipeMinHash.Signature original = RecipeMinHash.of("Butter Chicken Curry", CURRY);
+        RecipeMinHash.Signature imported = RecipeMinHash.of("Butter chicken curry!", List.of("Chicken thigh",
+                "onion", "garlic", "ginger", "garam masala", "tomato", "cream", "butter", "basmati rice"));
+
+        assertThat(original.minHash()).hasSize(RecipeMinHash.SIZE);
+        assertThat(original.bands()).hasSize(RecipeMinHash.BANDS);
+        assertThat(RecipeMinHash.similarity(original.minHash(), imported.minHash())).isGreaterThan(0.8);
+        assertThat(imported.bands()).containsAnyElementsOf(original.bands());
+    }
+
+    @Test
+    void unrelatedRecipesScoreLowAndShareNoBand() {
+        RecipeMinHash.Signature curry = RecipeMinHash.of("Butter Chicken Curry", CURRY);
+        RecipeMinHash.Signature pancakes = RecipeMinHash.of("Fluffy Pancakes",
+                List.of("flour", "milk", "egg", "sugar", "baking powder"));
+
+        assertThat(RecipeMinHash.similarity(curry.minHash(), pancakes.minHash())).isLessThan(0.2);
+        assertThat(pancakes.bands()).doesNotContainAnyElementsOf(curry.bands());
+    }
+
+    @Test
+    void signaturesAreStableAndIgnoreIngredientWordOrder() {
+        RecipeMinHash.Signature first = RecipeMinHash.of("Pesto", List.of("basil, fresh", "pine nuts"));
+        RecipeMinHash.Signature second = RecipeMinHash.of("pesto", List.of("Pine nuts", "fresh basil"));
+
+        assertThat(second).isEqualTo(first);
+        assertThat(RecipeMinHash.of("", List.of()).bands()).isEmpty();
+    }
+}
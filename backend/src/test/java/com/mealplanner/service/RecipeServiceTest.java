@@ -0,0 +1,228 @@
+package com.mealplanner.service;
+
+import com.mealplanner.dto.RecipeCreateRequest;
+import com.mealplanner.dto.RecipeImportRequest;
+import com.mealplanner.dto.RecipeImportResponse;
+import com.mealplanner.dto.RecipeIngredientDto;
+import com.mealplanner.dto.RecipeListResponse;
+import com.mealplanner.exception.QuotaExceededException;
+import com.mealplanner.model.Recipe;
+import com.mealplanner.repository.RecipeRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs imports against a map standing in for {@code recipes}. Duplicate lookups use the real
+ * MinHash scoring over every stored recipe, as if each shared a band with the import.
+ */
+class RecipeServiceTest {
+
+    private static final List<String> CURRY = List.of("chicken thigh", "onion", "garlic", "ginger", "garam masala",
+            "tomato", "cream", "butter", "rice");
+
+    private final Map<String, Recipe> stored = new LinkedHashMap<>();
+    private MongoTemplate mongoTemplate;
+    private HouseholdService householdService;
+    private RecipeService service;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(Recipe.class), eq(Document.class)))
+                .thenAnswer(invocation -> new AggregationResults<>(stored.values().stream()
+                        .map(recipe -> new Document("_id", recipe.getId()).append("minHash", recipe.getMinHash()))
+                        .toList(), new Document()));
+
+        RecipeRepository recipeRepository = mock(RecipeRepository.class);
+        when(recipeRepository.save(any(Recipe.class))).thenAnswer(invocation -> {
+            Recipe recipe = invocation.getArgument(0);
+            if (recipe.getId() == null) {
+                recipe.setId("recipe-" + (stored.size() + 1));
+            }
+            stored.put(recipe.getId(), recipe);
+            return recipe;
+        });
+        when(recipeRepository.findByIdAndHouseholdId(anyString(), eq("default")))
+                .thenAnswer(invocation -> Optional.ofNullable(stored.get(invocation.<String>getArgument(0))));
+        when(recipeRepository.findByHouseholdIdAndExternalKey(eq("default"), anyString()))
+                .thenAnswer(invocation -> stored.values().stream()
+                        .filter(recipe -> Objects.equals(recipe.getExternalKey(), invocation.getArgument(1)))
+                        .findFirst());
+
+        RecipeDuplicateService duplicateService = new RecipeDuplicateService(mongoTemplate);
+        ReflectionTestUtils.setField(duplicateService, "defaultThreshold", 0.8);
+        ReflectionTestUtils.setField(duplicateService, "maxCandidates", 200);
+        householdService = mock(HouseholdService.class);
+        service = new RecipeService(recipeRepository, mongoTemplate,
+                new RequestCoalescer<>("recipes", Duration.ZERO, new SimpleMeterRegistry()),
+                mock(ChangeEventService.class), householdService, duplicateService);
+    }
+
+    @Test
+    void listTotalIsAnExactCountOfTheHouseholdsMatches() {
+        when(mongoTemplate.count(any(Query.class), eq(Recipe.class))).thenReturn(3L);
+        when(mongoTemplate.find(any(Query.class), eq(Recipe.class)))
+                .thenReturn(List.of(Recipe.builder().id("recipe-1").name("Pancakes").build()));
+
+        RecipeListResponse page = service.listRecipes("default", null, null, 1, 0);
+
+        assertThat(page.getTotal()).isEqualTo(3);
+        assertThat(page.getItems()).hasSize(1);
+        ArgumentCaptor<Query> counted = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).count(counted.capture(), eq(Recipe.class));
+        assertThat(counted.getValue().getQueryObject()).containsEntry("householdId", "default");
+        verify(mongoTemplate, never()).estimatedCount(Recipe.class);
+    }
+
+    @Test
+    void skipsNearDuplicatesAndKeepsTheExistingRecipe() {
+        String existing = importOne(recipe("Butter Chicken Curry", CURRY), RecipeImportRequest.DuplicatePolicy.SKIP)
+                .getId();
+
+        RecipeImportResponse response = importAll(RecipeImportRequest.DuplicatePolicy.SKIP, curryVariant());
+
+        assertThat(response.getResults().get(0).getStatus()).isEqualTo(RecipeImportResponse.Status.SKIPPED);
+        assertThat(response.getResults().get(0).getId()).isEqualTo(existing);
+        assertThat(response.getResults().get(0).getDuplicateOf()).isEqualTo(existing);
+        assertThat(response.getResults().get(0).getSimilarity()).isGreaterThanOrEqualTo(0.8);
+        assertThat(response.getSkipped()).isEqualTo(1);
+        assertThat(stored).hasSize(1);
+    }
+
+    @Test
+    void mergesMissingIngredientsAndTagsIntoTheExistingRecipe() {
+        String existing = importOne(recipe("Butter Chicken Curry", CURRY), RecipeImportRequest.DuplicatePolicy.MERGE)
+                .getId();
+
+        RecipeImportResponse.Result merged = importOne(curryVariant(), RecipeImportRequest.DuplicatePolicy.MERGE);
+
+        assertThat(merged.getStatus()).isEqualTo(RecipeImportResponse.Status.MERGED);
+        assertThat(merged.getId()).isEqualTo(existing);
+        assertThat(stored).hasSize(1);
+        Recipe recipe = stored.get(existing);
+        assertThat(recipe.getName()).isEqualTo("Butter Chicken Curry");
+        assertThat(recipe.getIngredientNamesNormalized()).contains("basmati rice", "chicken thigh");
+        assertThat(recipe.getTags()).containsExactly("dinner", "indian");
+        assertThat(recipe.getExternalKey()).isEqualTo("site-b:42");
+    }
+
+    @Test
+    void flagsDuplicatesWithinTheSameBatch() {
+        RecipeImportResponse response = importAll(RecipeImportRequest.DuplicatePolicy.FLAG,
+                recipe("Butter Chicken Curry", CURRY), curryVariant(), pancakes(null));
+
+        assertThat(response.getResults()).extracting(RecipeImportResponse.Result::getStatus).containsExactly(
+                RecipeImportResponse.Status.CREATED, RecipeImportResponse.Status.FLAGGED,
+                RecipeImportResponse.Status.CREATED);
+        String first = response.getResults().get(0).getId();
+        String flagged = response.getResults().get(1).getId();
+        assertThat(flagged).isNotEqualTo(first);
+        assertThat(stored.get(flagged).getDuplicateOf()).isEqualTo(first);
+        assertThat(response.getResults().get(2).getDuplicateOf()).isNull();
+        assertThat(response.getCreated()).isEqualTo(2);
+        assertThat(response.getFlagged()).isEqualTo(1);
+    }
+
+    @Test
+    void matchesTheExternalKeyExactlyWhateverTheContent() {
+        String existing = importOne(recipe("Butter Chicken Curry", CURRY), RecipeImportRequest.DuplicatePolicy.SKIP)
+                .getId();
+        stored.get(existing).setExternalKey("site-a:7");
+
+        RecipeImportResponse response = importAll(RecipeImportRequest.DuplicatePolicy.SKIP,
+                pancakes("site-a:7"), pancakes("site-a:8"));
+
+        assertThat(response.getResults().get(0).getStatus()).isEqualTo(RecipeImportResponse.Status.SKIPPED);
+        assertThat(response.getResults().get(0).getDuplicateOf()).isEqualTo(existing);
+        assertThat(response.getResults().get(0).getSimilarity()).isEqualTo(1.0);
+        assertThat(response.getResults().get(1).getStatus()).isEqualTo(RecipeImportResponse.Status.CREATED);
+    }
+
+    @Test
+    void reportsEntriesBeyondTheQuotaInsteadOfFailingTheBatch() {
+        doAnswer(invocation -> {
+            if (stored.size() >= 2) {
+                throw new QuotaExceededException("default", "recipes", 2);
+            }
+            return null;
+        }).when(householdService).reserveRecipe("default");
+
+        RecipeImportResponse response = importAll(RecipeImportRequest.DuplicatePolicy.SKIP,
+                recipe("Butter Chicken Curry", CURRY), pancakes(null), recipe("Garden Salad",
+                        List.of("lettuce", "cucumber", "radish", "olive oil")), curryVariant());
+
+        assertThat(response.getResults()).extracting(RecipeImportResponse.Result::getStatus).containsExactly(
+                RecipeImportResponse.Status.CREATED, RecipeImportResponse.Status.CREATED,
+                RecipeImportResponse.Status.QUOTA_EXCEEDED, RecipeImportResponse.Status.SKIPPED);
+        assertThat(response.getResults().get(2).getId()).isNull();
+        assertThat(response.getResults().get(2).getIndex()).isEqualTo(2);
+        assertThat(response.getCreated()).isEqualTo(2);
+        assertThat(response.getQuotaExceeded()).isEqualTo(1);
+        assertThat(stored).hasSize(2);
+    }
+
+    private RecipeImportResponse.Result importOne(RecipeCreateRequest recipe,
+                                                  RecipeImportRequest.DuplicatePolicy policy) {
+        return importAll(policy, recipe).getResults().get(0);
+    }
+
+    private RecipeImportResponse importAll(RecipeImportRequest.DuplicatePolicy policy,
+                                           RecipeCreateRequest... recipes) {
+        return service.importRecipes("default", RecipeImportRequest.builder()
+                .recipes(Arrays.asList(recipes))
+                .onDuplicate(policy)
+                .build());
+    }
+
+    private static RecipeCreateRequest curryVariant() {
+        List<String> ingredients = CURRY.stream().map(name -> name.equals("rice") ? "basmati rice" : name).toList();
+        RecipeCreateRequest variant = recipe("Butter chicken curry!", ingredients);
+        variant.setTags(List.of("indian"));
+        variant.setExternalKey("site-b:42");
+        return variant;
+    }
+
+    private static RecipeCreateRequest pancakes(String externalKey) {
+        RecipeCreateRequest pancakes = recipe("Fluffy Pancakes", List.of("flour", "milk", "egg", "sugar"));
+        pancakes.setExternalKey(externalKey);
+        return pancakes;
+    }
+
+    private static RecipeCreateRequest recipe(String name, List<String> ingredients) {
+        return RecipeCreateRequest.builder()
+                .name(name)
+                .ingredients(ingredients.stream()
+                        .map(ingredient -> RecipeIngredientDto.builder().name(ingredient).quantity(1).unit("each").build())
+                        .toList())
+                .instructions(List.of("Cook"))
+                .servings(2)
+                .tags(List.of("dinner"))
+                .build();
+    }
+}
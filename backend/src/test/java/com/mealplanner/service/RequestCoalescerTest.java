@@ -0,0 +1,84 @@
+package com.mealplanner.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RequestCoalescerTest {
+
+    @Test
+    void concurrentIdenticalCallsShareOneExecution() throws Exception {
+        RequestCoalescer<String, Integer> coalescer =
+                new RequestCoalescer<>("test", Duration.ZERO, new SimpleMeterRegistry());
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        int callers = 8;
+
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> coalescer.execute("dinner", () -> {
+                    executions.incrementAndGet();
+                    await(release);
+                    return 42;
+                })));
+            }
+            Thread.sleep(200);
+            release.countDown();
+
+            for (Future<Integer> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo(42);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(executions.get()).isEqualTo(1);
+        assertThat(coalescer.coalescingRatio()).isEqualTo((callers - 1) / (double) callers);
+    }
+
+    @Test
+    void failuresAreNotCached() {
+        RequestCoalescer<String, Integer> coalescer =
+                new RequestCoalescer<>("test", Duration.ofMinutes(1), new SimpleMeterRegistry());
+
+        assertThatThrownBy(() -> coalescer.execute("k", () -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(coalescer.execute("k", () -> 7)).isEqualTo(7);
+    }
+
+    @Test
+    void invalidateForcesFreshExecution() {
+        RequestCoalescer<String, Integer> coalescer =
+                new RequestCoalescer<>("test", Duration.ofMinutes(1), new SimpleMeterRegistry());
+
+        assertThat(coalescer.execute("k", () -> 1)).isEqualTo(1);
+        assertThat(coalescer.execute("k", () -> 2)).isEqualTo(1);
+
+        coalescer.invalidate();
+        assertThat(coalescer.execute("k", () -> 3)).isEqualTo(3);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
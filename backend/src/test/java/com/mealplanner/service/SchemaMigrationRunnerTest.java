@@ -0,0 +1,99 @@
+package com.mealplanner.service;
+
+import com.mealplanner.config.ConcurrencyLimits;
+import com.mealplanner.model.MigrationCheckpoint;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SchemaMigrationRunnerTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void parksDocumentsTheServerRejectsAndFinishesTheRest() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.getCollectionName(any())).thenReturn("recipes");
+        MongoCollection<Document> collection = mock(MongoCollection.class);
+        when(mongoTemplate.getCollection("recipes")).thenReturn(collection);
+        when(collection.countDocuments(any(Bson.class))).thenReturn(2L, 0L);
+        Document accepted = recipe("recipe-1");
+        Document duplicate = recipe("recipe-2");
+        FindIterable<Document> batch = batchOf(accepted, duplicate);
+        FindIterable<Document> drained = batchOf();
+        when(collection.find(any(Bson.class))).thenReturn(batch, drained);
+        when(collection.bulkWrite(anyList(), any(BulkWriteOptions.class))).thenThrow(new MongoBulkWriteException(
+                BulkWriteResult.acknowledged(0, 1, 0, 1, List.of()),
+                List.of(new BulkWriteError(11000, "duplicate key", new BsonDocument(), 1)), null,
+                new ServerAddress()));
+
+        ObjectProvider<ConcurrencyLimits> limits = mock(ObjectProvider.class);
+        MigrationRegistry registry = new MigrationRegistry(List.of(new RecipeIngredientNamesMigration()),
+                mongoTemplate, new SimpleMeterRegistry());
+        SchemaMigrationRunner runner = new SchemaMigrationRunner(mongoTemplate, registry, limits,
+                new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(runner, "batchSize", 10);
+        ReflectionTestUtils.setField(runner, "docsPerSecond", 1_000_000);
+        ReflectionTestUtils.setField(runner, "running", true);
+
+        runner.migrate("recipes");
+
+        ArgumentCaptor<MigrationCheckpoint> saved = ArgumentCaptor.forClass(MigrationCheckpoint.class);
+        verify(mongoTemplate, times(2)).save(saved.capture());
+        MigrationCheckpoint checkpoint = saved.getValue();
+        assertThat(checkpoint.isCompleted()).isTrue();
+        assertThat(checkpoint.getMigrated()).isEqualTo(1);
+        assertThat(checkpoint.getParkedIds()).containsExactly("recipe-2");
+
+        ArgumentCaptor<Bson> filters = ArgumentCaptor.forClass(Bson.class);
+        verify(collection, times(2)).countDocuments(filters.capture());
+        assertThat(render(filters.getAllValues().get(1))).contains("$nin");
+    }
+
+    private static Document recipe(String id) {
+        return new Document("_id", id)
+                .append("name", id)
+                .append("ingredients", List.of(new Document("name", "flour")))
+                .append("updatedAt", Instant.parse("2026-01-01T00:00:00Z"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static FindIterable<Document> batchOf(Document... documents) {
+        FindIterable<Document> iterable = mock(FindIterable.class, RETURNS_SELF);
+        when(iterable.into(anyList())).thenAnswer(invocation -> {
+            List<Document> target = invocation.getArgument(0);
+            target.addAll(List.of(documents));
+            return target;
+        });
+        return iterable;
+    }
+
+    private static String render(Bson filter) {
+        return filter.toBsonDocument(BsonDocument.class, MongoClientSettings.getDefaultCodecRegistry()).toJson();
+    }
+}
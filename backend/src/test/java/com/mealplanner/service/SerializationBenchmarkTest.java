@@ -0,0 +1,192 @@
+package com.mealplanner.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.mealplanner.dto.PantryLotListResponse;
+import com.mealplanner.dto.PantryLotResponse;
+import com.mealplanner.dto.RecipeIngredientDto;
+import com.mealplanner.dto.RecipeListResponse;
+import com.mealplanner.dto.RecipeResponse;
+import com.mealplanner.model.PantryLotType;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the JSON and CBOR encodings of full recipe and pantry list pages: payload bytes,
+ * raw and gzipped, and median encode/decode time per page. Mappers are built the way
+ * {@code SerializationConfig} builds them, with and without Blackbird, so the report shows
+ * what each part of the setup contributes. Sizes and round trips are asserted, including that
+ * Blackbird writes the same payloads as reflection; timings are printed for comparison across
+ * machines. Tagged {@code benchmark}, so it only runs with {@code mvn test -Pbenchmark};
+ * {@code SerializationConfigTest} covers the configured converters in the default run.
+ */
+@Tag("benchmark")
+class SerializationBenchmarkTest {
+
+    private static final int PAGE_SIZE = 200;
+    private static final int WARMUP_RUNS = 200;
+    private static final int MEASURED_RUNS = 500;
+
+    @Test
+    void cborRecipePagesAreSmallerAndRoundTrip() {
+        RecipeListResponse page = recipePage();
+
+        Result json = measure("json", mapper(false, true), page, RecipeListResponse.class);
+        Result cbor = measure("cbor", mapper(true, true), page, RecipeListResponse.class);
+        Result jsonReflection = measure("json (reflection)", mapper(false, false), page, RecipeListResponse.class);
+        Result cborReflection = measure("cbor (reflection)", mapper(true, false), page, RecipeListResponse.class);
+
+        assertThat(jsonReflection.bytes()).isEqualTo(json.bytes());
+        assertThat(cborReflection.bytes()).isEqualTo(cbor.bytes());
+        assertThat(cbor.bytes()).isLessThan(json.bytes());
+        assertThat(json.gzippedBytes()).isLessThan(json.bytes() / 2);
+        assertThat(cbor.gzippedBytes()).isLessThan(cbor.bytes());
+    }
+
+    @Test
+    void cborPantryPagesAreSmallerAndRoundTrip() {
+        PantryLotListResponse page = pantryPage();
+
+        Result json = measure("json", mapper(false, true), page, PantryLotListResponse.class);
+        Result cbor = measure("cbor", mapper(true, true), page, PantryLotListResponse.class);
+
+        assertThat(cbor.bytes()).isLessThan(json.bytes());
+    }
+
+    private record Result(int bytes, int gzippedBytes, double encodeMicros, double decodeMicros) {
+    }
+
+    private static ObjectMapper mapper(boolean cbor, boolean blackbird) {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+        if (blackbird) {
+            builder.modulesToInstall(new BlackbirdModule());
+        }
+        if (cbor) {
+            builder.factory(new CBORFactory());
+        }
+        return builder.build();
+    }
+
+    private static <T> Result measure(String label, ObjectMapper mapper, T page, Class<T> type) {
+        byte[] encoded = encode(mapper, page);
+        assertThat(decode(mapper, encoded, type)).as(label).isEqualTo(page);
+
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            decode(mapper, encode(mapper, page), type);
+        }
+        long[] encodeNanos = new long[MEASURED_RUNS];
+        long[] decodeNanos = new long[MEASURED_RUNS];
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            long start = System.nanoTime();
+            byte[] bytes = encode(mapper, page);
+            long encodedAt = System.nanoTime();
+            decode(mapper, bytes, type);
+            encodeNanos[i] = encodedAt - start;
+            decodeNanos[i] = System.nanoTime() - encodedAt;
+        }
+
+        Result result = new Result(encoded.length, gzip(encoded).length,
+                median(encodeNanos) / 1_000.0, median(decodeNanos) / 1_000.0);
+        System.out.printf("%s %-18s %8d bytes %8d gzipped  encode %8.1f us  decode %8.1f us%n",
+                type.getSimpleName(), label, result.bytes(), result.gzippedBytes(),
+                result.encodeMicros(), result.decodeMicros());
+        return result;
+    }
+
+    private static RecipeListResponse recipePage() {
+        Instant now = Instant.parse("2026-01-15T12:00:00Z");
+        List<RecipeResponse> items = new ArrayList<>();
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            List<RecipeIngredientDto> ingredients = new ArrayList<>();
+            for (int j = 0; j < 10; j++) {
+                ingredients.add(RecipeIngredientDto.builder()
+                        .name("ingredient-" + ((i * 7 + j) % 150))
+                        .quantity(0.25 * (j + 1))
+                        .unit(j % 2 == 0 ? "g" : "ml")
+                        .build());
+            }
+            items.add(RecipeResponse.builder()
+                    .id(String.format("65a1%020x", i))
+                    .name("Recipe " + i)
+                    .ingredients(ingredients)
+                    .instructions(List.of("Prepare the ingredients.", "Cook for " + (10 + i % 30) + " minutes.",
+                            "Season to taste and serve."))
+                    .servings(2 + i % 4)
+                    .tags(List.of("dinner", i % 2 == 0 ? "vegetarian" : "meat"))
+                    .embedding(RecipeResponse.EmbeddingInfo.builder()
+                            .qdrantCollection("recipes")
+                            .vectorId("vec-" + i)
+                            .embeddedAt(now)
+                            .build())
+                    .createdAt(now.minusSeconds(i * 3_600L))
+                    .updatedAt(now)
+                    .build());
+        }
+        return RecipeListResponse.builder().items(items).total(10_000).build();
+    }
+
+    private static PantryLotListResponse pantryPage() {
+        Instant now = Instant.parse("2026-01-15T12:00:00Z");
+        List<PantryLotResponse> items = new ArrayList<>();
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            items.add(PantryLotResponse.builder()
+                    .id(String.format("65b2%020x", i))
+                    .name("ingredient-" + (i % 150))
+                    .type(PantryLotType.values()[i % PantryLotType.values().length])
+                    .quantity(100 + i)
+                    .unit("g")
+                    .metadata(Map.of("brand", "house", "location", "shelf-" + (i % 5)))
+                    .expiresAt(now.plusSeconds(i * 86_400L))
+                    .createdAt(now.minusSeconds(i * 3_600L))
+                    .updatedAt(now)
+                    .build());
+        }
+        return PantryLotListResponse.builder().items(items).total(2_000).build();
+    }
+
+    private static byte[] encode(ObjectMapper mapper, Object value) {
+        try {
+            return mapper.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static <T> T decode(ObjectMapper mapper, byte[] bytes, Class<T> type) {
+        try {
+            return mapper.readValue(bytes, type);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static double median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
@@ -0,0 +1,69 @@
+package com.mealplanner.service;
+
+import com.mealplanner.model.IngredientSubstitution;
+import com.mealplanner.model.RecipeIngredient;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToDoubleBiFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SubstitutionGraphTest {
+
+    private final UnitConversionService units = new UnitConversionService();
+
+    @Test
+    void chainsSubstitutionsUpToTheMaximumDepth() {
+        // buttermilk -> milk + lemon juice, lemon juice -> lime juice, lime juice -> vinegar
+        List<IngredientSubstitution> edges = List.of(
+                substitution("buttermilk", 1, "cup", substitute("milk", 1, "cup"), substitute("lemon juice", 1, "tbsp")),
+                substitution("lemon juice", 1, "tbsp", substitute("lime juice", 1, "tbsp")),
+                substitution("lime juice", 1, "tbsp", substitute("white vinegar", 1, "tbsp")));
+        Map<String, Double> pantry = Map.of("milk|ml", 500.0, "white vinegar|ml", 100.0);
+
+        SubstitutionGraph twoSteps = SubstitutionGraph.compile(edges, units, 2, 16);
+        SubstitutionGraph threeSteps = SubstitutionGraph.compile(edges, units, 3, 16);
+
+        assertThat(twoSteps.canSubstitute("buttermilk", 240, "ml", stock(pantry))).isFalse();
+        assertThat(threeSteps.canSubstitute("buttermilk", 240, "ml", stock(pantry))).isTrue();
+        assertThat(threeSteps.substitutesOf("buttermilk")).contains("milk", "white vinegar");
+        // Two cups need about 473 ml of milk; 500 ml covers it, 400 ml does not
+        assertThat(threeSteps.canSubstitute("buttermilk", 473,
+                "ml", stock(Map.of("milk|ml", 400.0, "white vinegar|ml", 100.0)))).isFalse();
+    }
+
+    @Test
+    void ignoresCyclesAndMismatchedDimensions() {
+        List<IngredientSubstitution> edges = List.of(
+                substitution("butter", 100, "g", substitute("margarine", 100, "g")),
+                substitution("margarine", 100, "g", substitute("butter", 100, "g")));
+        SubstitutionGraph graph = SubstitutionGraph.compile(edges, units, 5, 16);
+
+        assertThat(graph.substitutesOf("butter")).containsExactly("margarine");
+        assertThat(graph.canSubstitute("butter", 50, "g", stock(Map.of("margarine|g", 50.0)))).isTrue();
+        assertThat(graph.canSubstitute("butter", 2, "each", stock(Map.of("margarine|g", 500.0)))).isFalse();
+        assertThat(graph.canSubstitute("saffron", 1, "g", stock(Map.of()))).isFalse();
+    }
+
+    private static ToDoubleBiFunction<String, String> stock(Map<String, Double> totals) {
+        return (ingredient, unit) -> totals.getOrDefault(ingredient + "|" + unit, 0.0);
+    }
+
+    private static IngredientSubstitution substitution(String ingredient, double quantity, String unit,
+                                                       RecipeIngredient... substitutes) {
+        return IngredientSubstitution.builder()
+                .ingredient(ingredient)
+                .ingredientNormalized(ingredient)
+                .quantity(quantity)
+                .unit(unit)
+                .substitutes(List.of(substitutes))
+                .cost(1)
+                .build();
+    }
+
+    private static RecipeIngredient substitute(String name, double quantity, String unit) {
+        return RecipeIngredient.builder().name(name).quantity(quantity).unit(unit).build();
+    }
+}
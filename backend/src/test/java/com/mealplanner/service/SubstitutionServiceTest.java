@@ -0,0 +1,84 @@
+package com.mealplanner.service;
+
+import com.mealplanner.repository.IngredientSubstitutionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SubstitutionServiceTest {
+
+    private IngredientSubstitutionRepository repository;
+    private SubstitutionService service;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(IngredientSubstitutionRepository.class);
+        service = new SubstitutionService(repository, mock(MongoTemplate.class), new UnitConversionService(),
+                new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "maxDepth", 3);
+        ReflectionTestUtils.setField(service, "maxOptions", 16);
+        ReflectionTestUtils.setField(service, "refreshInterval", Duration.ofMinutes(5));
+        ReflectionTestUtils.setField(service, "cacheSize", 2);
+    }
+
+    @Test
+    void keepsCachingNewHouseholdsOnceTheCacheIsFull() {
+        service.graphFor("first");
+        service.graphFor("second");
+        service.graphFor("first");
+        // Evicts "second", the least recently used
+        service.graphFor("third");
+        service.graphFor("third");
+        service.graphFor("first");
+        service.graphFor("second");
+
+        verify(repository, times(1)).findByHouseholdId("first");
+        verify(repository, times(2)).findByHouseholdId("second");
+        verify(repository, times(1)).findByHouseholdId("third");
+    }
+
+    @Test
+    void concurrentRequestsShareOneCompile() throws Exception {
+        CountDownLatch compiling = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(repository.findByHouseholdId("family")).thenAnswer(invocation -> {
+            compiling.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return List.of();
+        });
+
+        ExecutorService callers = Executors.newFixedThreadPool(4);
+        List<Future<SubstitutionGraph>> graphs = new ArrayList<>();
+        graphs.add(callers.submit(() -> service.graphFor("family")));
+        assertThat(compiling.await(5, TimeUnit.SECONDS)).isTrue();
+        for (int i = 0; i < 3; i++) {
+            graphs.add(callers.submit(() -> service.graphFor("family")));
+        }
+        Thread.sleep(100);
+        release.countDown();
+
+        SubstitutionGraph first = graphs.get(0).get(5, TimeUnit.SECONDS);
+        for (Future<SubstitutionGraph> graph : graphs) {
+            assertThat(graph.get(5, TimeUnit.SECONDS)).isSameAs(first);
+        }
+        callers.shutdown();
+        verify(repository, times(1)).findByHouseholdId("family");
+    }
+}
@@ -0,0 +1,32 @@
+package com.mealplanner.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class UnitConversionServiceTest {
+
+    private final UnitConversionService units = new UnitConversionService();
+
+    @Test
+    void normalizesEachDimensionToItsCanonicalUnit() {
+        assertThat(units.normalize(1.5, "Kg ")).isEqualTo(new UnitConversionService.Quantity(1500, "g"));
+        assertThat(units.normalize(250, "mg").amount()).isCloseTo(0.25, within(1e-9));
+        assertThat(units.normalize(1, "lb").amount()).isCloseTo(453.59237, within(1e-9));
+        assertThat(units.normalize(2, "cups")).isEqualTo(new UnitConversionService.Quantity(473.176473, "ml"));
+        assertThat(units.normalize(3, "tsp").amount()).isCloseTo(units.normalize(1, "tbsp").amount(), within(1e-9));
+        assertThat(units.normalize(1, "fl oz").unit()).isEqualTo("ml");
+        assertThat(units.normalize(6, "pcs")).isEqualTo(new UnitConversionService.Quantity(6, "each"));
+    }
+
+    @Test
+    void keepsUnknownUnitsAndTreatsMissingOnesAsCounts() {
+        assertThat(units.normalize(2, " Pinch")).isEqualTo(new UnitConversionService.Quantity(2, "pinch"));
+        assertThat(units.normalize(3, null)).isEqualTo(new UnitConversionService.Quantity(3, "each"));
+        assertThat(units.normalize(3, "  ")).isEqualTo(new UnitConversionService.Quantity(3, "each"));
+        // Mass and volume never combine, even for the same ingredient
+        assertThat(units.canonicalUnit("oz")).isEqualTo("g");
+        assertThat(units.canonicalUnit("fl oz")).isEqualTo("ml");
+    }
+}
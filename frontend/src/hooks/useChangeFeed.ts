@@ -0,0 +1,26 @@
+import { useEffect, useRef } from 'react'
+import { subscribeToChanges } from '../services/eventsService'
+import type { ChangeEntity, ChangeEvent } from '../types'
+
+/**
+ * Calls onChange for feed events about the given entity, and onChange(null) when the
+ * feed was reset and the caller should refetch everything.
+ */
+export function useChangeFeed(
+  entity: ChangeEntity,
+  onChange: (event: ChangeEvent | null) => void
+) {
+  const handlerRef = useRef(onChange)
+  handlerRef.current = onChange
+
+  useEffect(() => {
+    return subscribeToChanges({
+      onChange: (event) => {
+        if (event.entity === entity) {
+          handlerRef.current(event)
+        }
+      },
+      onReset: () => handlerRef.current(null),
+    })
+  }, [entity])
+}
@@ -1,6 +1,12 @@
 import type { ErrorResponse } from '../types'
 
 const API_BASE_URL = '/api'
+const HOUSEHOLD_STORAGE_KEY = 'householdId'
+const DEFAULT_HOUSEHOLD = 'default'
+
+export function getHouseholdId(): string {
+  return localStorage.getItem(HOUSEHOLD_STORAGE_KEY) || DEFAULT_HOUSEHOLD
+}
 
 export class ApiError extends Error {
   constructor(
@@ -58,6 +64,7 @@ export async function get<T>(endpoint: string, params?: Record<string, string |
     method: 'GET',
     headers: {
       'Content-Type': 'application/json',
+      'X-Household-Id': getHouseholdId(),
     },
   })
 
@@ -69,6 +76,7 @@ export async function post<T>(endpoint: string, data: unknown): Promise<T> {
     method: 'POST',
     headers: {
       'Content-Type': 'application/json',
+      'X-Household-Id': getHouseholdId(),
     },
     body: JSON.stringify(data),
   })
@@ -81,6 +89,7 @@ export async function put<T>(endpoint: string, data: unknown): Promise<T> {
     method: 'PUT',
     headers: {
       'Content-Type': 'application/json',
+      'X-Household-Id': getHouseholdId(),
     },
     body: JSON.stringify(data),
   })
@@ -93,6 +102,7 @@ export async function del<T>(endpoint: string): Promise<T> {
     method: 'DELETE',
     headers: {
       'Content-Type': 'application/json',
+      'X-Household-Id': getHouseholdId(),
     },
   })
 
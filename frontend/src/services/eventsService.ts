@@ -0,0 +1,28 @@
+import type { ChangeEvent } from '../types'
+import { getHouseholdId } from './api'
+
+const EVENTS_URL = '/api/events'
+
+export interface ChangeFeedHandlers {
+  onChange: (event: ChangeEvent) => void
+  // Events were missed (server restart or too long offline); cached lists should be refetched
+  onReset?: () => void
+}
+
+/**
+ * Subscribes to the server's change feed. EventSource reconnects on its own and sends
+ * Last-Event-ID, so only events missed while disconnected are replayed.
+ */
+export function subscribeToChanges(handlers: ChangeFeedHandlers): () => void {
+  // EventSource cannot set headers, so the household goes in the query string
+  const source = new EventSource(`${EVENTS_URL}?household=${encodeURIComponent(getHouseholdId())}`)
+
+  source.addEventListener('change', (message) => {
+    handlers.onChange(JSON.parse((message as MessageEvent<string>).data) as ChangeEvent)
+  })
+  source.addEventListener('reset', () => {
+    handlers.onReset?.()
+  })
+
+  return () => source.close()
+}
@@ -18,6 +18,10 @@ export async function listPantryLots(params?: ListPantryLotsParams): Promise<Pan
   return get<PantryLotListResponse>('/pantry', params as Record<string, string | number | undefined>)
 }
 
+export async function listExpiringPantryLots(within = '3d', limit?: number): Promise<PantryLotListResponse> {
+  return get<PantryLotListResponse>('/pantry/expiring', { within, limit })
+}
+
 export async function getPantryLot(id: string): Promise<PantryLot> {
   return get<PantryLot>(`/pantry/${id}`)
 }
@@ -4,6 +4,10 @@ import type {
   RecipeCreateRequest,
   RecipeUpdateRequest,
   RecipeListResponse,
+  RecipeSuggestionListResponse,
+  RecipeDuplicateListResponse,
+  RecipeImportRequest,
+  RecipeImportResponse,
 } from '../types'
 
 export interface ListRecipesParams {
@@ -17,6 +21,10 @@ export async function listRecipes(params?: ListRecipesParams): Promise<RecipeLis
   return get<RecipeListResponse>('/recipes', params as Record<string, string | number | undefined>)
 }
 
+export async function listUseSoonRecipes(within = '3d', limit?: number): Promise<RecipeSuggestionListResponse> {
+  return get<RecipeSuggestionListResponse>('/recipes/use-soon', { within, limit })
+}
+
 export async function getRecipe(id: string): Promise<Recipe> {
   return get<Recipe>(`/recipes/${id}`)
 }
@@ -25,6 +33,14 @@ export async function createRecipe(data: RecipeCreateRequest): Promise<Recipe> {
   return post<Recipe>('/recipes', data)
 }
 
+export async function importRecipes(data: RecipeImportRequest): Promise<RecipeImportResponse> {
+  return post<RecipeImportResponse>('/recipes/import', data)
+}
+
+export async function listRecipeDuplicates(id: string, threshold?: number, limit?: number): Promise<RecipeDuplicateListResponse> {
+  return get<RecipeDuplicateListResponse>(`/recipes/${id}/duplicates`, { threshold, limit })
+}
+
 export async function updateRecipe(id: string, data: RecipeUpdateRequest): Promise<Recipe> {
   return put<Recipe>(`/recipes/${id}`, data)
 }
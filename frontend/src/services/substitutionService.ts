@@ -0,0 +1,33 @@
+import { get, post, put, del } from './api'
+import type {
+  Substitution,
+  SubstitutionCreateRequest,
+  SubstitutionUpdateRequest,
+  SubstitutionListResponse,
+} from '../types'
+
+export interface ListSubstitutionsParams {
+  ingredient?: string
+  limit?: number
+  offset?: number
+}
+
+export async function listSubstitutions(params?: ListSubstitutionsParams): Promise<SubstitutionListResponse> {
+  return get<SubstitutionListResponse>('/substitutions', params as Record<string, string | number | undefined>)
+}
+
+export async function getSubstitution(id: string): Promise<Substitution> {
+  return get<Substitution>(`/substitutions/${id}`)
+}
+
+export async function createSubstitution(data: SubstitutionCreateRequest): Promise<Substitution> {
+  return post<Substitution>('/substitutions', data)
+}
+
+export async function updateSubstitution(id: string, data: SubstitutionUpdateRequest): Promise<Substitution> {
+  return put<Substitution>(`/substitutions/${id}`, data)
+}
+
+export async function deleteSubstitution(id: string): Promise<void> {
+  return del<void>(`/substitutions/${id}`)
+}
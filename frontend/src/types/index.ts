@@ -7,6 +7,8 @@ export interface PantryLot {
   quantity: number
   unit: string
   metadata?: Record<string, unknown>
+  expiresAt?: string
+  openedAt?: string
   createdAt: string
   updatedAt: string
 }
@@ -17,6 +19,8 @@ export interface PantryLotCreateRequest {
   quantity: number
   unit: string
   metadata?: Record<string, unknown>
+  expiresAt?: string
+  openedAt?: string
 }
 
 export interface PantryLotUpdateRequest {
@@ -25,6 +29,8 @@ export interface PantryLotUpdateRequest {
   quantity: number
   unit: string
   metadata?: Record<string, unknown>
+  expiresAt?: string
+  openedAt?: string
 }
 
 export interface PantryLotListResponse {
@@ -52,6 +58,7 @@ export interface Recipe {
   servings: number
   tags: string[]
   embedding?: RecipeEmbedding
+  duplicateOf?: string
   createdAt: string
   updatedAt: string
 }
@@ -62,6 +69,7 @@ export interface RecipeCreateRequest {
   instructions: string[]
   servings: number
   tags?: string[]
+  externalKey?: string
 }
 
 export interface RecipeUpdateRequest {
@@ -89,3 +97,88 @@ export interface HealthResponse {
   version?: string
   time: string
 }
+
+export type ChangeEntity = 'recipe' | 'pantryLot'
+
+export type ChangeOperation = 'CREATED' | 'UPDATED' | 'DELETED'
+
+export interface ChangeEvent {
+  entity: ChangeEntity
+  id: string
+  op: ChangeOperation
+  updatedAt: string
+}
+
+export interface RecipeSuggestion {
+  recipe: Recipe
+  score: number
+  cookable: boolean
+  coverage: number
+  expiringIngredients: string[]
+  substitutedIngredients?: string[]
+  earliestExpiry?: string
+}
+
+export interface RecipeSuggestionListResponse {
+  items: RecipeSuggestion[]
+  total: number
+}
+
+export interface RecipeDuplicate {
+  recipe: Recipe
+  similarity: number
+}
+
+export interface RecipeDuplicateListResponse {
+  items: RecipeDuplicate[]
+}
+
+export type DuplicatePolicy = 'SKIP' | 'MERGE' | 'FLAG'
+
+export interface RecipeImportRequest {
+  recipes: RecipeCreateRequest[]
+  onDuplicate?: DuplicatePolicy
+}
+
+export interface RecipeImportResult {
+  index: number
+  status: 'CREATED' | 'SKIPPED' | 'MERGED' | 'FLAGGED' | 'QUOTA_EXCEEDED'
+  id?: string
+  duplicateOf?: string
+  similarity?: number
+}
+
+export interface RecipeImportResponse {
+  results: RecipeImportResult[]
+  created: number
+  skipped: number
+  merged: number
+  flagged: number
+  quotaExceeded: number
+}
+
+export interface Substitution {
+  id: string
+  ingredient: string
+  quantity: number
+  unit: string
+  substitutes: RecipeIngredient[]
+  cost: number
+  createdAt: string
+  updatedAt: string
+}
+
+export interface SubstitutionCreateRequest {
+  ingredient: string
+  quantity: number
+  unit: string
+  substitutes: RecipeIngredient[]
+  cost?: number
+}
+
+export type SubstitutionUpdateRequest = SubstitutionCreateRequest
+
+export interface SubstitutionListResponse {
+  items: Substitution[]
+  total: number
+}